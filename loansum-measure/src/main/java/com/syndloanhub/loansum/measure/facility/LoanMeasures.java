@@ -0,0 +1,49 @@
+/**
+ * Copyright (c) 2018 SyndLoanHub, LLC and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License from within this distribution and at:
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.syndloanhub.loansum.measure.facility;
+
+import com.opengamma.strata.calc.ImmutableMeasure;
+import com.opengamma.strata.calc.Measure;
+import com.opengamma.strata.measure.Measures;
+
+/**
+ * Measures supported by the loansum calculation functions.
+ * <p>
+ * Present value and accrued interest are the standard Strata measures so loan results line up with the
+ * rest of a Strata book. Cash flows and proceeds are reported as annotated cash flows and are not
+ * currency convertible.
+ */
+public final class LoanMeasures {
+
+  /**
+   * Present value of a trade, marked at its clean price quote.
+   */
+  public static final Measure PRESENT_VALUE = Measures.PRESENT_VALUE;
+
+  /**
+   * Accrued interest on funded contracts as of the valuation date.
+   */
+  public static final Measure ACCRUED_INTEREST = Measures.ACCRUED_INTEREST;
+
+  /**
+   * Annotated interest, fee and principal cash flows.
+   */
+  public static final Measure CASH_FLOWS = ImmutableMeasure.of("LoanCashFlows", false);
+
+  /**
+   * Annotated settlement proceeds.
+   */
+  public static final Measure PROCEEDS = ImmutableMeasure.of("LoanProceeds", false);
+
+  private LoanMeasures() {
+  }
+
+}
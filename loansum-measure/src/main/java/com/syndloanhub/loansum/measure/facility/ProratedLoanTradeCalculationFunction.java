@@ -0,0 +1,191 @@
+/**
+ * Copyright (c) 2018 SyndLoanHub, LLC and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License from within this distribution and at:
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.syndloanhub.loansum.measure.facility;
+
+import static com.syndloanhub.loansum.measure.facility.LoanMeasures.ACCRUED_INTEREST;
+import static com.syndloanhub.loansum.measure.facility.LoanMeasures.CASH_FLOWS;
+import static com.syndloanhub.loansum.measure.facility.LoanMeasures.PRESENT_VALUE;
+import static com.syndloanhub.loansum.measure.facility.LoanMeasures.PROCEEDS;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.opengamma.strata.basics.ReferenceData;
+import com.opengamma.strata.basics.currency.Currency;
+import com.opengamma.strata.calc.Measure;
+import com.opengamma.strata.calc.runner.CalculationFunction;
+import com.opengamma.strata.calc.runner.CalculationParameters;
+import com.opengamma.strata.calc.runner.FunctionRequirements;
+import com.opengamma.strata.collect.array.DoubleArray;
+import com.opengamma.strata.collect.result.FailureReason;
+import com.opengamma.strata.collect.result.Result;
+import com.opengamma.strata.data.scenario.CurrencyScenarioArray;
+import com.opengamma.strata.data.scenario.MarketDataBox;
+import com.opengamma.strata.data.scenario.ScenarioArray;
+import com.opengamma.strata.data.scenario.ScenarioMarketData;
+import com.opengamma.strata.market.observable.QuoteId;
+import com.opengamma.strata.pricer.rate.ImmutableRatesProvider;
+import com.opengamma.strata.pricer.rate.RatesProvider;
+import com.syndloanhub.loansum.pricer.facility.prorated.ProratedLoanTradePricer;
+import com.syndloanhub.loansum.product.facility.AnnotatedCashFlows;
+import com.syndloanhub.loansum.product.facility.prorated.ProratedLoanTrade;
+
+/**
+ * Strata calculation function for {@link ProratedLoanTrade}.
+ * <p>
+ * Registering this function with a {@code CalculationRunner} lets loan trades be calculated alongside
+ * other Strata targets, using its multi-threaded execution and scenario market data. The present value
+ * measure requires a clean price quote, expressed as a fraction of par, identified by
+ * {@code QuoteId.of(facilityId)}. The remaining measures only require the valuation date.
+ */
+public class ProratedLoanTradeCalculationFunction implements CalculationFunction<ProratedLoanTrade> {
+
+  /**
+   * The calculations by measure.
+   */
+  private static final ImmutableMap<Measure, SingleMeasureCalculation> CALCULATORS =
+      ImmutableMap.<Measure, SingleMeasureCalculation>builder()
+          .put(PRESENT_VALUE, ProratedLoanTradeCalculationFunction::presentValue)
+          .put(ACCRUED_INTEREST, ProratedLoanTradeCalculationFunction::accruedInterest)
+          .put(CASH_FLOWS, ProratedLoanTradeCalculationFunction::cashFlows)
+          .put(PROCEEDS, ProratedLoanTradeCalculationFunction::proceeds)
+          .build();
+
+  private static final ImmutableSet<Measure> MEASURES = CALCULATORS.keySet();
+
+  private static final ProratedLoanTradePricer PRICER = ProratedLoanTradePricer.DEFAULT;
+
+  /**
+   * Creates an instance.
+   */
+  public ProratedLoanTradeCalculationFunction() {
+  }
+
+  @Override
+  public Class<ProratedLoanTrade> targetType() {
+    return ProratedLoanTrade.class;
+  }
+
+  @Override
+  public Set<Measure> supportedMeasures() {
+    return MEASURES;
+  }
+
+  @Override
+  public Optional<String> identifier(ProratedLoanTrade target) {
+    return target.getInfo().getId().map(id -> id.toString());
+  }
+
+  @Override
+  public Currency naturalCurrency(ProratedLoanTrade target, ReferenceData refData) {
+    return target.getProduct().getCurrency();
+  }
+
+  @Override
+  public FunctionRequirements requirements(ProratedLoanTrade target, Set<Measure> measures,
+      CalculationParameters parameters, ReferenceData refData) {
+    FunctionRequirements.Builder builder = FunctionRequirements.builder()
+        .outputCurrencies(ImmutableSet.of(target.getProduct().getCurrency()));
+
+    if (measures.contains(PRESENT_VALUE))
+      builder.valueRequirements(ImmutableSet.of(QuoteId.of(target.getProduct().getId())));
+
+    return builder.build();
+  }
+
+  @Override
+  public Map<Measure, Result<?>> calculate(ProratedLoanTrade target, Set<Measure> measures,
+      CalculationParameters parameters, ScenarioMarketData marketData, ReferenceData refData) {
+    List<RatesProvider> providers = ratesProviders(marketData);
+    Map<Measure, Result<?>> results = new HashMap<Measure, Result<?>>();
+
+    for (Measure measure : measures)
+      results.put(measure, calculate(measure, target, providers, marketData));
+
+    return results;
+  }
+
+  /**
+   * Calculate a single measure, capturing any failure in the result.
+   * 
+   * @param measure the measure
+   * @param trade the trade
+   * @param providers rates provider per scenario
+   * @param marketData scenario market data
+   * @return result for the measure
+   */
+  private Result<?> calculate(Measure measure, ProratedLoanTrade trade, List<RatesProvider> providers,
+      ScenarioMarketData marketData) {
+    SingleMeasureCalculation calculator = CALCULATORS.get(measure);
+
+    if (calculator == null)
+      return Result.failure(FailureReason.UNSUPPORTED, "Unsupported measure for ProratedLoanTrade: {}", measure);
+
+    return Result.of(() -> calculator.calculate(trade, providers, marketData));
+  }
+
+  /**
+   * Build a rates provider per scenario from the scenario valuation dates.
+   * 
+   * @param marketData scenario market data
+   * @return rates provider per scenario
+   */
+  private static List<RatesProvider> ratesProviders(ScenarioMarketData marketData) {
+    MarketDataBox<LocalDate> valuationDates = marketData.getValuationDate();
+    List<RatesProvider> providers = new ArrayList<RatesProvider>(marketData.getScenarioCount());
+
+    for (int i = 0; i < marketData.getScenarioCount(); i++)
+      providers.add(ImmutableRatesProvider.builder(valuationDates.getValue(i)).build());
+
+    return providers;
+  }
+
+  private static CurrencyScenarioArray presentValue(ProratedLoanTrade trade, List<RatesProvider> providers,
+      ScenarioMarketData marketData) {
+    MarketDataBox<Double> cleanPrices = marketData.getValue(QuoteId.of(trade.getProduct().getId()));
+
+    return PRICER.presentValueFromCleanPrice(trade, providers,
+        DoubleArray.of(providers.size(), i -> cleanPrices.getValue(i)));
+  }
+
+  private static CurrencyScenarioArray accruedInterest(ProratedLoanTrade trade, List<RatesProvider> providers,
+      ScenarioMarketData marketData) {
+    return PRICER.accruedInterest(trade, providers);
+  }
+
+  private static ScenarioArray<AnnotatedCashFlows> cashFlows(ProratedLoanTrade trade, List<RatesProvider> providers,
+      ScenarioMarketData marketData) {
+    return PRICER.cashFlows(trade, providers, false);
+  }
+
+  private static ScenarioArray<AnnotatedCashFlows> proceeds(ProratedLoanTrade trade, List<RatesProvider> providers,
+      ScenarioMarketData marketData) {
+    return PRICER.proceeds(trade, providers, false);
+  }
+
+  /**
+   * Function interface for calculating a single measure across all scenarios.
+   */
+  @FunctionalInterface
+  interface SingleMeasureCalculation {
+
+    public abstract Object calculate(ProratedLoanTrade trade, List<RatesProvider> providers,
+        ScenarioMarketData marketData);
+  }
+
+}
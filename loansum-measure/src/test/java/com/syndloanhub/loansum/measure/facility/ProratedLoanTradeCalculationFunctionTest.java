@@ -0,0 +1,296 @@
+/**
+ * Copyright (c) 2018 SyndLoanHub, LLC and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License from within this distribution and at:
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.syndloanhub.loansum.measure.facility;
+
+import static com.opengamma.strata.product.common.BuySell.BUY;
+import static com.syndloanhub.loansum.measure.facility.LoanMeasures.ACCRUED_INTEREST;
+import static com.syndloanhub.loansum.measure.facility.LoanMeasures.CASH_FLOWS;
+import static com.syndloanhub.loansum.measure.facility.LoanMeasures.PRESENT_VALUE;
+import static com.syndloanhub.loansum.measure.facility.LoanMeasures.PROCEEDS;
+import static com.syndloanhub.loansum.product.facility.FacilityType.Term;
+import static com.syndloanhub.loansum.product.facility.LoanTradingAccrualSettlement.SettledWithoutAccrued;
+import static com.syndloanhub.loansum.product.facility.LoanTradingAssoc.LSTA;
+import static com.syndloanhub.loansum.product.facility.LoanTradingDocType.Par;
+import static com.syndloanhub.loansum.product.facility.LoanTradingFormOfPurchase.Assignment;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.opengamma.strata.basics.ReferenceData;
+import com.opengamma.strata.basics.StandardId;
+import com.opengamma.strata.basics.currency.Currency;
+import com.opengamma.strata.basics.currency.CurrencyAmount;
+import com.opengamma.strata.basics.date.DayCounts;
+import com.opengamma.strata.basics.index.IborIndex;
+import com.opengamma.strata.basics.schedule.Frequency;
+import com.opengamma.strata.calc.CalculationRules;
+import com.opengamma.strata.calc.CalculationRunner;
+import com.opengamma.strata.calc.Column;
+import com.opengamma.strata.calc.Results;
+import com.opengamma.strata.calc.runner.CalculationFunctions;
+import com.opengamma.strata.data.scenario.CurrencyScenarioArray;
+import com.opengamma.strata.data.scenario.ImmutableScenarioMarketData;
+import com.opengamma.strata.data.scenario.ImmutableScenarioMarketDataBuilder;
+import com.opengamma.strata.data.scenario.MarketDataBox;
+import com.opengamma.strata.data.scenario.ScenarioArray;
+import com.opengamma.strata.market.observable.QuoteId;
+import com.opengamma.strata.pricer.rate.ImmutableRatesProvider;
+import com.opengamma.strata.pricer.rate.RatesProvider;
+import com.opengamma.strata.product.TradeInfo;
+import com.syndloanhub.loansum.pricer.facility.prorated.ProratedLoanTradePricer;
+import com.syndloanhub.loansum.product.facility.CommitmentAdjustment;
+import com.syndloanhub.loansum.product.facility.Facility;
+import com.syndloanhub.loansum.product.facility.FacilityEvent;
+import com.syndloanhub.loansum.product.facility.FloatingRateAccrual;
+import com.syndloanhub.loansum.product.facility.LoanContract;
+import com.syndloanhub.loansum.product.facility.LoanTrade;
+import com.syndloanhub.loansum.product.facility.Repayment;
+import com.syndloanhub.loansum.product.facility.prorated.ProratedLoanTrade;
+
+/**
+ * Tests {@link ProratedLoanTradeCalculationFunction} run through a Strata {@link CalculationRunner}.
+ */
+@Test
+public class ProratedLoanTradeCalculationFunctionTest {
+
+  private static final ProratedLoanTradePricer PRICER = ProratedLoanTradePricer.DEFAULT;
+  private static final ProratedLoanTrade TRADE = termLoanTrade().prorate(null);
+  private static final CalculationRules RULES =
+      CalculationRules.of(CalculationFunctions.of(new ProratedLoanTradeCalculationFunction()));
+  private static final List<Column> COLUMNS = ImmutableList.of(
+      Column.of(PRESENT_VALUE), Column.of(ACCRUED_INTEREST), Column.of(CASH_FLOWS), Column.of(PROCEEDS));
+
+  private static final LocalDate[] VALUATION_DATES = {LocalDate.of(2017, 6, 1), LocalDate.of(2017, 7, 14)};
+  private static final Double[] CLEAN_PRICES = {100.75 / 100, 99.5 / 100};
+
+  public void test_presentValue() {
+    final Results results = calculate(true);
+    final CurrencyScenarioArray presentValue = (CurrencyScenarioArray) results.get(0, 0).getValue();
+
+    assertEquals(presentValue.getScenarioCount(), VALUATION_DATES.length);
+    for (int i = 0; i < VALUATION_DATES.length; i++)
+      assertEquals(presentValue.get(i).getAmount(),
+          PRICER.presentValueFromCleanPrice(TRADE, provider(i), CLEAN_PRICES[i], Optional.empty()).getAmount(), 1E-6);
+
+    // Marked at the first scenario's price this is the present value recorded in MTM1.csv.
+    assertEquals(presentValue.get(0).getAmount(), 3028058.048340, 1E-2);
+  }
+
+  public void test_accruedInterest() {
+    final CurrencyScenarioArray accruedInterest = (CurrencyScenarioArray) calculate(true).get(0, 1).getValue();
+
+    assertEquals(accruedInterest.getScenarioCount(), VALUATION_DATES.length);
+    for (int i = 0; i < VALUATION_DATES.length; i++)
+      assertEquals(accruedInterest.get(i).getAmount(), PRICER.accruedInterest(TRADE, provider(i)).getAmount(), 1E-6);
+
+    assertEquals(accruedInterest.get(0).getAmount(), 13215.930732, 1E-2);
+  }
+
+  public void test_cashFlows() {
+    final Results results = calculate(true);
+    final ScenarioArray<?> cashFlows = (ScenarioArray<?>) results.get(0, 2).getValue();
+    final ScenarioArray<?> proceeds = (ScenarioArray<?>) results.get(0, 3).getValue();
+
+    assertEquals(cashFlows.getScenarioCount(), VALUATION_DATES.length);
+    for (int i = 0; i < VALUATION_DATES.length; i++) {
+      assertEquals(cashFlows.get(i), PRICER.cashFlows(TRADE, provider(i), false));
+      assertEquals(proceeds.get(i), PRICER.proceeds(TRADE, provider(i), false));
+    }
+  }
+
+  public void test_missingCleanPrice() {
+    final Results results = calculate(false);
+
+    // Only present value requires the clean price quote.
+    assertTrue(results.get(0, 0).isFailure());
+    assertTrue(results.get(0, 1).isSuccess());
+    assertTrue(results.get(0, 2).isSuccess());
+    assertTrue(results.get(0, 3).isSuccess());
+  }
+
+  /**
+   * @param cleanPrices true to include the clean price quote of the facility
+   * @return results of the trade for each of the columns over the scenarios
+   */
+  private static Results calculate(boolean cleanPrices) {
+    final ImmutableScenarioMarketDataBuilder marketData =
+        ImmutableScenarioMarketData.builder(MarketDataBox.ofScenarioValues(VALUATION_DATES));
+
+    if (cleanPrices)
+      marketData.addBox(QuoteId.of(TRADE.getProduct().getId()), MarketDataBox.ofScenarioValues(CLEAN_PRICES));
+
+    try (CalculationRunner runner = CalculationRunner.ofMultiThreaded()) {
+      return runner.calculateMultiScenario(RULES, ImmutableList.of(TRADE), COLUMNS, marketData.build(),
+          ReferenceData.standard());
+    }
+  }
+
+  private static RatesProvider provider(int scenario) {
+    return ImmutableRatesProvider.builder(VALUATION_DATES[scenario]).build();
+  }
+
+  private static LoanTrade termLoanTrade() {
+    final Repayment REPAYMENT_1 = Repayment.builder()
+        .effectiveDate(LocalDate.of(2017, 3, 31))
+        .amount(CurrencyAmount.of(Currency.USD, 4050000)).build();
+    final Repayment REPAYMENT_2 = Repayment.builder()
+        .effectiveDate(LocalDate.of(2017, 6, 30))
+        .amount(CurrencyAmount.of(Currency.USD, 4558012.17)).build();
+    final Repayment REPAYMENT_3 = Repayment.builder()
+        .effectiveDate(LocalDate.of(2017, 9, 29))
+        .amount(CurrencyAmount.of(Currency.USD, 4558012.17)).build();
+
+    final LoanContract CONTRACT_1 = LoanContract
+        .builder()
+        .id(StandardId.of("contract", "1"))
+        .accrual(
+            FloatingRateAccrual
+                .builder()
+                .startDate(LocalDate.of(2017, 1, 24))
+                .endDate(LocalDate.of(2017, 3, 16))
+                .dayCount(DayCounts.ACT_360)
+                .allInRate(4.50283 / 100)
+                .baseRate(1.2583 / 100)
+                .spread(3.25 / 100)
+                .index(IborIndex.of("USD-LIBOR-3M"))
+                .paymentFrequency(Frequency.P3M)
+                .accrualAmount(
+                    CurrencyAmount.of(Currency.USD,
+                        1598500000))
+                .build())
+        .paymentDate(LocalDate.of(2017, 3, 16)).build();
+    final LoanContract CONTRACT_2 = LoanContract
+        .builder()
+        .id(StandardId.of("contract", "2"))
+        .accrual(
+            FloatingRateAccrual
+                .builder()
+                .startDate(LocalDate.of(2017, 3, 16))
+                .endDate(LocalDate.of(2017, 4, 20))
+                .dayCount(DayCounts.ACT_360)
+                .allInRate(4.38733 / 100.0)
+                .baseRate(1.13733 / 100)
+                .spread(3.25 / 100)
+                .index(IborIndex.of("USD-LIBOR-3M"))
+                .paymentFrequency(Frequency.P3M)
+                .accrualAmount(
+                    CurrencyAmount.of(Currency.USD,
+                        1598500000))
+                .build())
+        .paymentDate(LocalDate.of(2017, 4, 26)).events(REPAYMENT_1)
+        .build();
+    final LoanContract CONTRACT_3 = LoanContract
+        .builder()
+        .id(StandardId.of("contract", "3"))
+        .accrual(
+            FloatingRateAccrual
+                .builder()
+                .startDate(LocalDate.of(2017, 4, 20))
+                .endDate(LocalDate.of(2017, 4, 26))
+                .allInRate(4.38733 / 100.0)
+                .baseRate(1.13733 / 100)
+                .spread(3.25 / 100)
+                .index(IborIndex.of("USD-LIBOR-3M"))
+                .paymentFrequency(Frequency.P3M)
+                .dayCount(DayCounts.ACT_360)
+                .accrualAmount(
+                    CurrencyAmount.of(Currency.USD,
+                        1794450000))
+                .build())
+        .paymentDate(LocalDate.of(2017, 4, 26)).build();
+    final LoanContract CONTRACT_4 = LoanContract
+        .builder()
+        .id(StandardId.of("contract", "4"))
+        .accrual(
+            FloatingRateAccrual
+                .builder()
+                .startDate(LocalDate.of(2017, 4, 26))
+                .endDate(LocalDate.of(2017, 7, 26))
+                .dayCount(DayCounts.ACT_360)
+                .allInRate(4.4165 / 100)
+                .baseRate(1.1665 / 100)
+                .spread(3.25 / 100)
+                .index(IborIndex.of("USD-LIBOR-3M"))
+                .paymentFrequency(Frequency.P3M)
+                .accrualAmount(
+                    CurrencyAmount.of(Currency.USD,
+                        1794450000))
+                .build())
+        .paymentDate(LocalDate.of(2017, 7, 26)).events(REPAYMENT_2)
+        .build();
+    final LoanContract CONTRACT_5 = LoanContract
+        .builder()
+        .id(StandardId.of("contract", "5"))
+        .accrual(
+            FloatingRateAccrual
+                .builder()
+                .startDate(LocalDate.of(2017, 7, 26))
+                .endDate(LocalDate.of(2017, 10, 26))
+                .dayCount(DayCounts.ACT_360)
+                .allInRate(4.56389 / 100)
+                .baseRate(1.31389 / 100)
+                .spread(3.25 / 100)
+                .index(IborIndex.of("USD-LIBOR-3M"))
+                .paymentFrequency(Frequency.P3M)
+                .accrualAmount(
+                    CurrencyAmount.of(Currency.USD,
+                        1789891987.83))
+                .build())
+        .paymentDate(LocalDate.of(2017, 10, 26)).events(REPAYMENT_3)
+        .build();
+
+    final FacilityEvent ADJUSTMENT_1 = CommitmentAdjustment.builder()
+        .effectiveDate(LocalDate.of(2017, 4, 20))
+        .amount(CurrencyAmount.of(Currency.USD, 200000000)).build();
+
+    final Facility LOAN = Facility
+        .builder()
+        .id(StandardId.of("lid", "LOAN1"))
+        .agent(StandardId.of("cpty", "AGENT"))
+        .borrower(StandardId.of("cpty", "BORROWER"))
+        .startDate(LocalDate.of(2017, 1, 24))
+        .maturityDate(LocalDate.of(2022, 8, 14))
+        .contracts(
+            Arrays.asList(CONTRACT_1, CONTRACT_2, CONTRACT_3,
+                CONTRACT_4, CONTRACT_5))
+        .events(ADJUSTMENT_1)
+        .facilityType(Term)
+        .originalCommitmentAmount(
+            CurrencyAmount.of(Currency.USD, 1598500000))
+        .identifiers(
+            Arrays.asList(StandardId.of("LXID", "LX123456"),
+                StandardId.of("CUSIP", "012345678"),
+                StandardId.of("BLOOMBERGID", "BB12345678")))
+        .build();
+
+    final TradeInfo TRADE_INFO = TradeInfo.builder()
+        .tradeDate(LocalDate.of(2017, 3, 21))
+        .settlementDate(LocalDate.of(2017, 4, 10)).build();
+
+    return LoanTrade.builder().product(LOAN)
+        .info(TRADE_INFO).buyer(StandardId.of("cpty", "BUYER"))
+        .seller(StandardId.of("cpty", "SELLER")).amount(3000000)
+        .price(101.125 / 100)
+        .expectedSettlementDate(LocalDate.of(2017, 3, 30))
+        .averageLibor(0.9834 / 100).buySell(BUY)
+        .accrualSettlementType(SettledWithoutAccrued).association(LSTA)
+        .commitmentReductionCreditFlag(true).currency(Currency.USD)
+        .delayedCompensationFlag(true).documentationType(Par)
+        .formOfPurchase(Assignment).paydownOnTradeDate(false).build();
+  }
+}
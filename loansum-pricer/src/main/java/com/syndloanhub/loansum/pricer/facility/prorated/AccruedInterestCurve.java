@@ -0,0 +1,162 @@
+/**
+ * Copyright (c) 2018 SyndLoanHub, LLC and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License from within this distribution and at:
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.syndloanhub.loansum.pricer.facility.prorated;
+
+import static com.syndloanhub.loansum.product.facility.Helper.max;
+import static com.syndloanhub.loansum.product.facility.Helper.min;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+import com.opengamma.strata.basics.currency.Currency;
+import com.opengamma.strata.basics.currency.CurrencyAmount;
+import com.opengamma.strata.basics.date.DayCount;
+import com.opengamma.strata.collect.ArgChecker;
+import com.syndloanhub.loansum.product.facility.prorated.ProratedAccrual;
+import com.syndloanhub.loansum.product.facility.prorated.ProratedLoanContract;
+import com.syndloanhub.loansum.product.facility.prorated.ProratedLoanTrade;
+
+/**
+ * Accrued interest of a prorated loan trade as a function of valuation date, precomputed from the
+ * accrual schedules of its contracts.
+ * <p>
+ * The curve is split into segments at every contract, sub-accrual and settlement boundary. Within a
+ * segment, completed sub-accruals contribute a constant and each running sub-accrual its year fraction
+ * to date, so a lookup is a binary search for the segment plus one day count per running sub-accrual.
+ * Results agree with {@link ProratedLoanTradePricer#accruedInterest(ProratedLoanTrade,
+ * com.opengamma.strata.pricer.rate.RatesProvider)}: interest accrues from settlement date, and a contract
+ * contributes only from its start date up to, excluding, the later of its end and payment dates.
+ */
+public final class AccruedInterestCurve {
+
+  private final Currency currency;
+  private final LocalDate[] segmentStarts;
+  private final double[] constants;
+  private final Term[][] running;
+
+  /**
+   * Accrual of a single sub-accrual from its first accruing date.
+   */
+  private static final class Term {
+    private final LocalDate start;
+    private final LocalDate end;
+    private final DayCount dayCount;
+    private final double factor;
+    private final LocalDate contractStart;
+    private final LocalDate contractEnd;
+
+    private Term(LocalDate start, LocalDate end, DayCount dayCount, double factor, LocalDate contractStart,
+        LocalDate contractEnd) {
+      this.start = start;
+      this.end = end;
+      this.dayCount = dayCount;
+      this.factor = factor;
+      this.contractStart = contractStart;
+      this.contractEnd = contractEnd;
+    }
+
+    private double accrued(LocalDate date) {
+      return dayCount.yearFraction(start, min(date, end)) * factor;
+    }
+  }
+
+  /**
+   * Build the accrued interest curve of a trade.
+   * 
+   * @param trade the trade
+   */
+  public AccruedInterestCurve(ProratedLoanTrade trade) {
+    ArgChecker.notNull(trade, "trade");
+
+    currency = trade.getProduct().getCurrency();
+
+    final List<Term> terms = new ArrayList<Term>();
+    final TreeSet<LocalDate> boundaries = new TreeSet<LocalDate>();
+
+    if (trade.getInfo().getSettlementDate().isPresent()) {
+      final LocalDate settle = trade.getInfo().getSettlementDate().get();
+
+      for (ProratedLoanContract contract : trade.getProduct().getContracts()) {
+        final LocalDate contractStart = contract.getAccrual().getStartDate();
+        final LocalDate contractEnd = max(contract.getAccrual().getEndDate(), contract.getPaymentDate());
+
+        // Contracts ending by settlement accrue nothing, skip without generating their schedules.
+        if (!contractStart.isBefore(contractEnd) || !contract.getAccrual().getEndDate().isAfter(settle))
+          continue;
+
+        for (ProratedAccrual accrual : contract.getAccrualSchedule()) {
+          final LocalDate start = max(settle, accrual.getStartDate());
+
+          if (accrual.getStartDate().isAfter(accrual.getEndDate()) || !start.isBefore(accrual.getEndDate()))
+            continue;
+
+          terms.add(new Term(start, accrual.getEndDate(), accrual.getDayCount(),
+              accrual.getAllInRate() * accrual.getAccrualAmount().getAmount(), contractStart, contractEnd));
+          boundaries.addAll(Arrays.asList(start, accrual.getEndDate(), contractStart, contractEnd));
+        }
+      }
+    }
+
+    segmentStarts = boundaries.toArray(new LocalDate[boundaries.size()]);
+    constants = new double[segmentStarts.length];
+    running = new Term[segmentStarts.length][];
+
+    // Every term changes state only on a boundary, so its state at a segment start holds for the segment.
+    for (int i = 0; i < segmentStarts.length; i++) {
+      final LocalDate date = segmentStarts[i];
+      final List<Term> segmentRunning = new ArrayList<Term>();
+
+      for (Term term : terms) {
+        if (date.isBefore(term.contractStart) || !date.isBefore(term.contractEnd) || date.isBefore(term.start))
+          continue;
+        else if (date.isBefore(term.end))
+          segmentRunning.add(term);
+        else
+          constants[i] += term.accrued(term.end);
+      }
+
+      running[i] = segmentRunning.toArray(new Term[segmentRunning.size()]);
+    }
+  }
+
+  /**
+   * @return the currency of accrued interest
+   */
+  public Currency getCurrency() {
+    return currency;
+  }
+
+  /**
+   * Return accrued interest as of a given date.
+   * 
+   * @param date the valuation date
+   * @return accrued interest as of date
+   */
+  public CurrencyAmount accruedInterest(LocalDate date) {
+    int segment = Arrays.binarySearch(segmentStarts, date);
+
+    if (segment < 0)
+      segment = -segment - 2;
+
+    if (segment < 0)
+      return CurrencyAmount.zero(currency);
+
+    double accruedInterest = constants[segment];
+
+    for (Term term : running[segment])
+      accruedInterest += term.accrued(date);
+
+    return CurrencyAmount.of(currency, accruedInterest);
+  }
+}
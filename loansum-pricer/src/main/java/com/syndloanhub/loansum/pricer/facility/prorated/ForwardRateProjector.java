@@ -0,0 +1,149 @@
+/**
+ * Copyright (c) 2018 SyndLoanHub, LLC and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License from within this distribution and at:
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.syndloanhub.loansum.pricer.facility.prorated;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.opengamma.strata.basics.ReferenceData;
+import com.opengamma.strata.basics.index.IborIndex;
+import com.opengamma.strata.basics.index.IborIndexObservation;
+import com.opengamma.strata.collect.ArgChecker;
+import com.opengamma.strata.collect.tuple.Pair;
+import com.opengamma.strata.pricer.rate.RatesProvider;
+import com.syndloanhub.loansum.product.facility.prorated.ProratedAccrual;
+import com.syndloanhub.loansum.product.facility.prorated.ProratedFloatingRateAccrual;
+import com.syndloanhub.loansum.product.facility.prorated.ProratedLoanContract;
+import com.syndloanhub.loansum.product.facility.prorated.ProratedLoanTrade;
+
+/**
+ * Projects the base rate of future floating rate accruals from the forward curves of a rates provider.
+ * <p>
+ * Forward rates are cached by index and fixing date, so one projector shared across all of the trades
+ * of a valuation asks the provider for each distinct fixing only once, however many contracts reference it.
+ * The fixing is taken from the start of the contract rather than of each sub-accrual, as a contract
+ * resets once. The margin of each accrual, its all-in rate less its base rate, is kept on top of the forward
+ * rate. Contracts on non-IBOR indices, on indices without a forward curve in the provider, which state neither
+ * base rate nor spread so their margin is unknown, or which started on or before the valuation date, and
+ * PIK-only sub-accruals, keep their contractual rate.
+ */
+public final class ForwardRateProjector {
+
+  private final RatesProvider provider;
+  private final ReferenceData refData;
+  private final ConcurrentHashMap<Pair<IborIndex, LocalDate>, Double> forwardRates =
+      new ConcurrentHashMap<Pair<IborIndex, LocalDate>, Double>();
+
+  /**
+   * Create a projector over the given rates provider.
+   * 
+   * @param provider the rates provider, with forward curves for projected indices
+   * @param refData reference data used to derive fixing dates
+   */
+  public ForwardRateProjector(RatesProvider provider, ReferenceData refData) {
+    this.provider = ArgChecker.notNull(provider, "provider");
+    this.refData = ArgChecker.notNull(refData, "refData");
+  }
+
+  /**
+   * @return the rates provider
+   */
+  public RatesProvider getProvider() {
+    return provider;
+  }
+
+  /**
+   * Return the forward rate of an index for a fixing date, from cache if previously requested.
+   * 
+   * @param index the index
+   * @param fixingDate the fixing date
+   * @return forward rate
+   */
+  public double forwardRate(IborIndex index, LocalDate fixingDate) {
+    return forwardRates.computeIfAbsent(Pair.of(index, fixingDate),
+        key -> provider.iborIndexRates(index).rate(IborIndexObservation.of(index, fixingDate, refData)));
+  }
+
+  /**
+   * Resolve in a single pass the forward rates needed by every projectable accrual of a set of trades.
+   * Distinct fixings are gathered first, so each is requested from the provider exactly once.
+   * 
+   * @param trades the trades to be projected
+   */
+  public void prefetch(Collection<ProratedLoanTrade> trades) {
+    Set<Pair<IborIndex, LocalDate>> fixings = new HashSet<Pair<IborIndex, LocalDate>>();
+
+    for (ProratedLoanTrade trade : trades)
+      for (ProratedLoanContract contract : trade.getProduct().getContracts())
+        if (isProjectable(contract))
+          fixings.add(fixing(contract));
+
+    for (Pair<IborIndex, LocalDate> fixing : fixings)
+      forwardRate(fixing.getFirst(), fixing.getSecond());
+  }
+
+  /**
+   * Return the accrual with base rate replaced by the projected forward rate of its contract and all-in
+   * rate by that forward rate plus the accrual margin, or the accrual itself if it is not projectable.
+   * 
+   * @param contract the contract
+   * @param accrual an accrual from the contract accrual schedule
+   * @return projected accrual
+   */
+  public ProratedAccrual project(ProratedLoanContract contract, ProratedAccrual accrual) {
+    if (!isProjectable(contract) || !(accrual instanceof ProratedFloatingRateAccrual) || accrual.getAllInRate() == 0)
+      return accrual;
+
+    ProratedFloatingRateAccrual floating = (ProratedFloatingRateAccrual) accrual;
+    Pair<IborIndex, LocalDate> fixing = fixing(contract);
+    double forward = forwardRate(fixing.getFirst(), fixing.getSecond());
+
+    return floating.toBuilder()
+        .baseRate(forward)
+        .allInRate(forward + floating.getAllInRate() - floating.getBaseRate())
+        .build();
+  }
+
+  /**
+   * A contract is projectable if it accrues on an IBOR index with a forward curve in the provider, states
+   * its base rate or spread, and starts after valuation date.
+   * 
+   * @param contract the contract
+   * @return true if projectable
+   */
+  private boolean isProjectable(ProratedLoanContract contract) {
+    if (!(contract.getAccrual() instanceof ProratedFloatingRateAccrual))
+      return false;
+
+    ProratedFloatingRateAccrual accrual = (ProratedFloatingRateAccrual) contract.getAccrual();
+
+    return accrual.getIndex() instanceof IborIndex &&
+        provider.getIborIndices().contains(accrual.getIndex()) &&
+        (accrual.getBaseRate() != 0 || accrual.getSpread() != 0) &&
+        accrual.getStartDate().isAfter(provider.getValuationDate());
+  }
+
+  /**
+   * Return the index and fixing date of a projectable contract.
+   * 
+   * @param contract the contract
+   * @return index and fixing date
+   */
+  private Pair<IborIndex, LocalDate> fixing(ProratedLoanContract contract) {
+    IborIndex index = (IborIndex) ((ProratedFloatingRateAccrual) contract.getAccrual()).getIndex();
+
+    return Pair.of(index, index.calculateFixingFromEffective(contract.getAccrual().getStartDate(), refData));
+  }
+
+}
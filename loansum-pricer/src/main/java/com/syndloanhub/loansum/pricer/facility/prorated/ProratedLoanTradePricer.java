@@ -31,6 +31,7 @@ import static com.syndloanhub.loansum.product.facility.LoanTradingType.Secondary
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -38,17 +39,25 @@ import java.util.ListIterator;
 import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.opengamma.strata.basics.ReferenceData;
 import com.opengamma.strata.basics.StandardId;
 import com.opengamma.strata.basics.currency.Currency;
 import com.opengamma.strata.basics.currency.CurrencyAmount;
 import com.opengamma.strata.basics.date.DayCounts;
+import com.opengamma.strata.basics.date.HolidayCalendar;
+import com.opengamma.strata.collect.ArgChecker;
+import com.opengamma.strata.collect.array.DoubleArray;
 import com.opengamma.strata.collect.timeseries.LocalDateDoubleTimeSeries;
 import com.opengamma.strata.collect.tuple.Pair;
+import com.opengamma.strata.data.scenario.CurrencyScenarioArray;
+import com.opengamma.strata.data.scenario.ScenarioArray;
 import com.opengamma.strata.market.amount.CashFlow;
 import com.opengamma.strata.market.explain.ExplainMap;
 import com.opengamma.strata.market.explain.ExplainMapBuilder;
@@ -59,8 +68,10 @@ import com.syndloanhub.loansum.product.facility.AnnotatedCashFlow;
 import com.syndloanhub.loansum.product.facility.AnnotatedCashFlows;
 import com.syndloanhub.loansum.product.facility.CashFlowAnnotations;
 import com.syndloanhub.loansum.product.facility.CashFlowType;
+import com.syndloanhub.loansum.product.facility.LoanTradeList;
 import com.syndloanhub.loansum.product.facility.LoanTradingFormOfPurchase;
 import com.syndloanhub.loansum.product.facility.LoanTradingType;
+import com.syndloanhub.loansum.product.facility.SettlementDateSweep;
 import com.syndloanhub.loansum.product.facility.prorated.ProratedAccrual;
 import com.syndloanhub.loansum.product.facility.prorated.ProratedAccruingFee;
 import com.syndloanhub.loansum.product.facility.prorated.ProratedCommitmentAdjustment;
@@ -139,12 +150,110 @@ public class ProratedLoanTradePricer {
   public CurrencyAmount presentValueFromCleanPrice(ProratedLoanTrade trade, RatesProvider provider, double cleanPrice,
       Optional<ExplainMapBuilder> explainBuilder) {
     CurrencyAmount pv = CurrencyAmount.zero(trade.getProduct().getCurrency());
+    final ProratedLoanTrade offsettingTrade = offsettingTrade(trade, provider, cleanPrice);
+    final CurrencyAmount proceedsFromOffsettingTrade =
+        purchasePrice(offsettingTrade, provider, provider.getValuationDate());
+    final CurrencyAmount accruedInterest = accruedInterest(trade, provider);
+
+    pv = proceedsFromOffsettingTrade.plus(accruedInterest);
+
+    return trade.getBuySell().isBuy() ? pv : pv.negated();
+  }
+
+  /**
+   * Return the present value given a clean price, looking up accrued interest from a precomputed curve
+   * rather than walking the accrual schedules of the trade, for repeated valuation across many dates.
+   * 
+   * @param trade the trade
+   * @param provider the rates provider
+   * @param cleanPrice the clean price
+   * @param accruedInterestCurve accrued interest curve of the trade
+   * @return present value in trade currency
+   */
+  public CurrencyAmount presentValueFromCleanPrice(ProratedLoanTrade trade, RatesProvider provider, double cleanPrice,
+      AccruedInterestCurve accruedInterestCurve) {
+    final ProratedLoanTrade offsettingTrade = offsettingTrade(trade, provider, cleanPrice);
+    final CurrencyAmount pv = purchasePrice(offsettingTrade, provider, provider.getValuationDate())
+        .plus(accruedInterestCurve.accruedInterest(provider.getValuationDate()));
+
+    return trade.getBuySell().isBuy() ? pv : pv.negated();
+  }
+
+  /**
+   * Return the present value for each of a grid of clean prices. The offsetting trade, accrued interest and
+   * the price-independent components of the purchase price are calculated once, each price then costs a
+   * single multiply-add.
+   * 
+   * @param trade the trade
+   * @param provider the rates provider
+   * @param cleanPrices grid of clean prices
+   * @return present value for each clean price, in trade currency
+   */
+  public double[] presentValueFromCleanPrice(ProratedLoanTrade trade, RatesProvider provider, double[] cleanPrices) {
+    final ProratedLoanTrade offsettingTrade = offsettingTrade(trade, provider, trade.getPrice());
+    final double[] coefficients = purchasePriceCoefficients(offsettingTrade, provider.getValuationDate());
+    final double accruedInterest = accruedInterest(trade, provider).getAmount();
+    final double sign = trade.getBuySell().isBuy() ? 1 : -1;
+    final double[] pv = new double[cleanPrices.length];
+
+    for (int i = 0; i < cleanPrices.length; i++)
+      pv[i] = sign * (coefficients[0] * cleanPrices[i] + coefficients[1] + accruedInterest);
+
+    return pv;
+  }
+
+  /**
+   * Return the present value for each of a set of scenarios, each with its own rates provider and clean price.
+   * <p>
+   * Present value depends on the rates provider only through its valuation date, so scenarios are grouped by
+   * valuation date and the offsetting trade and purchase price decomposition are calculated once per distinct
+   * date rather than once per scenario. Accrued interest is looked up from the trade's accrued interest curve.
+   * 
+   * @param trade the trade
+   * @param providers rates provider per scenario
+   * @param cleanPrices clean price per scenario
+   * @return present value per scenario, in trade currency
+   */
+  public CurrencyScenarioArray presentValueFromCleanPrice(ProratedLoanTrade trade, List<? extends RatesProvider> providers,
+      DoubleArray cleanPrices) {
+    ArgChecker.isTrue(providers.size() == cleanPrices.size(), "Expected {} clean prices, found {}", providers.size(),
+        cleanPrices.size());
+
+    final double sign = trade.getBuySell().isBuy() ? 1 : -1;
+    final AccruedInterestCurve accruedInterestCurve = new AccruedInterestCurve(trade);
+    final Map<LocalDate, double[]> coefficientsByDate = new HashMap<LocalDate, double[]>();
+    final double[] pv = new double[providers.size()];
+
+    for (int i = 0; i < pv.length; i++) {
+      final RatesProvider provider = providers.get(i);
+      final double[] coefficients = coefficientsByDate.computeIfAbsent(provider.getValuationDate(), date -> {
+        final ProratedLoanTrade offsettingTrade = offsettingTrade(trade, provider, trade.getPrice());
+        final double[] purchasePrice = purchasePriceCoefficients(offsettingTrade, date);
+        return new double[] {purchasePrice[0], purchasePrice[1] + accruedInterestCurve.accruedInterest(date).getAmount()};
+      });
+
+      pv[i] = sign * (coefficients[0] * cleanPrices.get(i) + coefficients[1]);
+    }
+
+    return CurrencyScenarioArray.of(trade.getProduct().getCurrency(), DoubleArray.ofUnsafe(pv));
+  }
+
+  /**
+   * Build the trade which would offset the given trade on valuation date at the given clean price.
+   * 
+   * @param trade the trade
+   * @param provider the rates provider
+   * @param cleanPrice clean price of offsetting trade
+   * @return offsetting trade settling on valuation date
+   */
+  private ProratedLoanTrade offsettingTrade(ProratedLoanTrade trade, RatesProvider provider, double cleanPrice) {
     final TradeInfo info = TradeInfo.builder()
         .settlementDate(provider.getValuationDate())
         .tradeDate(provider.getValuationDate())
         .build();
     final ProratedFacility facility = trade.getProduct();
-    ProratedLoanTrade offsettingTrade = ProratedLoanTrade.builder()
+
+    return ProratedLoanTrade.builder()
         .accrualSettlementType(trade.getAccrualSettlementType())
         .amount(
             facility.getCommitmentAmount(provider.getValuationDate()) * tsget(trade.getPctShare(), provider.getValuationDate()))
@@ -167,13 +276,6 @@ public class ProratedLoanTradePricer {
         .tradeType(LoanTradingType.Secondary)
         .whenIssuedFlag(false)
         .build();
-    final CurrencyAmount proceedsFromOffsettingTrade =
-        purchasePrice(offsettingTrade, provider, provider.getValuationDate());
-    final CurrencyAmount accruedInterest = accruedInterest(trade, provider);
-
-    pv = proceedsFromOffsettingTrade.plus(accruedInterest);
-
-    return trade.getBuySell().isBuy() ? pv : pv.negated();
   }
 
   /**
@@ -197,6 +299,26 @@ public class ProratedLoanTradePricer {
     return accruedInterest;
   }
 
+  /**
+   * Calculates the total accrued interest for each of a set of scenarios.
+   * <p>
+   * Accrued interest depends on the rates provider only through its valuation date, so the trade's accrued
+   * interest curve is built once and looked up for each scenario.
+   * 
+   * @param trade the trade
+   * @param providers rates provider per scenario
+   * @return total accrued interest per scenario
+   */
+  public CurrencyScenarioArray accruedInterest(ProratedLoanTrade trade, List<? extends RatesProvider> providers) {
+    final AccruedInterestCurve accruedInterestCurve = new AccruedInterestCurve(trade);
+    final double[] accruedInterest = new double[providers.size()];
+
+    for (int i = 0; i < accruedInterest.length; i++)
+      accruedInterest[i] = accruedInterestCurve.accruedInterest(providers.get(i).getValuationDate()).getAmount();
+
+    return CurrencyScenarioArray.of(trade.getProduct().getCurrency(), DoubleArray.ofUnsafe(accruedInterest));
+  }
+
   /**
    * Calculate the cost of funded amount of a loan trade.
    * 
@@ -453,8 +575,16 @@ public class ProratedLoanTradePricer {
 
     if (isSettlementDelayed(trade, provider)) {
       ImmutableList<ProratedLoanContract> contracts = trade.getProduct().getContracts();
+      Pair<LocalDate, LocalDate> settlementPeriod =
+          Pair.of(trade.getExpectedSettlementDate(), trade.getInfo().getSettlementDate().get());
 
       for (ProratedLoanContract contract : contracts) {
+        // Sub-accruals lie within their contract, so skip contracts outside the settlement period
+        // without generating their schedules.
+        if (intersection(settlementPeriod,
+            Pair.of(contract.getAccrual().getStartDate(), contract.getAccrual().getEndDate())) == null)
+          continue;
+
         for (ProratedAccrual accrual : contract.getAccrualSchedule()) {
           delayedCompensation =
               delayedCompensation.plus(delayedCompensation(accrual, contract, trade, provider, Optional.empty()));
@@ -532,6 +662,208 @@ public class ProratedLoanTradePricer {
         .minus(economicBenefit(trade, provider, settle, Optional.empty()));
   }
 
+  /**
+   * Calculate the core purchase price of a trade for each of a grid of clean prices.
+   * <p>
+   * The purchase price is linear in price: funded, unfunded, free PIK and funded change amounts
+   * are calculated once and each price is then applied to them.
+   * 
+   * @param trade the trade
+   * @param provider the rates provider
+   * @param settle settlement date
+   * @param prices grid of clean prices
+   * @return purchase price for each clean price, in trade currency
+   */
+  public double[] purchasePrice(ProratedLoanTrade trade, RatesProvider provider, LocalDate settle, double[] prices) {
+    final double[] coefficients = purchasePriceCoefficients(trade, settle);
+    final double[] purchasePrice = new double[prices.length];
+
+    for (int i = 0; i < prices.length; i++)
+      purchasePrice[i] = coefficients[0] * prices[i] + coefficients[1];
+
+    return purchasePrice;
+  }
+
+  /**
+   * Decompose the core purchase price into the price-independent slope and intercept of
+   * cost of funded - benefit of unfunded - economic benefit, where:
+   * <p>
+   * cost of funded = (funded - free PIK) x price<br>
+   * benefit of unfunded = unfunded x (1 - price)<br>
+   * economic benefit = funded change x (1 - price), if funded change is positive
+   * 
+   * @param trade the trade
+   * @param settle settlement date
+   * @return two element array of slope and intercept
+   */
+  private double[] purchasePriceCoefficients(ProratedLoanTrade trade, LocalDate settle) {
+    TradeInfo info = trade.getInfo();
+
+    if (!info.getSettlementDate().isPresent())
+      return new double[] {0, 0};
+
+    final ProratedFacility facility = trade.getProduct();
+    final double funded = facility.getFundedAmount(settle);
+    final double unfunded = facility.getUnfundedAmount(settle);
+    double freePik = 0;
+
+    // "PIKs travel for free"
+    for (ProratedLoanContract contract : facility.getContracts()) {
+      if (contract.getAccrual().getPikSpread() > 0 && !info.getTradeDate().get().isAfter(contract.getAccrual().getEndDate()) &&
+          !settle.isBefore(contract.getAccrual().getEndDate())) {
+        freePik += contract.getAccrual().getDayCount().yearFraction(contract.getAccrual().getStartDate(),
+            contract.getAccrual().getEndDate()) *
+            contract.getAccrual().getPikSpread() * contract.getAccrual().getAccrualAmount().getAmount();
+      }
+    }
+
+    final double fundedAsOfTradeDate = facility.getFundedAmount(info.getTradeDate().get());
+    final double tradeDateRepayments = trade.getOriginalAmount() - trade.getAmount();
+    final double fundedChange = Math.max((fundedAsOfTradeDate - funded) + tradeDateRepayments, 0);
+
+    return new double[] {funded - freePik + unfunded + fundedChange, -unfunded - fundedChange};
+  }
+
+  /**
+   * Evaluate purchase price, delayed compensation and cost of carry as if the trade settled on each business
+   * day between two dates inclusive.
+   * 
+   * @param trade the trade
+   * @param provider the rates provider
+   * @param startDate first candidate settlement date
+   * @param endDate last candidate settlement date
+   * @param calendar business day calendar
+   * @return per-date settlement amounts
+   */
+  public SettlementDateSweep settlementDateSweep(ProratedLoanTrade trade, RatesProvider provider, LocalDate startDate,
+      LocalDate endDate, HolidayCalendar calendar) {
+    List<LocalDate> settlementDates = new ArrayList<LocalDate>();
+
+    for (LocalDate date = calendar.nextOrSame(startDate); !date.isAfter(endDate); date = calendar.next(date))
+      settlementDates.add(date);
+
+    return settlementDateSweep(trade, provider, settlementDates);
+  }
+
+  /**
+   * Evaluate purchase price, delayed compensation and cost of carry as if the trade settled on each of
+   * a set of candidate settlement dates.
+   * <p>
+   * Dates are visited in ascending order so that sub-accruals and commitment periods which end before
+   * the current candidate are accumulated once and carried forward rather than recalculated per date.
+   * The prorated accrual schedule of the trade covers every period from the earlier of its expected and
+   * actual settlement date, so no re-proration is necessary.
+   * 
+   * @param trade the trade
+   * @param provider the rates provider
+   * @param settlementDates candidate settlement dates
+   * @return per-date settlement amounts
+   */
+  public SettlementDateSweep settlementDateSweep(ProratedLoanTrade trade, RatesProvider provider,
+      List<LocalDate> settlementDates) {
+    final List<LocalDate> dates = settlementDates.stream().sorted().distinct().collect(Collectors.toList());
+    final LocalDate expectedSettlementDate = trade.getExpectedSettlementDate();
+    final boolean delayable = trade.getTradeType() == Secondary && trade.isDelayedCompensationFlag();
+    final double[] purchasePrice = new double[dates.size()];
+    final double[] delayedCompensation = new double[dates.size()];
+    final double[] costOfCarry = new double[dates.size()];
+    final Map<LocalDate, Double> purchasePriceCache = new HashMap<LocalDate, Double>();
+
+    // Cash sub-accruals which may intersect a delayed settlement period, ordered by end date.
+    final List<ProratedAccrual> accruals = trade.getProduct().getContracts()
+        .stream()
+        .filter(contract -> contract.getAccrual().getEndDate().isAfter(expectedSettlementDate))
+        .flatMap(contract -> contract.getAccrualSchedule().stream())
+        .filter(accrual -> accrual.getEndDate().isAfter(expectedSettlementDate) && accrual.getAllInRate() != 0)
+        .sorted(Comparator.comparing(ProratedAccrual::getEndDate))
+        .collect(Collectors.toList());
+    int nextAccrual = 0;
+    double accruedToDate = 0;
+
+    // Commitment change dates following expected settlement date.
+    final List<LocalDate> commitmentDates = trade.getProduct().getCommitment().dates()
+        .filter(date -> !date.isBefore(expectedSettlementDate))
+        .collect(Collectors.toList());
+    int nextCommitmentDate = 0;
+    LocalDate carryStartDate = expectedSettlementDate;
+    double carriedToDate = 0;
+
+    final double expectedPurchasePrice = purchasePrice(trade, expectedSettlementDate, purchasePriceCache);
+
+    for (int i = 0; i < dates.size(); i++) {
+      final LocalDate settle = dates.get(i);
+
+      purchasePrice[i] = purchasePrice(trade, settle, purchasePriceCache);
+
+      if (!delayable || !settle.isAfter(expectedSettlementDate))
+        continue;
+
+      // Delayed compensation: close out sub-accruals ending on or before settlement, then add the
+      // partial contribution of those still open.
+      for (; nextAccrual < accruals.size() && !accruals.get(nextAccrual).getEndDate().isAfter(settle); nextAccrual++) {
+        ProratedAccrual accrual = accruals.get(nextAccrual);
+        accruedToDate += accrual.getDayCount().yearFraction(max(accrual.getStartDate(), expectedSettlementDate),
+            accrual.getEndDate()) * accrual.getAllInRate() * accrual.getAccrualAmount().getAmount();
+      }
+
+      double accrued = accruedToDate;
+
+      for (int j = nextAccrual; j < accruals.size(); j++) {
+        ProratedAccrual accrual = accruals.get(j);
+        LocalDate accrualStartDate = max(accrual.getStartDate(), expectedSettlementDate);
+
+        if (accrualStartDate.isBefore(settle))
+          accrued += accrual.getDayCount().yearFraction(accrualStartDate, settle) * accrual.getAllInRate() *
+              accrual.getAccrualAmount().getAmount();
+      }
+
+      delayedCompensation[i] = accrued;
+
+      // Cost of carry: flat on expected settlement price unless the price moved more than 25%, in which
+      // case carry accrues on the purchase price in effect over each commitment period.
+      final double averageLibor = trade.getAverageLibor();
+      final double pctChange = Math.abs(expectedPurchasePrice - purchasePrice[i]) / Math.abs(expectedPurchasePrice);
+
+      if (pctChange <= 0.25)
+        costOfCarry[i] = expectedPurchasePrice * averageLibor * DayCounts.ACT_360.yearFraction(expectedSettlementDate, settle);
+      else {
+        for (; nextCommitmentDate < commitmentDates.size() && commitmentDates.get(nextCommitmentDate).isBefore(settle);
+            nextCommitmentDate++) {
+          LocalDate carryEndDate = commitmentDates.get(nextCommitmentDate);
+          carriedToDate += purchasePrice(trade, carryStartDate, purchasePriceCache) * averageLibor *
+              DayCounts.ACT_360.yearFraction(carryStartDate, carryEndDate);
+          carryStartDate = carryEndDate;
+        }
+
+        costOfCarry[i] = carriedToDate + purchasePrice(trade, carryStartDate, purchasePriceCache) * averageLibor *
+            DayCounts.ACT_360.yearFraction(carryStartDate, settle);
+      }
+    }
+
+    return SettlementDateSweep.builder()
+        .currency(trade.getProduct().getCurrency())
+        .settlementDates(dates)
+        .purchasePrice(DoubleArray.ofUnsafe(purchasePrice))
+        .delayedCompensation(DoubleArray.ofUnsafe(delayedCompensation))
+        .costOfCarry(DoubleArray.ofUnsafe(costOfCarry))
+        .build();
+  }
+
+  /**
+   * Return the core purchase price of a trade settling on a given date, memoized by date.
+   * 
+   * @param trade the trade
+   * @param settle settlement date
+   * @param cache purchase price by settlement date
+   * @return purchase price in trade currency
+   */
+  private double purchasePrice(ProratedLoanTrade trade, LocalDate settle, Map<LocalDate, Double> cache) {
+    return cache.computeIfAbsent(settle, date -> {
+      double[] coefficients = purchasePriceCoefficients(trade, date);
+      return coefficients[0] * trade.getPrice() + coefficients[1];
+    });
+  }
+
   /**
    * Determine if two cash flows are mergeable. Criteria are:
    * - cash flow types match (e.g. both interest payments)
@@ -675,11 +1007,100 @@ public class ProratedLoanTradePricer {
    * @return
    */
   public AnnotatedCashFlows cashFlows(ProratedLoanTradeList trades, RatesProvider provider, boolean explain) {
+    return cashFlows(trades, provider, Optional.empty(), explain);
+  }
+
+  /**
+   * Generate cash flows from a given collection of trades, projecting future floating rates from the
+   * forward curves of the projector's rates provider. Forward rates for all trades are resolved in a
+   * single batch before cash flows are generated.
+   * 
+   * @param trades the trades
+   * @param projector forward rate projector
+   * @param explain true to include explains
+   * @return merged cash flows
+   */
+  public AnnotatedCashFlows cashFlows(ProratedLoanTradeList trades, ForwardRateProjector projector, boolean explain) {
+    projector.prefetch(trades.getTrades());
+
+    return cashFlows(trades, projector.getProvider(), Optional.of(projector), explain);
+  }
+
+  /**
+   * Generate merged cash flows from a stream of trades, such as one read from a trade blotter. Each trade is
+   * priced and merged as it is consumed, so memory is bounded by the merged cash flows rather than by the
+   * number of trades. The result is that of the same trades as a list.
+   * 
+   * @param trades the trades, consumed in encounter order
+   * @param provider the rates provider
+   * @param explain true to include explains
+   * @return merged cash flows
+   */
+  public AnnotatedCashFlows cashFlows(Stream<ProratedLoanTrade> trades, RatesProvider provider, boolean explain) {
+    Map<LocalDate, List<AnnotatedCashFlow>> merged = new HashMap<LocalDate, List<AnnotatedCashFlow>>();
+
+    trades.sequential().forEachOrdered(trade -> merge(cashFlows(trade, provider, Optional.empty(), ImmutableMap.of(),
+        explain), merged));
+
+    return merged(merged);
+  }
+
+  /**
+   * Generate merged cash flows from a given collection of trades paid strictly after a given date.
+   * Applied to net positions as of that date, see {@link LoanTradeList#netPositions(LocalDate)}, the result
+   * reconciles to that of the underlying trades.
+   *
+   * @param trades the trades
+   * @param provider the rates provider
+   * @param date cash flows paid on or before this date are excluded
+   * @param explain true to include explains
+   * @return merged cash flows paid after date
+   */
+  public AnnotatedCashFlows cashFlowsAfter(ProratedLoanTradeList trades, RatesProvider provider, LocalDate date,
+      boolean explain) {
+    return AnnotatedCashFlows.builder().cashFlows(cashFlows(trades, provider, explain).getCashFlows()
+        .stream()
+        .filter(cashFlow -> cashFlow.getCashFlow().getPaymentDate().isAfter(date))
+        .collect(Collectors.toList()))
+        .build();
+  }
+
+  /**
+   * Generate cash flows from a given collection of trades, with optional forward rate projection.
+   * 
+   * @param trades the trades
+   * @param provider the rates provider
+   * @param projector optional forward rate projector
+   * @param explain true to include explains
+   * @return merged cash flows
+   */
+  private AnnotatedCashFlows cashFlows(ProratedLoanTradeList trades, RatesProvider provider,
+      Optional<ForwardRateProjector> projector, boolean explain) {
+    return merge(trades.getTrades().stream()
+        .map(trade -> cashFlows(trade, provider, projector, ImmutableMap.of(), explain))
+        .collect(Collectors.toList()));
+  }
+
+  /**
+   * Merge the cash flows of a collection of trades, netting flows of the same type, date and source.
+   * 
+   * @param tradeCashFlows cash flows of each trade
+   * @return merged cash flows
+   */
+  public AnnotatedCashFlows merge(List<AnnotatedCashFlows> tradeCashFlows) {
     Map<LocalDate, List<AnnotatedCashFlow>> merged = new HashMap<LocalDate, List<AnnotatedCashFlow>>();
 
-    for (ProratedLoanTrade trade : trades.getTrades())
-      merge(cashFlows(trade, provider, explain), merged);
+    for (AnnotatedCashFlows cashFlows : tradeCashFlows)
+      merge(cashFlows, merged);
+
+    return merged(merged);
+  }
 
+  /**
+   * @param merged merged cash flows by payment date
+   * @return merged cash flows
+   */
+  private static AnnotatedCashFlows merged(Map<LocalDate, List<AnnotatedCashFlow>> merged) {
     ImmutableList.Builder<AnnotatedCashFlow> builder = ImmutableList.builder();
 
     merged.forEach((k, v) -> {
@@ -700,13 +1121,77 @@ public class ProratedLoanTradePricer {
    * @return
    */
   public AnnotatedCashFlows proceeds(ProratedLoanTrade trade, RatesProvider provider, boolean explain) {
-    return AnnotatedCashFlows.builder().cashFlows(cashFlows(trade, provider, explain).getCashFlows()
+    return proceeds(trade, cashFlows(trade, provider, explain));
+  }
+
+  /**
+   * Calculate the set of cash flows exchanged on settlement date for each of a set of scenarios.
+   * 
+   * @param trade the trade
+   * @param providers rates provider per scenario
+   * @param explain true to include explains
+   * @return proceeds per scenario
+   */
+  public ScenarioArray<AnnotatedCashFlows> proceeds(ProratedLoanTrade trade, List<? extends RatesProvider> providers,
+      boolean explain) {
+    final ScenarioArray<AnnotatedCashFlows> cashFlows = cashFlows(trade, providers, explain);
+
+    return ScenarioArray.of(cashFlows.getScenarioCount(), i -> proceeds(trade, cashFlows.get(i)));
+  }
+
+  /**
+   * Select the cash flows paid on settlement date.
+   * 
+   * @param trade the trade
+   * @param cashFlows all trade cash flows
+   * @return settlement date cash flows
+   */
+  private AnnotatedCashFlows proceeds(ProratedLoanTrade trade, AnnotatedCashFlows cashFlows) {
+    return AnnotatedCashFlows.builder().cashFlows(cashFlows.getCashFlows()
         .stream()
         .filter(cashFlow -> cashFlow.getCashFlow().getPaymentDate().isEqual(trade.getInfo().getSettlementDate().get()))
         .collect(Collectors.toList()))
         .build();
   }
 
+  /**
+   * Calculates the past and future cash flows of a loan for each of a set of scenarios.
+   * <p>
+   * Cash flows depend on the rates provider only through its valuation date, so scenarios sharing a
+   * valuation date share a single result.
+   * 
+   * @param trade the trade
+   * @param providers rates provider per scenario
+   * @param explain true to include explains
+   * @return cash flows per scenario
+   */
+  public ScenarioArray<AnnotatedCashFlows> cashFlows(ProratedLoanTrade trade, List<? extends RatesProvider> providers,
+      boolean explain) {
+    final Map<LocalDate, AnnotatedCashFlows> cashFlowsByDate = new HashMap<LocalDate, AnnotatedCashFlows>();
+
+    return ScenarioArray.of(providers.size(), i -> cashFlowsByDate.computeIfAbsent(providers.get(i).getValuationDate(),
+        date -> cashFlows(trade, providers.get(i), explain)));
+  }
+
+  /**
+   * Calculates the past and future cash flows of a loan for each of a set of scenarios, projecting the
+   * interest of future floating rate contracts from the forward curves of each scenario's rates provider.
+   * <p>
+   * Projected cash flows depend on the curves of a provider and not only its valuation date, so every
+   * scenario is calculated with its own projector.
+   * 
+   * @param trade the trade
+   * @param providers rates provider per scenario
+   * @param refData reference data used to derive fixing dates
+   * @param explain true to include explains
+   * @return cash flows per scenario
+   */
+  public ScenarioArray<AnnotatedCashFlows> cashFlows(ProratedLoanTrade trade, List<? extends RatesProvider> providers,
+      ReferenceData refData, boolean explain) {
+    return ScenarioArray.of(providers.size(),
+        i -> cashFlows(trade, new ForwardRateProjector(providers.get(i), refData), explain));
+  }
+
   /**
    * Calculates the past and future cash flows of a loan.
    * <p>
@@ -718,12 +1203,86 @@ public class ProratedLoanTradePricer {
    * @return the cash flows
    */
   public AnnotatedCashFlows cashFlows(ProratedLoanTrade trade, RatesProvider provider, boolean explain) {
+    return cashFlows(trade, provider, Optional.empty(), ImmutableMap.of(), explain);
+  }
+
+  /**
+   * Recalculate the cash flows of a loan after its facility has changed, reusing the contract cash flows
+   * of a previous calculation for contracts which were carried over unchanged into the new proration,
+   * see {@code LoanTrade.prorate(ProratedLoanTrade, FacilityDelta)}. Fee, event and settlement cash flows,
+   * which depend on facility-wide amounts, are always recalculated.
+   * <p>
+   * The previous cash flows must have been calculated from the previous trade with the same valuation
+   * date and explain flag.
+   * 
+   * @param trade the re-prorated trade
+   * @param provider the rates provider
+   * @param previousTrade the trade prior to re-proration
+   * @param previousCashFlows cash flows of the trade prior to re-proration
+   * @param explain true to include explains
+   * @return the cash flows
+   */
+  public AnnotatedCashFlows cashFlows(ProratedLoanTrade trade, RatesProvider provider, ProratedLoanTrade previousTrade,
+      AnnotatedCashFlows previousCashFlows, boolean explain) {
+    final Map<StandardId, List<AnnotatedCashFlow>> reused = new HashMap<StandardId, List<AnnotatedCashFlow>>();
+
+    if (trade.getInfo().equals(previousTrade.getInfo()) && trade.getBuySell() == previousTrade.getBuySell() &&
+        trade.getBuyer().equals(previousTrade.getBuyer()) && trade.getSeller().equals(previousTrade.getSeller()) &&
+        trade.getFormOfPurchase() == previousTrade.getFormOfPurchase()) {
+      final Map<StandardId, ProratedLoanContract> previousContracts = previousTrade.getProduct().getContracts()
+          .stream()
+          .collect(Collectors.toMap(ProratedLoanContract::getId, contract -> contract));
+
+      // Prorated contracts carried over by re-proration are the same instances.
+      for (ProratedLoanContract contract : trade.getProduct().getContracts())
+        if (previousContracts.get(contract.getId()) == contract)
+          reused.put(contract.getId(), new ArrayList<AnnotatedCashFlow>());
+
+      for (AnnotatedCashFlow cashFlow : previousCashFlows.getCashFlows()) {
+        List<AnnotatedCashFlow> contractCashFlows = reused.get(cashFlow.getAnnotation().getSource());
+
+        if (contractCashFlows != null)
+          contractCashFlows.add(cashFlow);
+      }
+    }
+
+    return cashFlows(trade, provider, Optional.empty(), reused, explain);
+  }
+
+  /**
+   * Calculates the past and future cash flows of a loan, projecting the interest of future floating rate
+   * contracts from the forward curves of the projector's rates provider.
+   * 
+   * @param trade the trade
+   * @param projector forward rate projector
+   * @param explain true to include explains
+   * @return the cash flows
+   */
+  public AnnotatedCashFlows cashFlows(ProratedLoanTrade trade, ForwardRateProjector projector, boolean explain) {
+    return cashFlows(trade, projector.getProvider(), Optional.of(projector), ImmutableMap.of(), explain);
+  }
+
+  /**
+   * Calculates the past and future cash flows of a loan with optional forward rate projection.
+   * 
+   * @param trade the trade
+   * @param provider the rates provider
+   * @param projector optional forward rate projector
+   * @param reused previously calculated cash flows by contract id
+   * @param explain true to include explains
+   * @return the cash flows
+   */
+  private AnnotatedCashFlows cashFlows(ProratedLoanTrade trade, RatesProvider provider,
+      Optional<ForwardRateProjector> projector, Map<StandardId, List<AnnotatedCashFlow>> reused, boolean explain) {
     ImmutableList.Builder<AnnotatedCashFlow> builder = ImmutableList.builder();
     TradeInfo info = trade.getInfo();
 
     if (info.getSettlementDate().isPresent()) {
       for (ProratedLoanContract contract : trade.getProduct().getContracts())
-        builder.addAll(cashFlows(contract, trade, provider, explain));
+        if (reused.containsKey(contract.getId()))
+          builder.addAll(reused.get(contract.getId()));
+        else
+          builder.addAll(cashFlows(contract, trade, provider, projector, explain));
 
       for (ProratedAccruingFee fee : trade.getProduct().getFees())
         builder.addAll(cashFlows(fee, trade, provider, explain));
@@ -848,11 +1407,12 @@ public class ProratedLoanTradePricer {
    * @param contract
    * @param trade
    * @param provider
+   * @param projector
    * @param explain
    * @return
    */
   private ImmutableList<AnnotatedCashFlow> cashFlows(ProratedLoanContract contract, ProratedLoanTrade trade,
-      RatesProvider provider, boolean explain) {
+      RatesProvider provider, Optional<ForwardRateProjector> projector, boolean explain) {
     ImmutableList.Builder<AnnotatedCashFlow> builder = ImmutableList.builder();
     TradeInfo info = trade.getInfo();
     StandardId payingCounterparty = trade.getProduct().getAgent();
@@ -879,7 +1439,8 @@ public class ProratedLoanTradePricer {
     CurrencyAmount pik = CurrencyAmount.zero(currency);
     Optional<ExplainMapBuilder> pikExplainBuilder = explain ? Optional.of(ExplainMap.builder()) : Optional.empty();
 
-    for (ProratedAccrual accrual : contract.getAccrualSchedule()) {
+    for (ProratedAccrual scheduled : contract.getAccrualSchedule()) {
+      ProratedAccrual accrual = projector.isPresent() ? projector.get().project(contract, scheduled) : scheduled;
       CurrencyAmount cashProjection = accrual.getPaymentProjection();
 
       // Repayment with interest-on-paydown
@@ -11,6 +11,7 @@
 package com.syndloanhub.loansum.pricer.facility.prorated;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
 import static com.opengamma.strata.product.common.BuySell.BUY;
 import static com.opengamma.strata.product.common.BuySell.SELL;
 import static com.syndloanhub.loansum.product.facility.FacilityType.Revolving;
@@ -34,41 +35,67 @@ import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import org.joda.beans.Bean;
+import org.joda.beans.BeanBuilder;
+import org.joda.beans.MetaBean;
+import org.joda.beans.MetaProperty;
 import org.joda.beans.ser.JodaBeanSer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.testng.annotations.Test;
 import org.testng.annotations.AfterSuite;
 
+import com.opengamma.strata.basics.ReferenceData;
 import com.opengamma.strata.basics.StandardId;
 import com.opengamma.strata.basics.currency.Currency;
 import com.opengamma.strata.basics.currency.CurrencyAmount;
 import com.opengamma.strata.basics.date.DayCounts;
 import com.opengamma.strata.basics.index.IborIndex;
+import com.opengamma.strata.basics.index.IborIndices;
 import com.opengamma.strata.basics.schedule.Frequency;
+import com.opengamma.strata.collect.array.DoubleArray;
 import com.opengamma.strata.collect.timeseries.LocalDateDoubleTimeSeries;
+import com.opengamma.strata.data.scenario.CurrencyScenarioArray;
+import com.opengamma.strata.data.scenario.ScenarioArray;
+import com.opengamma.strata.market.curve.ConstantCurve;
+import com.opengamma.strata.market.curve.Curves;
 import com.opengamma.strata.pricer.rate.ImmutableRatesProvider;
 import com.opengamma.strata.pricer.rate.RatesProvider;
 import com.opengamma.strata.product.TradeInfo;
+import com.syndloanhub.loansum.pricer.facility.prorated.ForwardRateProjector;
 import com.syndloanhub.loansum.pricer.facility.prorated.ProratedLoanTradePricer;
 import com.syndloanhub.loansum.product.facility.AccruingFee;
+import com.syndloanhub.loansum.product.facility.Accrual;
 import com.syndloanhub.loansum.product.facility.AnnotatedCashFlows;
 import com.syndloanhub.loansum.product.facility.Borrowing;
+import com.syndloanhub.loansum.product.facility.CashFlowType;
 import com.syndloanhub.loansum.product.facility.CommitmentAdjustment;
 import com.syndloanhub.loansum.product.facility.Facility;
 import com.syndloanhub.loansum.product.facility.FixedRateAccrual;
 import com.syndloanhub.loansum.product.facility.FloatingRateAccrual;
+import com.syndloanhub.loansum.product.facility.Helper;
 import com.syndloanhub.loansum.product.facility.LoanContract;
+import com.syndloanhub.loansum.product.facility.LoanContractEvent;
+import com.syndloanhub.loansum.product.facility.FacilityDelta;
 import com.syndloanhub.loansum.product.facility.FacilityEvent;
 import com.syndloanhub.loansum.product.facility.LoanTrade;
+import com.syndloanhub.loansum.product.facility.LoanTradeBlotter;
 import com.syndloanhub.loansum.product.facility.LoanTradeList;
 import com.syndloanhub.loansum.product.facility.Repayment;
+import com.syndloanhub.loansum.product.facility.SettlementDateSweep;
+import com.syndloanhub.loansum.product.facility.prorated.ProratedAccrual;
+import com.syndloanhub.loansum.product.facility.prorated.ProratedFacility;
+import com.syndloanhub.loansum.product.facility.prorated.ProratedFloatingRateAccrual;
+import com.syndloanhub.loansum.product.facility.prorated.ProratedLoanContract;
+import com.syndloanhub.loansum.product.facility.prorated.ProratedLoanContractEvent;
 import com.syndloanhub.loansum.product.facility.prorated.ProratedLoanTrade;
 import com.syndloanhub.loansum.product.facility.prorated.ProratedLoanTradeList;
+import com.syndloanhub.loansum.product.facility.prorated.ProratedRepayment;
 
 /**
  * Tests {@link ProratedLoanTradePricer}.
@@ -1562,6 +1589,99 @@ public class ProratedLoanTradePricerTest {
     assertEquals(cashFlows, expected);
   }
 
+  public void test_revolvingLoan_commitmentFeeSchedule() {
+    // Draws on 8/4 and 10/3 and a repayment on 9/1, all within one quarterly commitment fee period.
+    final List<LoanContract> contracts = Arrays.asList(
+        fixedRateContract("1", LocalDate.of(2016, 8, 1), LocalDate.of(2016, 8, 17), 225000000,
+            Borrowing.builder().effectiveDate(LocalDate.of(2016, 8, 1))
+                .amount(CurrencyAmount.of(Currency.USD, 225000000)).build()),
+        fixedRateContract("2", LocalDate.of(2016, 8, 4), LocalDate.of(2016, 8, 17), 75000000,
+            Borrowing.builder().effectiveDate(LocalDate.of(2016, 8, 4))
+                .amount(CurrencyAmount.of(Currency.USD, 75000000)).build()),
+        fixedRateContract("3", LocalDate.of(2016, 8, 17), LocalDate.of(2016, 9, 19), 300000000,
+            Repayment.builder().effectiveDate(LocalDate.of(2016, 9, 1))
+                .amount(CurrencyAmount.of(Currency.USD, 50000000)).build()),
+        fixedRateContract("4", LocalDate.of(2016, 9, 19), LocalDate.of(2016, 11, 1), 250000000),
+        fixedRateContract("5", LocalDate.of(2016, 10, 3), LocalDate.of(2016, 11, 1), 100000000,
+            Borrowing.builder().effectiveDate(LocalDate.of(2016, 10, 3))
+                .amount(CurrencyAmount.of(Currency.USD, 100000000)).build()));
+    final AccruingFee FEE = AccruingFee.builder()
+        .accrual(FixedRateAccrual.builder()
+            .allInRate(.5 / 100)
+            .dayCount(DayCounts.ACT_360)
+            .startDate(LocalDate.of(2016, 8, 1))
+            .endDate(LocalDate.of(2016, 11, 1))
+            .accrualAmount(CurrencyAmount.of(Currency.USD, 275000000))
+            .build())
+        .id(StandardId.of("fee", "1")).type("commitment fee")
+        .paymentDate(LocalDate.of(2016, 11, 1)).build();
+    final Facility LOAN = Facility.builder()
+        .id(StandardId.of("lid", "LOAN10"))
+        .agent(StandardId.of("cpty", "AGENT"))
+        .borrower(StandardId.of("cpty", "BORROWER"))
+        .startDate(LocalDate.of(2016, 7, 28))
+        .maturityDate(LocalDate.of(2017, 3, 24))
+        .contracts(contracts)
+        .fees(FEE)
+        .originalCommitmentAmount(CurrencyAmount.of(Currency.USD, 500000000))
+        .facilityType(Revolving).build();
+
+    final List<Accrual> schedule = Helper.generateCommitmentFeeAccrualSchedule(LOAN, FEE);
+
+    // One sub-accrual per unfunded change, ordered and contiguous over the fee period.
+    assertEquals(schedule.stream().map(Accrual::getStartDate).collect(Collectors.toList()), Arrays.asList(
+        LocalDate.of(2016, 8, 1), LocalDate.of(2016, 8, 4), LocalDate.of(2016, 9, 1), LocalDate.of(2016, 10, 3)));
+    assertEquals(schedule.get(schedule.size() - 1).getEndDate(), FEE.getAccrual().getEndDate());
+
+    for (int i = 0; i < schedule.size(); i++) {
+      final Accrual accrual = schedule.get(i);
+
+      if (i > 0)
+        assertEquals(accrual.getStartDate(), schedule.get(i - 1).getEndDate());
+
+      assertEquals(accrual.getAccrualAmount().getAmount(), unprofiledUnfundedAmount(LOAN, accrual.getStartDate()),
+          1E-6);
+    }
+
+    // The profiled unfunded amount matches the calculation from contracts on every day around the period.
+    for (LocalDate date = LOAN.getStartDate(); date.isBefore(LocalDate.of(2016, 11, 15)); date = date.plusDays(1))
+      assertEquals(LOAN.getUnfundedAmount(date).getAmount(), unprofiledUnfundedAmount(LOAN, date), 1E-6);
+  }
+
+  /**
+   * @param loan the facility
+   * @param date the date
+   * @return unfunded amount calculated from commitment and contracts, without the unfunded profile
+   */
+  private static double unprofiledUnfundedAmount(Facility loan, LocalDate date) {
+    return loan.getCommitmentAmount(date).minus(loan.getFundedAmount(date)).minus(loan.getUndrawnLCAmount(date))
+        .getAmount();
+  }
+
+  /**
+   * @param id contract identifier
+   * @param startDate accrual start date
+   * @param endDate accrual end and payment date
+   * @param amount accrual amount
+   * @param events contract events
+   * @return fixed rate contract
+   */
+  private static LoanContract fixedRateContract(String id, LocalDate startDate, LocalDate endDate, double amount,
+      LoanContractEvent... events) {
+    return LoanContract.builder()
+        .id(StandardId.of("contract", id))
+        .accrual(FixedRateAccrual.builder()
+            .startDate(startDate)
+            .endDate(endDate)
+            .dayCount(DayCounts.ACT_360)
+            .allInRate(3.5 / 100)
+            .accrualAmount(CurrencyAmount.of(Currency.USD, amount))
+            .build())
+        .paymentDate(endDate)
+        .events(events)
+        .build();
+  }
+
   /**
    * Purchase price change of > 25% during settlement period.
    * 
@@ -2790,154 +2910,24 @@ public class ProratedLoanTradePricerTest {
     assertEquals(cashFlows, expected);
   }
 
-  public void test_termLoanPV_1() throws IOException {
-    final Repayment REPAYMENT_1 = Repayment.builder()
-        .effectiveDate(LocalDate.of(2017, 3, 31))
-        .amount(CurrencyAmount.of(Currency.USD, 4050000)).build();
-    final Repayment REPAYMENT_2 = Repayment.builder()
-        .effectiveDate(LocalDate.of(2017, 6, 30))
-        .amount(CurrencyAmount.of(Currency.USD, 4558012.17)).build();
-    final Repayment REPAYMENT_3 = Repayment.builder()
-        .effectiveDate(LocalDate.of(2017, 9, 29))
-        .amount(CurrencyAmount.of(Currency.USD, 4558012.17)).build();
-
-    final LoanContract CONTRACT_1 = LoanContract
-        .builder()
-        .id(StandardId.of("contract", "1"))
-        .accrual(
-            FloatingRateAccrual
-                .builder()
-                .startDate(LocalDate.of(2017, 1, 24))
-                .endDate(LocalDate.of(2017, 3, 16))
-                .dayCount(DayCounts.ACT_360)
-                .allInRate(4.50283 / 100)
-                .baseRate(1.2583 / 100)
-                .spread(3.25 / 100)
-                .index(IborIndex.of("USD-LIBOR-3M"))
-                .paymentFrequency(Frequency.P3M)
-                .accrualAmount(
-                    CurrencyAmount.of(Currency.USD,
-                        1598500000))
-                .build())
-        .paymentDate(LocalDate.of(2017, 3, 16)).build();
-    final LoanContract CONTRACT_2 = LoanContract
-        .builder()
-        .id(StandardId.of("contract", "2"))
-        .accrual(
-            FloatingRateAccrual
-                .builder()
-                .startDate(LocalDate.of(2017, 3, 16))
-                .endDate(LocalDate.of(2017, 4, 20))
-                .dayCount(DayCounts.ACT_360)
-                .allInRate(4.38733 / 100.0)
-                .baseRate(1.13733 / 100)
-                .spread(3.25 / 100)
-                .index(IborIndex.of("USD-LIBOR-3M"))
-                .paymentFrequency(Frequency.P3M)
-                .accrualAmount(
-                    CurrencyAmount.of(Currency.USD,
-                        1598500000))
-                .build())
-        .paymentDate(LocalDate.of(2017, 4, 26)).events(REPAYMENT_1)
-        .build();
-    final LoanContract CONTRACT_3 = LoanContract
-        .builder()
-        .id(StandardId.of("contract", "3"))
-        .accrual(
-            FloatingRateAccrual
-                .builder()
-                .startDate(LocalDate.of(2017, 4, 20))
-                .endDate(LocalDate.of(2017, 4, 26))
-                .allInRate(4.38733 / 100.0)
-                .baseRate(1.13733 / 100)
-                .spread(3.25 / 100)
-                .index(IborIndex.of("USD-LIBOR-3M"))
-                .paymentFrequency(Frequency.P3M)
-                .dayCount(DayCounts.ACT_360)
-                .accrualAmount(
-                    CurrencyAmount.of(Currency.USD,
-                        1794450000))
-                .build())
-        .paymentDate(LocalDate.of(2017, 4, 26)).build();
-    final LoanContract CONTRACT_4 = LoanContract
-        .builder()
-        .id(StandardId.of("contract", "4"))
-        .accrual(
-            FloatingRateAccrual
-                .builder()
-                .startDate(LocalDate.of(2017, 4, 26))
-                .endDate(LocalDate.of(2017, 7, 26))
-                .dayCount(DayCounts.ACT_360)
-                .allInRate(4.4165 / 100)
-                .baseRate(1.1665 / 100)
-                .spread(3.25 / 100)
-                .index(IborIndex.of("USD-LIBOR-3M"))
-                .paymentFrequency(Frequency.P3M)
-                .accrualAmount(
-                    CurrencyAmount.of(Currency.USD,
-                        1794450000))
-                .build())
-        .paymentDate(LocalDate.of(2017, 7, 26)).events(REPAYMENT_2)
-        .build();
-    final LoanContract CONTRACT_5 = LoanContract
-        .builder()
-        .id(StandardId.of("contract", "5"))
-        .accrual(
-            FloatingRateAccrual
-                .builder()
-                .startDate(LocalDate.of(2017, 7, 26))
-                .endDate(LocalDate.of(2017, 10, 26))
-                .dayCount(DayCounts.ACT_360)
-                .allInRate(4.56389 / 100)
-                .baseRate(1.31389 / 100)
-                .spread(3.25 / 100)
-                .index(IborIndex.of("USD-LIBOR-3M"))
-                .paymentFrequency(Frequency.P3M)
-                .accrualAmount(
-                    CurrencyAmount.of(Currency.USD,
-                        1789891987.83))
-                .build())
-        .paymentDate(LocalDate.of(2017, 10, 26)).events(REPAYMENT_3)
-        .build();
-
-    final FacilityEvent ADJUSTMENT_1 = CommitmentAdjustment.builder()
-        .effectiveDate(LocalDate.of(2017, 4, 20))
-        .amount(CurrencyAmount.of(Currency.USD, 200000000)).build();
+  /**
+   * Pricer shared by the term loan tests.
+   */
+  private static final ProratedLoanTradePricer PRICER = ProratedLoanTradePricer.DEFAULT;
 
-    final Facility LOAN = Facility
-        .builder()
-        .id(StandardId.of("lid", "LOAN1"))
-        .agent(StandardId.of("cpty", "AGENT"))
-        .borrower(StandardId.of("cpty", "BORROWER"))
-        .startDate(LocalDate.of(2017, 1, 24))
-        .maturityDate(LocalDate.of(2022, 8, 14))
-        .contracts(
-            Arrays.asList(CONTRACT_1, CONTRACT_2, CONTRACT_3,
-                CONTRACT_4, CONTRACT_5))
-        .events(ADJUSTMENT_1)
-        .facilityType(Term)
-        .originalCommitmentAmount(
-            CurrencyAmount.of(Currency.USD, 1598500000))
-        .identifiers(
-            Arrays.asList(StandardId.of("LXID", "LX123456"),
-                StandardId.of("CUSIP", "012345678"),
-                StandardId.of("BLOOMBERGID", "BB12345678")))
-        .build();
+  /**
+   * The term loan trade of {@link LoanTrades#termLoanTrade()}, prorated.
+   */
+  private static final ProratedLoanTrade TERM_LOAN_PV = LoanTrades.termLoanTrade().prorate(null);
 
-    final TradeInfo TRADE_INFO = TradeInfo.builder()
-        .tradeDate(LocalDate.of(2017, 3, 21))
-        .settlementDate(LocalDate.of(2017, 4, 10)).build();
+  /**
+   * Rates provider as of the term loan tests' valuation date.
+   */
+  private static final RatesProvider TERM_LOAN_PV_PROV = ImmutableRatesProvider.builder(LocalDate.of(2017, 7, 14))
+      .build();
 
-    LoanTrade LOAN_TRADE = LoanTrade.builder().product(LOAN)
-        .info(TRADE_INFO).buyer(StandardId.of("cpty", "BUYER"))
-        .seller(StandardId.of("cpty", "SELLER")).amount(3000000)
-        .price(101.125 / 100)
-        .expectedSettlementDate(LocalDate.of(2017, 3, 30))
-        .averageLibor(0.9834 / 100).buySell(BUY)
-        .accrualSettlementType(SettledWithoutAccrued).association(LSTA)
-        .commitmentReductionCreditFlag(true).currency(Currency.USD)
-        .delayedCompensationFlag(true).documentationType(Par)
-        .formOfPurchase(Assignment).paydownOnTradeDate(false).build();
+  public void test_termLoanPV_1() throws IOException {
+    final LoanTrade LOAN_TRADE = LoanTrades.termLoanTrade();
 
     final ProratedLoanTrade PRORATED_LOAN_TRADE = LOAN_TRADE.prorate(null);
     final ProratedLoanTradePricer PRICER = ProratedLoanTradePricer.DEFAULT;
@@ -3042,6 +3032,464 @@ public class ProratedLoanTradePricerTest {
     assertEquals(pnl.getAmount(), 22380.136057760905, 1E-2);
   }
 
+  public void test_termLoanPV_cleanPriceGrid() {
+    final LocalDate settle = TERM_LOAN_PV.getInfo().getSettlementDate().get();
+    final double[] cleanPrices = new double[] {99.5 / 100, 100.75 / 100, 101.125 / 100};
+    final double[] gridPV = PRICER.presentValueFromCleanPrice(TERM_LOAN_PV, TERM_LOAN_PV_PROV, cleanPrices);
+    final double[] gridPurchasePrice = PRICER.purchasePrice(TERM_LOAN_PV, TERM_LOAN_PV_PROV, settle, cleanPrices);
+
+    assertEquals(gridPV.length, cleanPrices.length);
+    assertEquals(gridPurchasePrice.length, cleanPrices.length);
+
+    for (int i = 0; i < cleanPrices.length; i++) {
+      assertEquals(gridPV[i],
+          PRICER.presentValueFromCleanPrice(TERM_LOAN_PV, TERM_LOAN_PV_PROV, cleanPrices[i], Optional.empty())
+              .getAmount(),
+          1E-6);
+      assertEquals(gridPurchasePrice[i],
+          PRICER.purchasePrice(TERM_LOAN_PV.toBuilder().price(cleanPrices[i]).build(), TERM_LOAN_PV_PROV, settle)
+              .getAmount(),
+          1E-6);
+    }
+
+    assertEquals(gridPV[1], 3036172.81, 1E-2);
+  }
+
+  public void test_termLoanPV_settlementDateSweep() {
+    final LocalDate settle = TERM_LOAN_PV.getInfo().getSettlementDate().get();
+    final SettlementDateSweep sweep = PRICER.settlementDateSweep(TERM_LOAN_PV, TERM_LOAN_PV_PROV,
+        Arrays.asList(settle, TERM_LOAN_PV.getExpectedSettlementDate()));
+
+    assertEquals(sweep.getSettlementDates(), Arrays.asList(TERM_LOAN_PV.getExpectedSettlementDate(), settle));
+    assertEquals(sweep.getDelayedCompensation().get(0), 0.0);
+    assertEquals(sweep.getCostOfCarry().get(0), 0.0);
+    assertEquals(sweep.getDelayedCompensation().get(1), 4012.46, 1E-2);
+    assertEquals(sweep.getDelayedCompensation().get(1),
+        PRICER.delayedCompensation(TERM_LOAN_PV, TERM_LOAN_PV_PROV).getAmount(), 1E-6);
+    assertEquals(sweep.getCostOfCarry().get(1), 911.59, 1E-2);
+    assertEquals(sweep.getCostOfCarry().get(1),
+        PRICER.costOfCarry(TERM_LOAN_PV, TERM_LOAN_PV_PROV, Optional.empty()).getAmount(), 1E-6);
+    assertEquals(sweep.getPurchasePrice().get(1),
+        PRICER.purchasePrice(TERM_LOAN_PV, TERM_LOAN_PV_PROV, settle).getAmount(), 1E-6);
+  }
+
+  public void test_termLoanPV_scenarios() {
+    final LocalDate settle = TERM_LOAN_PV.getInfo().getSettlementDate().get();
+    final double[] cleanPrices = new double[] {99.5 / 100, 100.75 / 100, 101.125 / 100};
+    final List<RatesProvider> scenarios =
+        Arrays.asList(TERM_LOAN_PV_PROV, ImmutableRatesProvider.builder(settle).build(), TERM_LOAN_PV_PROV);
+    final CurrencyScenarioArray scenarioPV =
+        PRICER.presentValueFromCleanPrice(TERM_LOAN_PV, scenarios, DoubleArray.copyOf(cleanPrices));
+    final CurrencyScenarioArray scenarioAI = PRICER.accruedInterest(TERM_LOAN_PV, scenarios);
+    final ScenarioArray<AnnotatedCashFlows> scenarioCashFlows = PRICER.cashFlows(TERM_LOAN_PV, scenarios, false);
+
+    assertEquals(scenarioPV.getScenarioCount(), scenarios.size());
+    assertEquals(scenarioAI.getScenarioCount(), scenarios.size());
+    assertEquals(scenarioCashFlows.getScenarioCount(), scenarios.size());
+
+    for (int i = 0; i < scenarios.size(); i++) {
+      assertEquals(scenarioPV.get(i).getAmount(),
+          PRICER.presentValueFromCleanPrice(TERM_LOAN_PV, scenarios.get(i), cleanPrices[i], Optional.empty())
+              .getAmount(),
+          1E-6);
+      assertEquals(scenarioAI.get(i).getAmount(),
+          PRICER.accruedInterest(TERM_LOAN_PV, scenarios.get(i)).getAmount(), 1E-6);
+      assertEquals(scenarioCashFlows.get(i), PRICER.cashFlows(TERM_LOAN_PV, scenarios.get(i), false));
+    }
+  }
+
+  public void test_termLoanPV_forwardRateProjection() {
+    final LocalDate valuationDate = LocalDate.of(2017, 5, 1);
+    final double forward = 1.5 / 100;
+    final double margin = 3.25 / 100;
+    final RatesProvider PROV = ImmutableRatesProvider.builder(valuationDate)
+        .iborIndexCurve(IborIndices.USD_LIBOR_3M,
+            ConstantCurve.of(Curves.forwardRates("USD-LIBOR-3M", DayCounts.ACT_360), forward))
+        .build();
+    final ForwardRateProjector projector = new ForwardRateProjector(PROV, ReferenceData.standard());
+    final Function<String, ProratedLoanContract> contract = id -> TERM_LOAN_PV.getProduct().getContracts()
+        .stream()
+        .filter(c -> c.getId().equals(StandardId.of("contract", id)))
+        .findFirst().get();
+
+    // Contract 4 started before valuation date and keeps its contractual rate.
+    final ProratedLoanContract started = contract.apply("4");
+    for (ProratedAccrual accrual : started.getAccrualSchedule())
+      assertSame(projector.project(started, accrual), accrual);
+
+    // Contract 5 starts after valuation date and fixes on 2017-07-24, its margin is kept over the forward rate.
+    final ProratedLoanContract future = contract.apply("5");
+    assertEquals(projector.forwardRate(IborIndices.USD_LIBOR_3M, LocalDate.of(2017, 7, 24)), forward, 1E-12);
+
+    for (ProratedAccrual accrual : future.getAccrualSchedule()) {
+      final ProratedFloatingRateAccrual projectedAccrual =
+          (ProratedFloatingRateAccrual) projector.project(future, accrual);
+
+      assertEquals(projectedAccrual.getBaseRate(), forward, 1E-12);
+      assertEquals(projectedAccrual.getAllInRate(), forward + margin, 1E-12);
+      assertEquals(projectedAccrual.getSpread(), margin, 1E-12);
+      assertEquals(projectedAccrual.getPaymentProjection().getAmount(),
+          accrual.getPaymentProjection().getAmount() * (forward + margin) / accrual.getAllInRate(), 1E-6);
+    }
+
+    // Only the interest of contract 5 changes in projected cash flows.
+    final Function<AnnotatedCashFlows, Double> futureInterest = cashFlows -> cashFlows.getCashFlows().stream()
+        .filter(cashFlow -> cashFlow.getAnnotation().getSource().equals(future.getId()) &&
+            cashFlow.getAnnotation().getType() == CashFlowType.Interest)
+        .mapToDouble(cashFlow -> cashFlow.getCashFlow().getForecastValue().getAmount())
+        .sum();
+    final AnnotatedCashFlows contractual = PRICER.cashFlows(TERM_LOAN_PV, PROV, false);
+    final AnnotatedCashFlows projected = PRICER.cashFlows(TERM_LOAN_PV, projector, false);
+
+    assertEquals(futureInterest.apply(projected),
+        futureInterest.apply(contractual) * (forward + margin) / (4.56389 / 100), 1E-6);
+    assertEquals(projected.getCashFlows().size(), contractual.getCashFlows().size());
+    for (int i = 0; i < contractual.getCashFlows().size(); i++)
+      if (!contractual.getCashFlows().get(i).getAnnotation().getSource().equals(future.getId()))
+        assertEquals(projected.getCashFlows().get(i), contractual.getCashFlows().get(i));
+
+    // Without a forward curve there is nothing to project.
+    final RatesProvider bare = ImmutableRatesProvider.builder(valuationDate).build();
+    assertEquals(PRICER.cashFlows(TERM_LOAN_PV, new ForwardRateProjector(bare, ReferenceData.standard()), false),
+        PRICER.cashFlows(TERM_LOAN_PV, bare, false));
+
+    // Each scenario projects from its own curve.
+    final RatesProvider higher = ImmutableRatesProvider.builder(valuationDate)
+        .iborIndexCurve(IborIndices.USD_LIBOR_3M,
+            ConstantCurve.of(Curves.forwardRates("USD-LIBOR-3M", DayCounts.ACT_360), 2 * forward))
+        .build();
+    final List<RatesProvider> scenarios = Arrays.asList(PROV, higher, bare);
+    final ScenarioArray<AnnotatedCashFlows> scenarioCashFlows =
+        PRICER.cashFlows(TERM_LOAN_PV, scenarios, ReferenceData.standard(), false);
+
+    assertEquals(scenarioCashFlows.get(0), projected);
+    assertEquals(futureInterest.apply(scenarioCashFlows.get(1)),
+        futureInterest.apply(contractual) * (2 * forward + margin) / (4.56389 / 100), 1E-6);
+    assertEquals(scenarioCashFlows.get(2), PRICER.cashFlows(TERM_LOAN_PV, bare, false));
+  }
+
+  public void test_termLoanPV_facilityDelta() {
+    final LoanTrade LOAN_TRADE = LoanTrades.termLoanTrade();
+    final Facility LOAN = LOAN_TRADE.getProduct();
+
+    // Adding the last contract as a delta reprices to the same result as a full rebuild, reusing
+    // the prorated contracts and cash flows of the others.
+    final Facility partialLoan = LOAN.toBuilder()
+        .contracts(LOAN.getContracts().subList(0, 4))
+        .totalCommitmentSchedule(LocalDateDoubleTimeSeries.empty())
+        .build();
+    final ProratedLoanTrade partialTrade = LOAN_TRADE.toBuilder().product(partialLoan).build().prorate(null);
+    final AnnotatedCashFlows partialCashFlows = PRICER.cashFlows(partialTrade, TERM_LOAN_PV_PROV, false);
+    final FacilityDelta delta = FacilityDelta.builder().contracts(Arrays.asList(LOAN.getContracts().get(4))).build();
+    final Facility updatedLoan = partialLoan.apply(delta);
+
+    assertEquals(updatedLoan.getTotalCommitmentSchedule().size(), LOAN.getTotalCommitmentSchedule().size());
+    LOAN.getTotalCommitmentSchedule().forEach((date, value) -> assertEquals(
+        updatedLoan.getTotalCommitmentSchedule().get(date).getAsDouble(), value, 1E-6));
+
+    final ProratedLoanTrade updatedTrade =
+        LOAN_TRADE.toBuilder().product(updatedLoan).build().prorate(partialTrade, delta);
+    final int reused = partialTrade.getProduct().getContracts().size();
+
+    assertEquals(updatedTrade.getProduct().getContracts().size(), reused + 1);
+    for (int i = 0; i < reused; i++)
+      assertSame(updatedTrade.getProduct().getContracts().get(i), partialTrade.getProduct().getContracts().get(i));
+
+    final AnnotatedCashFlows updatedCashFlows =
+        PRICER.cashFlows(updatedTrade, TERM_LOAN_PV_PROV, partialTrade, partialCashFlows, false);
+    final AnnotatedCashFlows rebuiltCashFlows = PRICER.cashFlows(LOAN_TRADE.prorate(null), TERM_LOAN_PV_PROV, false);
+
+    assertEquals(updatedCashFlows.getCashFlows().size(), rebuiltCashFlows.getCashFlows().size());
+    for (int i = 0; i < rebuiltCashFlows.getCashFlows().size(); i++)
+      assertEquals(updatedCashFlows.getCashFlows().get(i).getCashFlow().getForecastValue().getAmount(),
+          rebuiltCashFlows.getCashFlows().get(i).getCashFlow().getForecastValue().getAmount(), 1E-6);
+  }
+
+  public void test_termLoanPV_netPositions() {
+    final LoanTrade LOAN_TRADE = LoanTrades.termLoanTrade();
+    final TradeInfo LATER_SETTLEMENT = TradeInfo.builder()
+        .tradeDate(LocalDate.of(2017, 4, 3))
+        .settlementDate(LocalDate.of(2017, 4, 24)).build();
+
+    // A partial sell-down and an allocation traded later net against the original buy, a sale settling
+    // later is a position of its own. Future cash flows reconcile date by date to those of the individual
+    // trades, including within accrual periods.
+    final LoanTradeList blotter = LoanTradeList.builder()
+        .trades(Arrays.asList(LOAN_TRADE,
+            LOAN_TRADE.toBuilder().buySell(SELL).amount(1000000).build(),
+            LOAN_TRADE.toBuilder().info(LOAN_TRADE.getInfo().toBuilder().tradeDate(LocalDate.of(2017, 3, 24)).build())
+                .amount(2000000).build(),
+            LOAN_TRADE.toBuilder().info(LATER_SETTLEMENT).buySell(SELL).amount(500000)
+                .expectedSettlementDate(LocalDate.of(2017, 4, 12)).build()))
+        .build();
+
+    for (LocalDate asOf : Arrays.asList(LocalDate.of(2017, 4, 26), LocalDate.of(2017, 5, 15),
+        LocalDate.of(2017, 7, 26))) {
+      final ProratedLoanTradeList positions = blotter.netPositions(asOf);
+
+      assertEquals(positions.getTrades().size(), 2);
+      assertEquals(positions.getTrades().get(0).getBuySell(), BUY);
+      assertEquals(positions.getTrades().get(0).getAmount(), 4000000, 1E-6);
+      assertEquals(positions.getTrades().get(1).getBuySell(), SELL);
+      assertReconciled(PRICER.cashFlowsAfter(positions, TERM_LOAN_PV_PROV, asOf, false),
+          PRICER.cashFlowsAfter(blotter.prorate(null), TERM_LOAN_PV_PROV, asOf, false));
+    }
+
+    // A sale settling after the as-of date is not netted.
+    final LocalDate asOf = LocalDate.of(2017, 4, 12);
+    final ProratedLoanTradeList positions = blotter.netPositions(asOf);
+
+    assertEquals(positions.getTrades().size(), 2);
+    assertEquals(positions.getTrades().get(1), blotter.getTrades().get(3).prorate(null));
+    assertReconciled(PRICER.cashFlowsAfter(positions, TERM_LOAN_PV_PROV, asOf, false),
+        PRICER.cashFlowsAfter(blotter.prorate(null), TERM_LOAN_PV_PROV, asOf, false));
+  }
+
+  public void test_termLoanPV_netPositionsOffset() {
+    final LoanTrade LOAN_TRADE = LoanTrades.termLoanTrade();
+    final LoanTradeList blotter = LoanTradeList.builder()
+        .trades(Arrays.asList(LOAN_TRADE, LOAN_TRADE.toBuilder().buySell(SELL).build()))
+        .build();
+
+    // A fully offset position is dropped.
+    assertEquals(blotter.netPositions(LocalDate.of(2017, 5, 15)).getTrades().size(), 0);
+  }
+
+  public void test_revolvingLoan_netPositions() {
+    // Overlapping contracts, the second drawn during the first and rolled into the third, a commitment
+    // fee on the unfunded amount and a repayment after settlement.
+    final List<LoanContract> contracts = Arrays.asList(
+        fixedRateContract("1", LocalDate.of(2016, 8, 1), LocalDate.of(2016, 9, 19), 225000000,
+            Borrowing.builder().effectiveDate(LocalDate.of(2016, 8, 1))
+                .amount(CurrencyAmount.of(Currency.USD, 225000000)).build()),
+        fixedRateContract("2", LocalDate.of(2016, 8, 4), LocalDate.of(2016, 10, 3), 75000000,
+            Borrowing.builder().effectiveDate(LocalDate.of(2016, 8, 4))
+                .amount(CurrencyAmount.of(Currency.USD, 75000000)).build()),
+        fixedRateContract("3", LocalDate.of(2016, 9, 19), LocalDate.of(2016, 11, 1), 225000000,
+            Repayment.builder().effectiveDate(LocalDate.of(2016, 10, 17))
+                .amount(CurrencyAmount.of(Currency.USD, 25000000)).build()));
+    final AccruingFee FEE = AccruingFee.builder()
+        .accrual(FixedRateAccrual.builder()
+            .allInRate(.5 / 100)
+            .dayCount(DayCounts.ACT_360)
+            .startDate(LocalDate.of(2016, 8, 1))
+            .endDate(LocalDate.of(2016, 11, 1))
+            .accrualAmount(CurrencyAmount.of(Currency.USD, 275000000))
+            .build())
+        .id(StandardId.of("fee", "1")).type("commitment fee")
+        .paymentDate(LocalDate.of(2016, 11, 1)).build();
+    final Facility LOAN = Facility.builder()
+        .id(StandardId.of("lid", "LOAN11"))
+        .agent(StandardId.of("cpty", "AGENT"))
+        .borrower(StandardId.of("cpty", "BORROWER"))
+        .startDate(LocalDate.of(2016, 7, 28))
+        .maturityDate(LocalDate.of(2017, 3, 24))
+        .contracts(contracts)
+        .fees(FEE)
+        .originalCommitmentAmount(CurrencyAmount.of(Currency.USD, 500000000))
+        .facilityType(Revolving).build();
+    final LoanTrade LOAN_TRADE = LoanTrade.builder().product(LOAN)
+        .info(TradeInfo.builder()
+            .tradeDate(LocalDate.of(2016, 7, 28))
+            .settlementDate(LocalDate.of(2016, 8, 10)).build())
+        .buyer(StandardId.of("cpty", "BUYER"))
+        .seller(StandardId.of("cpty", "SELLER")).amount(10000000)
+        .price(99.5 / 100)
+        .expectedSettlementDate(LocalDate.of(2016, 8, 10))
+        .buySell(BUY)
+        .accrualSettlementType(SettledWithoutAccrued).association(LSTA)
+        .commitmentReductionCreditFlag(true).currency(Currency.USD)
+        .delayedCompensationFlag(false).documentationType(Par)
+        .formOfPurchase(Assignment).paydownOnTradeDate(false).build();
+
+    // Two allocations traded on different days and settling together net into one position, a sale
+    // settling later is a position of its own.
+    final LoanTradeList blotter = LoanTradeList.builder()
+        .trades(Arrays.asList(LOAN_TRADE,
+            LOAN_TRADE.toBuilder().info(LOAN_TRADE.getInfo().toBuilder().tradeDate(LocalDate.of(2016, 7, 29)).build())
+                .amount(5000000).build(),
+            LOAN_TRADE.toBuilder()
+                .info(TradeInfo.builder()
+                    .tradeDate(LocalDate.of(2016, 7, 29))
+                    .settlementDate(LocalDate.of(2016, 8, 12)).build())
+                .expectedSettlementDate(LocalDate.of(2016, 8, 12))
+                .buySell(SELL).amount(4000000).build()))
+        .build();
+
+    for (LocalDate asOf : Arrays.asList(LocalDate.of(2016, 8, 10), LocalDate.of(2016, 8, 12),
+        LocalDate.of(2016, 9, 1), LocalDate.of(2016, 10, 3))) {
+      final ProratedLoanTradeList positions = blotter.netPositions(asOf);
+
+      assertEquals(positions.getTrades().size(), 2);
+      assertEquals(positions.getTrades().get(0).getAmount(), 15000000, 1E-6);
+      assertEquals(positions.getTrades().get(0).getProduct().getContracts().size(), contracts.size());
+      assertReconciled(PRICER.cashFlowsAfter(positions, TERM_LOAN_PV_PROV, asOf, false),
+          PRICER.cashFlowsAfter(blotter.prorate(null), TERM_LOAN_PV_PROV, asOf, false));
+    }
+  }
+
+  /**
+   * Assert that cash flows agree on each payment date, by type, source and counterparties.
+   * 
+   * @param actual actual cash flows
+   * @param expected expected cash flows
+   */
+  private static void assertReconciled(AnnotatedCashFlows actual, AnnotatedCashFlows expected) {
+    final Map<List<Object>, Double> actualByDate = byDate(actual);
+    final Map<List<Object>, Double> expectedByDate = byDate(expected);
+
+    assertEquals(actualByDate.keySet(), expectedByDate.keySet());
+    expectedByDate.forEach((key, amount) -> assertEquals(actualByDate.get(key), amount, 1E-6, key.toString()));
+  }
+
+  /**
+   * @param cashFlows cash flows
+   * @return summed amounts by payment date, type, source and counterparties
+   */
+  private static Map<List<Object>, Double> byDate(AnnotatedCashFlows cashFlows) {
+    return cashFlows.getCashFlows().stream().collect(Collectors.groupingBy(
+        cashFlow -> Arrays.asList(cashFlow.getCashFlow().getPaymentDate(), cashFlow.getAnnotation().getType(),
+            cashFlow.getAnnotation().getSource(), cashFlow.getAnnotation().getPayingCounterparty(),
+            cashFlow.getAnnotation().getReceivingCounterparty()),
+        Collectors.summingDouble(cashFlow -> cashFlow.getCashFlow().getForecastValue().getAmount())));
+  }
+
+  public void test_termLoanPV_accruedInterestCurve() throws IOException {
+    final AccruedInterestCurve accruedInterestCurve = new AccruedInterestCurve(TERM_LOAN_PV);
+
+    // The curve matches the pricer on every day from trade date until after the last contract ends.
+    for (LocalDate date = LocalDate.of(2017, 3, 21); date.isBefore(LocalDate.of(2017, 11, 1)); date = date.plusDays(1))
+      assertEquals(accruedInterestCurve.accruedInterest(date).getAmount(),
+          PRICER.accruedInterest(TERM_LOAN_PV, ImmutableRatesProvider.builder(date).build()).getAmount(), 1E-6);
+
+    try (BufferedReader reader = new BufferedReader(new FileReader("src/test/resources/MTM1.csv"))) {
+      for (List<String> row : reader.lines().skip(1).map(line -> Arrays.asList(line.split(",")))
+          .collect(Collectors.toList())) {
+        final LocalDate valuationDate = LocalDate.parse(row.get(0));
+        final RatesProvider PROV = ImmutableRatesProvider.builder(valuationDate).build();
+
+        assertEquals(accruedInterestCurve.accruedInterest(valuationDate).getAmount(), Double.parseDouble(row.get(1)),
+            1E-2);
+        assertEquals(PRICER.presentValueFromCleanPrice(TERM_LOAN_PV, PROV, 100.75 / 100, accruedInterestCurve)
+            .getAmount(), Double.parseDouble(row.get(2)), 1E-2);
+        assertEquals(PRICER.presentValueFromCleanPrice(TERM_LOAN_PV, PROV, 100.75 / 100, accruedInterestCurve)
+            .getAmount(),
+            PRICER.presentValueFromCleanPrice(TERM_LOAN_PV, PROV, 100.75 / 100, Optional.empty()).getAmount(),
+            1E-6);
+      }
+    }
+  }
+
+  public void test_termLoanPV_lazyAccrualSchedule() {
+    final ProratedLoanTrade LAZY = LoanTrades.termLoanTrade().prorate(null);
+    // Copies through the builder hold their schedules as given.
+    final ProratedLoanTrade EAGER = TERM_LOAN_PV.toBuilder()
+        .product(TERM_LOAN_PV.getProduct().toBuilder()
+            .contracts(TERM_LOAN_PV.getProduct().getContracts()
+                .stream()
+                .map(contract -> contract.toBuilder().build())
+                .collect(Collectors.toList()))
+            .build())
+        .build();
+
+    // Contracts of LAZY have not generated their schedules before being compared.
+    for (int i = 0; i < EAGER.getProduct().getContracts().size(); i++) {
+      final ProratedLoanContract lazy = LAZY.getProduct().getContracts().get(i);
+      final ProratedLoanContract eager = EAGER.getProduct().getContracts().get(i);
+
+      assertEquals(lazy, eager);
+      assertEquals(eager, lazy);
+      assertEquals(lazy.hashCode(), eager.hashCode());
+      assertEquals(lazy.toString(), eager.toString());
+    }
+
+    assertEquals(PRICER.presentValueFromCleanPrice(LAZY, TERM_LOAN_PV_PROV, 100.75 / 100, Optional.empty()).getAmount(),
+        PRICER.presentValueFromCleanPrice(EAGER, TERM_LOAN_PV_PROV, 100.75 / 100, Optional.empty()).getAmount(), 1E-6);
+    assertEquals(PRICER.accruedInterest(LAZY, TERM_LOAN_PV_PROV).getAmount(),
+        PRICER.accruedInterest(EAGER, TERM_LOAN_PV_PROV).getAmount(), 1E-6);
+    assertEquals(PRICER.delayedCompensation(LAZY, TERM_LOAN_PV_PROV).getAmount(),
+        PRICER.delayedCompensation(EAGER, TERM_LOAN_PV_PROV).getAmount(), 1E-6);
+    assertEquals(PRICER.cashFlows(LAZY, TERM_LOAN_PV_PROV, true), PRICER.cashFlows(EAGER, TERM_LOAN_PV_PROV, true));
+  }
+
+  public void test_termLoanPV_skippedContractsNotGenerated() {
+    final List<String> generated = new ArrayList<String>();
+    // Same contracts, each noting the generation of its schedule.
+    final ProratedLoanTrade TRACKED = TERM_LOAN_PV.toBuilder()
+        .product(TERM_LOAN_PV.getProduct().toBuilder()
+            .contracts(TERM_LOAN_PV.getProduct().getContracts()
+                .stream()
+                .map(contract -> ProratedLoanContract.of(contract.getId(), contract.getAccrual(),
+                    contract.getPaymentDate(), contract.getEvents(), () -> {
+                      generated.add(contract.getId().getValue());
+                      return contract.getAccrualSchedule();
+                    }))
+                .collect(Collectors.toList()))
+            .build())
+        .build();
+
+    // Contract 1 ends before expected settlement and is prorated without a schedule.
+    assertEquals(TERM_LOAN_PV.getProduct().getContracts().get(0).getAccrualSchedule().size(), 0);
+
+    // Only contract 4 spans the valuation date.
+    assertEquals(PRICER.accruedInterest(TRACKED, TERM_LOAN_PV_PROV).getAmount(),
+        PRICER.accruedInterest(TERM_LOAN_PV, TERM_LOAN_PV_PROV).getAmount(), 1E-6);
+    assertEquals(generated, Arrays.asList("4"));
+
+    // Only contract 2 spans the delayed settlement period from 2017-03-30 to 2017-04-10.
+    assertEquals(PRICER.delayedCompensation(TRACKED, TERM_LOAN_PV_PROV).getAmount(), 4012.46, 1E-2);
+    assertEquals(generated, Arrays.asList("4", "2"));
+
+    // Schedules are generated once.
+    PRICER.accruedInterest(TRACKED, TERM_LOAN_PV_PROV);
+    PRICER.delayedCompensation(TRACKED, TERM_LOAN_PV_PROV);
+    assertEquals(generated, Arrays.asList("4", "2"));
+  }
+
+  public void test_termLoanPV_trustedEqualsBuilt() {
+    final ProratedFacility facility = TERM_LOAN_PV.getProduct();
+    int repayments = 0;
+
+    assertEquals(built(facility), facility);
+
+    for (ProratedLoanContract contract : facility.getContracts()) {
+      assertEquals(built(contract), contract);
+      assertEquals(built(contract.getAccrual()), contract.getAccrual());
+
+      for (ProratedAccrual accrual : contract.getAccrualSchedule())
+        assertEquals(built(accrual), accrual);
+
+      for (ProratedLoanContractEvent event : contract.getEvents())
+        if (event instanceof ProratedRepayment) {
+          assertEquals(built(event), event);
+          repayments++;
+        }
+    }
+
+    assertEquals(repayments, 3);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void test_trustedRepaymentNullAmount() {
+    ProratedRepayment.of(LocalDate.of(2017, 3, 31), null, false, 1);
+  }
+
+  /**
+   * @param bean bean to copy
+   * @return copy of the bean built through its meta-bean builder, so with full validation and pre-build
+   */
+  @SuppressWarnings("unchecked")
+  private static <T> T built(T bean) {
+    final MetaBean metaBean = ((Bean) bean).metaBean();
+    final BeanBuilder<? extends Bean> builder = metaBean.builder();
+
+    for (MetaProperty<?> property : metaBean.metaPropertyIterable())
+      if (property.style().isBuildable())
+        builder.set(property, property.get((Bean) bean));
+
+    return (T) builder.build();
+  }
+
   private void test_portfolioPV_1() throws IOException {
     final Repayment REPAYMENT_1 = Repayment.builder()
         .effectiveDate(LocalDate.of(2017, 3, 31))
@@ -3229,7 +3677,10 @@ public class ProratedLoanTradePricerTest {
   /*
    * Multiple active contracts, active trading.
    */
-  public void test_portfolio_4() throws IOException {
+  /**
+   * @return five-contract term loan traded by the blotter of {@link #test_portfolio_4()}
+   */
+  private static Facility eabFacility() {
     final LoanContract CONTRACT_1 = LoanContract
         .builder()
         .id(StandardId.of("contract", "1"))
@@ -3321,7 +3772,7 @@ public class ProratedLoanTradePricerTest {
         .paymentDate(LocalDate.of(2018, 7, 18))
         .build();
 
-    final Facility LOAN = Facility
+    return Facility
         .builder()
         .id(StandardId.of("lid", "LOAN1"))
         .agent(StandardId.of("cpty", "AGENT"))
@@ -3332,6 +3783,10 @@ public class ProratedLoanTradePricerTest {
         .facilityType(Term)
         .originalCommitmentAmount(CurrencyAmount.of(Currency.USD, 540000000))
         .build();
+  }
+
+  public void test_portfolio_4() throws IOException {
+    final Facility LOAN = eabFacility();
 
     Function<String, List<String>> mapToItem = (line) -> {
       return Arrays.asList(line.split(","));
@@ -3411,4 +3866,28 @@ public class ProratedLoanTradePricerTest {
     assertEquals(cashFlows, expected);
   }
 
+  public void test_portfolio_4_blotter() throws IOException {
+    final Facility LOAN = eabFacility();
+    final ProratedLoanTradePricer PRICER = ProratedLoanTradePricer.DEFAULT;
+    final RatesProvider PROV = ImmutableRatesProvider.builder(LocalDate.of(2018, 6, 15)).build();
+    final String blotterFileName = "src/test/resources/EAB_TRADES.csv";
+    final AnnotatedCashFlows expected =
+        (AnnotatedCashFlows) JodaBeanSer.PRETTY.jsonReader().read(new FileReader("src/test/resources/eab.json"));
+
+    try (BufferedReader reader = new BufferedReader(new FileReader(blotterFileName))) {
+      final List<LoanTrade> trades = LoanTradeBlotter.of(LOAN).trades(reader, LOAN.getId())
+          .collect(Collectors.toList());
+
+      assertEquals(trades.size(), 71);
+      for (LoanTrade trade : trades)
+        assertEquals(trade.getProduct(), LOAN);
+    }
+
+    // Streaming the blotter through proration and pricing yields the same merged cash flows.
+    try (BufferedReader reader = new BufferedReader(new FileReader(blotterFileName))) {
+      assertEquals(PRICER.cashFlows(LoanTradeBlotter.of(LOAN).trades(reader, LOAN.getId())
+          .map(trade -> trade.prorate(null)), PROV, true), expected);
+    }
+  }
+
 }
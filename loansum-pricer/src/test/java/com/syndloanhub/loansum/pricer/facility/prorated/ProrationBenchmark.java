@@ -0,0 +1,201 @@
+/**
+ * Copyright (c) 2018 SyndLoanHub, LLC and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License from within this distribution and at:
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.syndloanhub.loansum.pricer.facility.prorated;
+
+import static com.opengamma.strata.product.common.BuySell.BUY;
+import static com.syndloanhub.loansum.product.facility.FacilityType.Term;
+import static com.syndloanhub.loansum.product.facility.LoanTradingAccrualSettlement.SettledWithoutAccrued;
+import static com.syndloanhub.loansum.product.facility.LoanTradingAssoc.LSTA;
+import static com.syndloanhub.loansum.product.facility.LoanTradingDocType.Par;
+import static com.syndloanhub.loansum.product.facility.LoanTradingFormOfPurchase.Assignment;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.opengamma.strata.basics.StandardId;
+import com.opengamma.strata.basics.currency.Currency;
+import com.opengamma.strata.basics.currency.CurrencyAmount;
+import com.opengamma.strata.basics.date.DayCounts;
+import com.opengamma.strata.basics.index.IborIndex;
+import com.opengamma.strata.basics.schedule.Frequency;
+import com.opengamma.strata.product.TradeInfo;
+import com.syndloanhub.loansum.product.facility.Facility;
+import com.syndloanhub.loansum.product.facility.FloatingRateAccrual;
+import com.syndloanhub.loansum.product.facility.LoanContract;
+import com.syndloanhub.loansum.product.facility.LoanTrade;
+import com.syndloanhub.loansum.product.facility.Repayment;
+import com.syndloanhub.loansum.product.facility.prorated.ProratedFloatingRateAccrual;
+import com.syndloanhub.loansum.product.facility.prorated.ProratedLoanContract;
+import com.syndloanhub.loansum.product.facility.prorated.ProratedLoanTrade;
+
+/**
+ * Benchmark of proration of a seasoned, heavily amortising term loan, and of building a prorated accrual
+ * through its builder and through the trusted factory.
+ * <p>
+ * Run through {@link #main(String[])}. The {@code Validated} variants fork with
+ * {@code -Dloansum.prorated.validate=true}, which also builds every prorated bean through its builder and checks
+ * it against the trusted one, so comparing them with their plain counterparts measures the cost of full
+ * validation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class ProrationBenchmark {
+
+  /**
+   * Number of quarterly contracts, each with monthly repayments.
+   */
+  @Param({ "40", "120" })
+  private int contracts;
+
+  private LoanTrade trade;
+  private FloatingRateAccrual accrual;
+
+  @Setup
+  public void setup() {
+    final LocalDate start = LocalDate.of(2010, 1, 1);
+    final double repayment = 100000;
+    final List<LoanContract> loanContracts = new ArrayList<LoanContract>();
+    double amount = contracts * 3 * repayment;
+
+    for (int i = 0; i < contracts; i++) {
+      final LocalDate startDate = start.plusMonths(3 * i);
+      final LocalDate endDate = startDate.plusMonths(3);
+      final List<Repayment> repayments = new ArrayList<Repayment>();
+
+      for (int j = 1; j <= 3; j++)
+        repayments.add(Repayment.builder()
+            .effectiveDate(startDate.plusMonths(j))
+            .amount(CurrencyAmount.of(Currency.USD, repayment))
+            .interestOnPaydown(j % 3 == 0)
+            .price(100.0 / 100).build());
+
+      accrual = FloatingRateAccrual.builder()
+          .startDate(startDate)
+          .endDate(endDate)
+          .dayCount(DayCounts.ACT_360)
+          .allInRate(4.5 / 100)
+          .baseRate(1.25 / 100)
+          .spread(3.25 / 100)
+          .index(IborIndex.of("USD-LIBOR-3M"))
+          .paymentFrequency(Frequency.P3M)
+          .accrualAmount(CurrencyAmount.of(Currency.USD, amount))
+          .build();
+      loanContracts.add(LoanContract.builder()
+          .id(StandardId.of("contract", Integer.toString(i)))
+          .accrual(accrual)
+          .paymentDate(endDate)
+          .events(repayments).build());
+      amount -= 3 * repayment;
+    }
+
+    final Facility loan = Facility.builder()
+        .id(StandardId.of("lid", "AMORTISER"))
+        .agent(StandardId.of("cpty", "AGENT"))
+        .borrower(StandardId.of("cpty", "BORROWER"))
+        .startDate(start)
+        .maturityDate(start.plusMonths(3 * contracts))
+        .contracts(loanContracts)
+        .originalCommitmentAmount(CurrencyAmount.of(Currency.USD, contracts * 3 * repayment))
+        .facilityType(Term).build();
+
+    // Trade in the last year of the loan, so most contracts expired before settlement.
+    final LocalDate tradeDate = start.plusMonths(3 * contracts - 12).plusDays(10);
+    final TradeInfo info = TradeInfo.builder()
+        .tradeDate(tradeDate)
+        .settlementDate(tradeDate.plusDays(20)).build();
+
+    trade = LoanTrade.builder().product(loan)
+        .info(info).buyer(StandardId.of("cpty", "BUYER"))
+        .seller(StandardId.of("cpty", "SELLER")).amount(repayment)
+        .price(99.0 / 100)
+        .expectedSettlementDate(tradeDate.plusDays(7))
+        .buySell(BUY).accrualSettlementType(SettledWithoutAccrued)
+        .association(LSTA).commitmentReductionCreditFlag(true)
+        .currency(Currency.USD).delayedCompensationFlag(true)
+        .documentationType(Par).formOfPurchase(Assignment)
+        .paydownOnTradeDate(false).build();
+  }
+
+  @Benchmark
+  public ProratedLoanTrade prorate() {
+    return trade.prorate(null);
+  }
+
+  @Benchmark
+  public void prorateWithAccrualSchedules(Blackhole blackhole) {
+    for (ProratedLoanContract contract : trade.prorate(null).getProduct().getContracts())
+      blackhole.consume(contract.getAccrualSchedule());
+  }
+
+  @Benchmark
+  @Fork(value = 1, jvmArgsAppend = "-Dloansum.prorated.validate=true")
+  public ProratedLoanTrade prorateValidated() {
+    return trade.prorate(null);
+  }
+
+  @Benchmark
+  @Fork(value = 1, jvmArgsAppend = "-Dloansum.prorated.validate=true")
+  public void prorateWithAccrualSchedulesValidated(Blackhole blackhole) {
+    for (ProratedLoanContract contract : trade.prorate(null).getProduct().getContracts())
+      blackhole.consume(contract.getAccrualSchedule());
+  }
+
+  @Benchmark
+  public ProratedFloatingRateAccrual accrualBuilder() {
+    return ProratedFloatingRateAccrual.builder()
+        .startDate(accrual.getStartDate())
+        .endDate(accrual.getEndDate())
+        .paymentDate(accrual.getPaymentDate().orElse(null))
+        .allInRate(accrual.getAllInRate())
+        .pikSpread(accrual.getPikSpread())
+        .accrualAmount(accrual.getAccrualAmount())
+        .dayCount(accrual.getDayCount())
+        .paymentFrequency(accrual.getPaymentFrequency())
+        .index(accrual.getIndex())
+        .baseRate(accrual.getBaseRate())
+        .spread(accrual.getSpread())
+        .build();
+  }
+
+  @Benchmark
+  public ProratedFloatingRateAccrual accrualTrusted() {
+    return ProratedFloatingRateAccrual.of(accrual.getStartDate(), accrual.getEndDate(),
+        accrual.getPaymentDate().orElse(null), accrual.getAllInRate(), accrual.getPikSpread(),
+        accrual.getAccrualAmount(), accrual.getDayCount(), accrual.getPaymentFrequency(), accrual.getIndex(),
+        accrual.getBaseRate(), accrual.getSpread());
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(ProrationBenchmark.class.getSimpleName()).build()).run();
+  }
+}
@@ -16,6 +16,7 @@ import java.util.Optional;
 import com.opengamma.strata.basics.currency.CurrencyAmount;
 import com.opengamma.strata.basics.date.DayCount;
 import com.opengamma.strata.basics.schedule.Frequency;
+import com.opengamma.strata.collect.timeseries.LocalDateDoubleTimeSeries;
 import com.opengamma.strata.collect.tuple.Pair;
 
 import com.syndloanhub.loansum.product.facility.prorated.ProratedAccrual;
@@ -96,4 +97,15 @@ public interface Accrual extends Proratable<ProratedAccrual> {
    * @return accrual with revised period and amount
    */
   public abstract Accrual rebuild(LocalDate startDate, LocalDate endDate, CurrencyAmount accrualAmount, LocalDate paymentDate);
+
+  /**
+   * Prorate a global accrual into a share without holding on to the trade, for sub-accruals prorated
+   * after the trade itself is gone.
+   * 
+   * @param pctShare series of prorated share of global facility
+   * @param tradeDate trade date, share is taken as of the later of this and the accrual start date
+   * 
+   * @return prorated accrual
+   */
+  public abstract ProratedAccrual prorate(LocalDateDoubleTimeSeries pctShare, LocalDate tradeDate);
 }
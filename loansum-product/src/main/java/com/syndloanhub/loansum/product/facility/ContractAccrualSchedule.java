@@ -0,0 +1,188 @@
+/**
+ * Copyright (c) 2018 SyndLoanHub, LLC and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License from within this distribution and at:
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.syndloanhub.loansum.product.facility;
+
+import static com.syndloanhub.loansum.product.facility.LoanContractEventType.RepaymentEvent;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import com.opengamma.strata.basics.currency.CurrencyAmount;
+import com.opengamma.strata.collect.tuple.Pair;
+
+/**
+ * Sub-accrual schedule of a contract, equivalent to the contract accrual and its repayments, held as
+ * primitive arrays of period boundaries and notionals. Sub-accrual beans are only built when requested.
+ * <p>
+ * A mixed cash and PIK accrual is split into cash and PIK accruals, each with the same sub-periods. Repayments
+ * with interest on paydown each yield a sub-accrual from the accrual start to the repayment, paying on the
+ * repayment date, and reduce the notional of the remaining sub-accruals, which roll from one repayment
+ * without interest to the next and then to the accrual end while notional remains.
+ */
+public final class ContractAccrualSchedule {
+
+  /**
+   * Accruals the sub-accruals are built from, the contract accrual or its cash and PIK splits.
+   */
+  private final List<Accrual> accruals;
+
+  /**
+   * True if the contract accrual needs no sub-accruals and each accrual is its own schedule.
+   */
+  private final boolean whole;
+
+  private final LocalDate[] startDates;
+  private final LocalDate[] endDates;
+  private final LocalDate[] paymentDates;
+  private final double[] amounts;
+
+  private ContractAccrualSchedule(List<Accrual> accruals, boolean whole, LocalDate[] startDates,
+      LocalDate[] endDates, LocalDate[] paymentDates, double[] amounts) {
+    this.accruals = accruals;
+    this.whole = whole;
+    this.startDates = startDates;
+    this.endDates = endDates;
+    this.paymentDates = paymentDates;
+    this.amounts = amounts;
+  }
+
+  /**
+   * Generate the sub-accrual schedule of a contract in a single pass over its sorted repayments.
+   * 
+   * @param contract loan contract
+   * @return sub-accrual schedule
+   */
+  public static ContractAccrualSchedule of(LoanContract contract) {
+    final Accrual accrual = contract.getAccrual();
+    final List<Accrual> accruals;
+
+    if (accrual.getAllInRate() > 0 && accrual.getPikSpread() > 0) {
+      Pair<Accrual, Accrual> cashPik = accrual.split();
+      accruals = Arrays.asList(cashPik.getFirst(), cashPik.getSecond());
+    } else
+      accruals = Arrays.asList(accrual);
+
+    final Repayment[] repayments = contract.getEvents()
+        .stream()
+        .filter(event -> event.getType() == RepaymentEvent)
+        .map(event -> (Repayment) event)
+        .sorted(Comparator.comparing(Repayment::getEffectiveDate))
+        .toArray(Repayment[]::new);
+
+    if (repayments.length == 0 ||
+        (repayments.length == 1 && repayments[0].getEffectiveDate().isEqual(accrual.getEndDate())))
+      return new ContractAccrualSchedule(accruals, true, null, null, null, null);
+
+    // Repayments with interest come first so accrual explains are correct, then periods rolling between
+    // repayments without interest, whose dates and amounts are gathered in the same pass, then any
+    // residual to the accrual end.
+    final int n = repayments.length;
+    final LocalDate[] startDates = new LocalDate[n + 1];
+    final LocalDate[] endDates = new LocalDate[n + 1];
+    final LocalDate[] paymentDates = new LocalDate[n + 1];
+    final double[] amounts = new double[n + 1];
+    final LocalDate[] rollingDates = new LocalDate[n];
+    final double[] rollingRepayments = new double[n];
+    int periods = 0, rolling = 0;
+    double rollingAmount = accrual.getAccrualAmount().getAmount();
+
+    for (Repayment repayment : repayments)
+      if (repayment.isInterestOnPaydown()) {
+        startDates[periods] = accrual.getStartDate();
+        endDates[periods] = repayment.getEffectiveDate();
+        paymentDates[periods] = repayment.getEffectiveDate();
+        amounts[periods++] = repayment.getAmount().getAmount();
+        rollingAmount -= repayment.getAmount().getAmount();
+      } else {
+        rollingDates[rolling] = repayment.getEffectiveDate();
+        rollingRepayments[rolling++] = repayment.getAmount().getAmount();
+      }
+
+    LocalDate rollingStartDate = accrual.getStartDate();
+
+    for (int i = 0; i < rolling; i++) {
+      startDates[periods] = rollingStartDate;
+      endDates[periods] = rollingDates[i];
+      amounts[periods++] = rollingAmount;
+      rollingStartDate = rollingDates[i];
+      rollingAmount -= rollingRepayments[i];
+    }
+
+    if (rollingStartDate.isBefore(accrual.getEndDate()) && rollingAmount > 0) {
+      startDates[periods] = rollingStartDate;
+      endDates[periods] = accrual.getEndDate();
+      amounts[periods++] = rollingAmount;
+    }
+
+    return new ContractAccrualSchedule(accruals, false, Arrays.copyOf(startDates, periods),
+        Arrays.copyOf(endDates, periods), Arrays.copyOf(paymentDates, periods), Arrays.copyOf(amounts, periods));
+  }
+
+  /**
+   * @return number of sub-periods of each accrual
+   */
+  private int periods() {
+    return whole ? 1 : amounts.length;
+  }
+
+  /**
+   * @return number of sub-accruals
+   */
+  public int size() {
+    return accruals.size() * periods();
+  }
+
+  /**
+   * @param i index of sub-accrual
+   * @return the accrual the sub-accrual is built from
+   */
+  public Accrual getAccrual(int i) {
+    return accruals.get(i / periods());
+  }
+
+  /**
+   * @param i index of sub-accrual
+   * @return start date of sub-accrual
+   */
+  public LocalDate getStartDate(int i) {
+    return whole ? getAccrual(i).getStartDate() : startDates[i % periods()];
+  }
+
+  /**
+   * @param i index of sub-accrual
+   * @return end date of sub-accrual
+   */
+  public LocalDate getEndDate(int i) {
+    return whole ? getAccrual(i).getEndDate() : endDates[i % periods()];
+  }
+
+  /**
+   * @param i index of sub-accrual
+   * @return notional of sub-accrual
+   */
+  public CurrencyAmount getAccrualAmount(int i) {
+    return whole ? getAccrual(i).getAccrualAmount() :
+        CurrencyAmount.of(getAccrual(i).getAccrualAmount().getCurrency(), amounts[i % periods()]);
+  }
+
+  /**
+   * Build a sub-accrual.
+   * 
+   * @param i index of sub-accrual
+   * @return sub-accrual
+   */
+  public Accrual get(int i) {
+    return whole ? getAccrual(i) : getAccrual(i).rebuild(getStartDate(i), getEndDate(i), getAccrualAmount(i),
+        paymentDates[i % periods()]);
+  }
+}
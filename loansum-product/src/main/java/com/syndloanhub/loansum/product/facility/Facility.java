@@ -27,29 +27,38 @@ import org.joda.beans.gen.PropertyDefinition;
 
 import static com.syndloanhub.loansum.product.facility.FacilityType.Term;
 import static com.syndloanhub.loansum.product.facility.LoanContractEventType.RepaymentEvent;
+import static com.syndloanhub.loansum.product.facility.Helper.applyCommitmentSteps;
 import static com.syndloanhub.loansum.product.facility.Helper.generateCommitmentSchedule;
+import static com.syndloanhub.loansum.product.facility.Helper.generateCommitmentSteps;
 import static com.syndloanhub.loansum.product.facility.Helper.intersects;
 import static com.syndloanhub.loansum.product.facility.Helper.tsget;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.SortedSet;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedSet;
 import com.opengamma.strata.basics.StandardId;
 import com.opengamma.strata.basics.currency.Currency;
 import com.opengamma.strata.basics.currency.CurrencyAmount;
 import com.opengamma.strata.collect.ArgChecker;
+import com.opengamma.strata.collect.Guavate;
 import com.opengamma.strata.collect.timeseries.LocalDateDoubleTimeSeries;
 import com.opengamma.strata.collect.timeseries.LocalDateDoubleTimeSeriesBuilder;
 import com.opengamma.strata.collect.tuple.Pair;
 import com.opengamma.strata.product.Product;
 import com.opengamma.strata.product.ProductTrade;
 import com.syndloanhub.loansum.product.facility.prorated.ProratedFacility;
+import com.syndloanhub.loansum.product.facility.prorated.ProratedLoanContract;
 
 /**
  * A loan facility, e.g. revolver, term, delayed draw, or letter of credit.
@@ -111,9 +120,104 @@ public final class Facility implements Product, Proratable<ProratedFacility>, Im
    * @return totalCommitmentSchedule amount
    */
   public CurrencyAmount getUnfundedAmount(LocalDate date) {
+    final UnfundedProfile profile = unfundedProfile();
+    final int i = Arrays.binarySearch(profile.dates, date);
+
+    if (i == -1)
+      return unfundedAmount(date);
+
+    return CurrencyAmount.of(originalCommitmentAmount.getCurrency(), profile.amounts[i >= 0 ? i : -i - 2]);
+  }
+
+  /**
+   * Calculate the global unfunded amount as of a specific date from contracts and commitment.
+   * 
+   * @param date to return unfunded amount.
+   * @return unfunded amount
+   */
+  private CurrencyAmount unfundedAmount(LocalDate date) {
     return getCommitmentAmount(date).minus(getFundedAmount(date)).minus(getUndrawnLCAmount(date));
   }
 
+  /**
+   * Unfunded amount from each date on which it may change.
+   */
+  private static final class UnfundedProfile {
+    private final LocalDate[] dates;
+    private final double[] amounts;
+
+    private UnfundedProfile(LocalDate[] dates, double[] amounts) {
+      this.dates = dates;
+      this.amounts = amounts;
+    }
+  }
+
+  /**
+   * Return the unfunded amount from each date on which it may change, commitment schedule dates, contract
+   * start and end dates and repayment dates, built on first use. Unfunded amount before the first
+   * commitment schedule date is not profiled.
+   * 
+   * @return unfunded profile
+   */
+  private UnfundedProfile unfundedProfile() {
+    UnfundedProfile profile = unfundedProfile;
+
+    if (profile == null) {
+      final SortedSet<LocalDate> dates = new TreeSet<LocalDate>(totalCommitmentSchedule.dates()
+          .collect(Collectors.toList()));
+
+      for (LoanContract contract : contracts) {
+        dates.add(contract.getAccrual().getStartDate());
+        dates.add(contract.getAccrual().getEndDate());
+
+        if (contract.getEvents() != null)
+          for (LoanContractEvent event : contract.getEvents())
+            if (event.getType() == RepaymentEvent)
+              dates.add(event.getEffectiveDate());
+      }
+
+      if (totalCommitmentSchedule.isEmpty())
+        dates.clear();
+      else
+        dates.removeIf(date -> date.isBefore(totalCommitmentSchedule.getEarliestDate()));
+
+      final LocalDate[] profileDates = dates.toArray(new LocalDate[dates.size()]);
+      final double[] amounts = new double[profileDates.length];
+
+      for (int i = 0; i < profileDates.length; i++)
+        amounts[i] = unfundedAmount(profileDates[i]).getAmount();
+
+      unfundedProfile = profile = new UnfundedProfile(profileDates, amounts);
+    }
+
+    return profile;
+  }
+
+  /**
+   * Return the sorted distinct effective dates of facility events and contract events. Built on first use.
+   * 
+   * @return event dates in ascending order
+   */
+  public ImmutableSortedSet<LocalDate> getEventDates() {
+    ImmutableSortedSet<LocalDate> dates = eventDates;
+
+    if (dates == null) {
+      final ImmutableSortedSet.Builder<LocalDate> builder = ImmutableSortedSet.naturalOrder();
+
+      for (FacilityEvent event : events)
+        builder.add(event.getEffectiveDate());
+
+      for (LoanContract contract : contracts)
+        if (contract.getEvents() != null)
+          for (LoanContractEvent event : contract.getEvents())
+            builder.add(event.getEffectiveDate());
+
+      eventDates = dates = builder.build();
+    }
+
+    return dates;
+  }
+
   /**
    * Return the global undrawn LC amount as of a specific date
    * 
@@ -125,8 +229,67 @@ public final class Facility implements Product, Proratable<ProratedFacility>, Im
     return CurrencyAmount.zero(originalCommitmentAmount.getCurrency());
   }
 
+  /**
+   * Return a new facility with the given delta applied. Contracts in the delta replace existing
+   * contracts with the same id or are otherwise added, and delta events are added.
+   * <p>
+   * Rather than regenerating the commitment schedule from all contracts and events, only the
+   * commitment steps of the delta are applied to the existing schedule, net of the steps of any
+   * replaced contracts.
+   * 
+   * @param delta changes to apply
+   * @return updated facility
+   */
+  public Facility apply(FacilityDelta delta) {
+    final Map<StandardId, LoanContract> replacements = delta.getContracts()
+        .stream()
+        .collect(Collectors.toMap(LoanContract::getId, contract -> contract));
+    final List<LoanContract> replaced = new ArrayList<LoanContract>();
+    final List<LoanContract> updatedContracts = new ArrayList<LoanContract>();
+
+    for (LoanContract contract : contracts) {
+      LoanContract replacement = replacements.remove(contract.getId());
+
+      if (replacement == null)
+        updatedContracts.add(contract);
+      else {
+        replaced.add(contract);
+        updatedContracts.add(replacement);
+      }
+    }
+
+    // Remaining delta contracts are new, preserve delta order.
+    for (LoanContract contract : delta.getContracts())
+      if (replacements.containsKey(contract.getId()))
+        updatedContracts.add(contract);
+
+    final List<Pair<LocalDate, Double>> steps = new ArrayList<Pair<LocalDate, Double>>();
+
+    for (Pair<LocalDate, Double> step : generateCommitmentSteps(facilityType, replaced, null))
+      steps.add(Pair.of(step.getFirst(), -step.getSecond()));
+
+    steps.addAll(generateCommitmentSteps(facilityType, delta.getContracts(), delta.getEvents()));
+
+    return toBuilder()
+        .contracts(updatedContracts)
+        .events(ImmutableList.<FacilityEvent>builder().addAll(events).addAll(delta.getEvents()).build())
+        .totalCommitmentSchedule(applyCommitmentSteps(totalCommitmentSchedule, steps))
+        .build();
+  }
+
   @Override
   public ProratedFacility prorate(ProductTrade trade) {
+    return prorate(trade, ImmutableMap.of());
+  }
+
+  /**
+   * Prorate this facility, reusing previously prorated contracts where available.
+   * 
+   * @param trade the trade to prorate against
+   * @param proratedContracts prorated contracts, by id, known to be unaffected by the trade
+   * @return prorated facility
+   */
+  ProratedFacility prorate(ProductTrade trade, Map<StandardId, ProratedLoanContract> proratedContracts) {
     LoanTrade loanTrade = (LoanTrade) trade;
 
     double[] values = totalCommitmentSchedule.values().toArray();
@@ -143,29 +306,21 @@ public final class Facility implements Product, Proratable<ProratedFacility>, Im
 
     builder.put(trade.getInfo().getTradeDate().get(), loanTrade.getAmount());
 
-    return ProratedFacility.builder()
-        .id(id)
-        .identifiers(identifiers)
-        .agent(agent)
-        .borrower(borrower)
-        .contracts(contracts
+    return ProratedFacility.of(id, borrower, agent, facilityType, identifiers, startDate, maturityDate,
+        originalCommitmentAmount.getCurrency(), builder.build(),
+        contracts
             .stream()
-            .map(contract -> contract.prorate(trade))
-            .collect(Collectors.toList()))
-        .fees(fees
+            .map(contract -> proratedContracts.containsKey(contract.getId()) ? proratedContracts.get(contract.getId()) :
+                contract.prorate(trade))
+            .collect(Guavate.toImmutableList()),
+        fees
             .stream()
             .map(fee -> fee.prorate(trade))
-            .collect(Collectors.toList()))
-        .startDate(startDate)
-        .maturityDate(maturityDate)
-        .facilityType(facilityType)
-        .commitment(builder.build())
-        .events(events
+            .collect(Guavate.toImmutableList()),
+        events
             .stream()
             .map(event -> event.prorate(trade))
-            .collect(Collectors.toList()))
-        .currency(originalCommitmentAmount.getCurrency())
-        .build();
+            .collect(Guavate.toImmutableList()));
   }
 
   /**
@@ -256,6 +411,16 @@ public final class Facility implements Product, Proratable<ProratedFacility>, Im
   @PropertyDefinition(validate = "", builderType = "List<? extends FacilityEvent>")
   private final ImmutableList<FacilityEvent> events;
 
+  /**
+   * Sorted event dates, derived on first use and not a property.
+   */
+  private transient volatile ImmutableSortedSet<LocalDate> eventDates;
+
+  /**
+   * Unfunded amount profile, derived on first use and not a property.
+   */
+  private transient volatile UnfundedProfile unfundedProfile;
+
   /**
    * Facility-level validation rules.
    */
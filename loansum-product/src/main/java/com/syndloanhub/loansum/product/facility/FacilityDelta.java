@@ -0,0 +1,400 @@
+/**
+ * Copyright (c) 2018 SyndLoanHub, LLC and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License from within this distribution and at:
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.syndloanhub.loansum.product.facility;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.joda.beans.Bean;
+import org.joda.beans.ImmutableBean;
+import org.joda.beans.JodaBeanUtils;
+import org.joda.beans.MetaBean;
+import org.joda.beans.MetaProperty;
+import org.joda.beans.gen.BeanDefinition;
+import org.joda.beans.gen.ImmutableDefaults;
+import org.joda.beans.gen.PropertyDefinition;
+import org.joda.beans.impl.direct.DirectFieldsBeanBuilder;
+import org.joda.beans.impl.direct.DirectMetaBean;
+import org.joda.beans.impl.direct.DirectMetaProperty;
+import org.joda.beans.impl.direct.DirectMetaPropertyMap;
+
+import com.google.common.collect.ImmutableList;
+import com.opengamma.strata.basics.StandardId;
+
+/**
+ * A set of changes to a facility received from the agent, e.g. a new borrowing contract,
+ * a repayment added to an existing contract, or a commitment adjustment.
+ * <p>
+ * A delta is applied to a facility via {@link Facility#apply(FacilityDelta)}, which updates
+ * the commitment schedule for the delta alone, and to existing prorations via
+ * {@link LoanTrade#prorate(com.syndloanhub.loansum.product.facility.prorated.ProratedLoanTrade, FacilityDelta)},
+ * which prorates only the changed contracts.
+ */
+@BeanDefinition
+public final class FacilityDelta implements ImmutableBean {
+
+  /**
+   * New contracts, or complete replacements of existing contracts with the same id.
+   */
+  @PropertyDefinition(validate = "notNull", builderType = "List<? extends LoanContract>")
+  private final ImmutableList<LoanContract> contracts;
+
+  /**
+   * New facility events.
+   */
+  @PropertyDefinition(validate = "notNull", builderType = "List<? extends FacilityEvent>")
+  private final ImmutableList<FacilityEvent> events;
+
+  /**
+   * Return the ids of the contracts added or changed by this delta.
+   * 
+   * @return contract ids
+   */
+  public Set<StandardId> getContractIds() {
+    return contracts.stream().map(LoanContract::getId).collect(Collectors.toSet());
+  }
+
+  /**
+   * Default values, empty contracts and events.
+   * 
+   * @param builder
+   */
+  @ImmutableDefaults
+  private static void applyDefaults(Builder builder) {
+    builder
+        .contracts(new ArrayList<LoanContract>())
+        .events(new ArrayList<FacilityEvent>());
+  }
+
+  //------------------------- AUTOGENERATED START -------------------------
+  /**
+   * The meta-bean for {@code FacilityDelta}.
+   * @return the meta-bean, not null
+   */
+  public static FacilityDelta.Meta meta() {
+    return FacilityDelta.Meta.INSTANCE;
+  }
+
+  static {
+    MetaBean.register(FacilityDelta.Meta.INSTANCE);
+  }
+
+  /**
+   * Returns a builder used to create an instance of the bean.
+   * @return the builder, not null
+   */
+  public static FacilityDelta.Builder builder() {
+    return new FacilityDelta.Builder();
+  }
+
+  private FacilityDelta(
+      List<? extends LoanContract> contracts,
+      List<? extends FacilityEvent> events) {
+    JodaBeanUtils.notNull(contracts, "contracts");
+    JodaBeanUtils.notNull(events, "events");
+    this.contracts = ImmutableList.copyOf(contracts);
+    this.events = ImmutableList.copyOf(events);
+  }
+
+  @Override
+  public FacilityDelta.Meta metaBean() {
+    return FacilityDelta.Meta.INSTANCE;
+  }
+
+  //-----------------------------------------------------------------------
+  /**
+   * Gets new contracts, or complete replacements of existing contracts with the same id.
+   * @return the value of the property, not null
+   */
+  public ImmutableList<LoanContract> getContracts() {
+    return contracts;
+  }
+
+  //-----------------------------------------------------------------------
+  /**
+   * Gets new facility events.
+   * @return the value of the property, not null
+   */
+  public ImmutableList<FacilityEvent> getEvents() {
+    return events;
+  }
+
+  //-----------------------------------------------------------------------
+  /**
+   * Returns a builder that allows this bean to be mutated.
+   * @return the mutable builder, not null
+   */
+  public Builder toBuilder() {
+    return new Builder(this);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj == this) {
+      return true;
+    }
+    if (obj != null && obj.getClass() == this.getClass()) {
+      FacilityDelta other = (FacilityDelta) obj;
+      return JodaBeanUtils.equal(contracts, other.contracts) &&
+          JodaBeanUtils.equal(events, other.events);
+    }
+    return false;
+  }
+
+  @Override
+  public int hashCode() {
+    int hash = getClass().hashCode();
+    hash = hash * 31 + JodaBeanUtils.hashCode(contracts);
+    hash = hash * 31 + JodaBeanUtils.hashCode(events);
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder buf = new StringBuilder(96);
+    buf.append("FacilityDelta{");
+    buf.append("contracts").append('=').append(contracts).append(',').append(' ');
+    buf.append("events").append('=').append(JodaBeanUtils.toString(events));
+    buf.append('}');
+    return buf.toString();
+  }
+
+  //-----------------------------------------------------------------------
+  /**
+   * The meta-bean for {@code FacilityDelta}.
+   */
+  public static final class Meta extends DirectMetaBean {
+    /**
+     * The singleton instance of the meta-bean.
+     */
+    static final Meta INSTANCE = new Meta();
+
+    /**
+     * The meta-property for the {@code contracts} property.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes" })
+    private final MetaProperty<ImmutableList<LoanContract>> _contracts = DirectMetaProperty.ofImmutable(
+        this, "contracts", FacilityDelta.class, (Class) ImmutableList.class);
+    /**
+     * The meta-property for the {@code events} property.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes" })
+    private final MetaProperty<ImmutableList<FacilityEvent>> _events = DirectMetaProperty.ofImmutable(
+        this, "events", FacilityDelta.class, (Class) ImmutableList.class);
+    /**
+     * The meta-properties.
+     */
+    private final Map<String, MetaProperty<?>> _metaPropertyMap$ = new DirectMetaPropertyMap(
+        this, null,
+        "contracts",
+        "events");
+
+    /**
+     * Restricted constructor.
+     */
+    private Meta() {
+    }
+
+    @Override
+    protected MetaProperty<?> metaPropertyGet(String propertyName) {
+      switch (propertyName.hashCode()) {
+        case -395505247:  // contracts
+          return _contracts;
+        case -1291329255:  // events
+          return _events;
+      }
+      return super.metaPropertyGet(propertyName);
+    }
+
+    @Override
+    public FacilityDelta.Builder builder() {
+      return new FacilityDelta.Builder();
+    }
+
+    @Override
+    public Class<? extends FacilityDelta> beanType() {
+      return FacilityDelta.class;
+    }
+
+    @Override
+    public Map<String, MetaProperty<?>> metaPropertyMap() {
+      return _metaPropertyMap$;
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * The meta-property for the {@code contracts} property.
+     * @return the meta-property, not null
+     */
+    public MetaProperty<ImmutableList<LoanContract>> contracts() {
+      return _contracts;
+    }
+
+    /**
+     * The meta-property for the {@code events} property.
+     * @return the meta-property, not null
+     */
+    public MetaProperty<ImmutableList<FacilityEvent>> events() {
+      return _events;
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    protected Object propertyGet(Bean bean, String propertyName, boolean quiet) {
+      switch (propertyName.hashCode()) {
+        case -395505247:  // contracts
+          return ((FacilityDelta) bean).getContracts();
+        case -1291329255:  // events
+          return ((FacilityDelta) bean).getEvents();
+      }
+      return super.propertyGet(bean, propertyName, quiet);
+    }
+
+    @Override
+    protected void propertySet(Bean bean, String propertyName, Object newValue, boolean quiet) {
+      metaProperty(propertyName);
+      if (quiet) {
+        return;
+      }
+      throw new UnsupportedOperationException("Property cannot be written: " + propertyName);
+    }
+
+  }
+
+  //-----------------------------------------------------------------------
+  /**
+   * The bean-builder for {@code FacilityDelta}.
+   */
+  public static final class Builder extends DirectFieldsBeanBuilder<FacilityDelta> {
+
+    private List<? extends LoanContract> contracts = ImmutableList.of();
+    private List<? extends FacilityEvent> events = ImmutableList.of();
+
+    /**
+     * Restricted constructor.
+     */
+    private Builder() {
+      applyDefaults(this);
+    }
+
+    /**
+     * Restricted copy constructor.
+     * @param beanToCopy  the bean to copy from, not null
+     */
+    private Builder(FacilityDelta beanToCopy) {
+      this.contracts = beanToCopy.getContracts();
+      this.events = beanToCopy.getEvents();
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public Object get(String propertyName) {
+      switch (propertyName.hashCode()) {
+        case -395505247:  // contracts
+          return contracts;
+        case -1291329255:  // events
+          return events;
+        default:
+          throw new NoSuchElementException("Unknown property: " + propertyName);
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Builder set(String propertyName, Object newValue) {
+      switch (propertyName.hashCode()) {
+        case -395505247:  // contracts
+          this.contracts = (List<? extends LoanContract>) newValue;
+          break;
+        case -1291329255:  // events
+          this.events = (List<? extends FacilityEvent>) newValue;
+          break;
+        default:
+          throw new NoSuchElementException("Unknown property: " + propertyName);
+      }
+      return this;
+    }
+
+    @Override
+    public Builder set(MetaProperty<?> property, Object value) {
+      super.set(property, value);
+      return this;
+    }
+
+    @Override
+    public FacilityDelta build() {
+      return new FacilityDelta(
+          contracts,
+          events);
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Sets new contracts, or complete replacements of existing contracts with the same id.
+     * @param contracts  the new value, not null
+     * @return this, for chaining, not null
+     */
+    public Builder contracts(List<? extends LoanContract> contracts) {
+      JodaBeanUtils.notNull(contracts, "contracts");
+      this.contracts = contracts;
+      return this;
+    }
+
+    /**
+     * Sets the {@code contracts} property in the builder
+     * from an array of objects.
+     * @param contracts  the new value, not null
+     * @return this, for chaining, not null
+     */
+    public Builder contracts(LoanContract... contracts) {
+      return contracts(ImmutableList.copyOf(contracts));
+    }
+
+    /**
+     * Sets new facility events.
+     * @param events  the new value, not null
+     * @return this, for chaining, not null
+     */
+    public Builder events(List<? extends FacilityEvent> events) {
+      JodaBeanUtils.notNull(events, "events");
+      this.events = events;
+      return this;
+    }
+
+    /**
+     * Sets the {@code events} property in the builder
+     * from an array of objects.
+     * @param events  the new value, not null
+     * @return this, for chaining, not null
+     */
+    public Builder events(FacilityEvent... events) {
+      return events(ImmutableList.copyOf(events));
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public String toString() {
+      StringBuilder buf = new StringBuilder(96);
+      buf.append("FacilityDelta.Builder{");
+      buf.append("contracts").append('=').append(JodaBeanUtils.toString(contracts)).append(',').append(' ');
+      buf.append("events").append('=').append(JodaBeanUtils.toString(events));
+      buf.append('}');
+      return buf.toString();
+    }
+
+  }
+
+  //-------------------------- AUTOGENERATED END --------------------------
+}
@@ -36,6 +36,7 @@ import com.opengamma.strata.basics.date.DayCount;
 import com.opengamma.strata.basics.date.DayCounts;
 import com.opengamma.strata.basics.schedule.Frequency;
 import com.opengamma.strata.collect.ArgChecker;
+import com.opengamma.strata.collect.timeseries.LocalDateDoubleTimeSeries;
 import com.opengamma.strata.collect.tuple.Pair;
 import com.opengamma.strata.product.ProductTrade;
 import com.syndloanhub.loansum.product.facility.prorated.ProratedFixedRateAccrual;
@@ -59,21 +60,18 @@ public final class FixedRateAccrual implements Accrual, ImmutableBean {
    */
   @Override
   public ProratedFixedRateAccrual prorate(ProductTrade trade) {
-    final LoanTrade loanTrade = (LoanTrade) trade;
-    final double pctShare = tsget(loanTrade.getPctShare(), max(startDate, trade.getInfo().getTradeDate().get()));
+    return prorate(((LoanTrade) trade).getPctShare(), trade.getInfo().getTradeDate().get());
+  }
 
-    return ProratedFixedRateAccrual.builder()
-        .accrualAmount(accrualAmount.multipliedBy(pctShare))
-        .allInRate(allInRate)
-        .dayCount(dayCount)
-        .endDate(endDate)
-        .paymentDate(paymentDate)
-        .paymentFrequency(paymentFrequency)
-        .pikSpread(pikSpread)
-        .startDate(startDate)
-        .paymentProjection(paymentProjection.multipliedBy(pctShare))
-        .pikProjection(pikProjection.multipliedBy(pctShare))
-        .build();
+  /**
+   * Prorate a global accrual into a share based on given share series and trade date.
+   */
+  @Override
+  public ProratedFixedRateAccrual prorate(LocalDateDoubleTimeSeries pctShare, LocalDate tradeDate) {
+    final double share = tsget(pctShare, max(startDate, tradeDate));
+
+    return ProratedFixedRateAccrual.of(startDate, endDate, paymentDate, allInRate, pikSpread,
+        accrualAmount.multipliedBy(share), dayCount, paymentFrequency);
   }
 
   /**
@@ -31,6 +31,7 @@ import com.opengamma.strata.basics.date.DayCounts;
 import com.opengamma.strata.basics.index.RateIndex;
 import com.opengamma.strata.basics.schedule.Frequency;
 import com.opengamma.strata.collect.ArgChecker;
+import com.opengamma.strata.collect.timeseries.LocalDateDoubleTimeSeries;
 import com.opengamma.strata.collect.tuple.Pair;
 import com.opengamma.strata.product.ProductTrade;
 import com.syndloanhub.loansum.product.facility.FixedRateAccrual.Builder;
@@ -59,24 +60,18 @@ public final class FloatingRateAccrual implements Accrual, ImmutableBean {
    */
   @Override
   public ProratedFloatingRateAccrual prorate(ProductTrade trade) {
-    final LoanTrade loanTrade = (LoanTrade) trade;
-    final double pctShare = tsget(loanTrade.getPctShare(), max(startDate, trade.getInfo().getTradeDate().get()));
+    return prorate(((LoanTrade) trade).getPctShare(), trade.getInfo().getTradeDate().get());
+  }
 
-    return ProratedFloatingRateAccrual.builder()
-        .accrualAmount(accrualAmount.multipliedBy(pctShare))
-        .allInRate(allInRate)
-        .dayCount(dayCount)
-        .endDate(endDate)
-        .paymentDate(paymentDate)
-        .paymentFrequency(paymentFrequency)
-        .pikSpread(pikSpread)
-        .startDate(startDate)
-        .paymentProjection(paymentProjection.multipliedBy(pctShare))
-        .pikProjection(pikProjection.multipliedBy(pctShare))
-        .baseRate(baseRate)
-        .spread(spread)
-        .index(index)
-        .build();
+  /**
+   * Prorate a global accrual into a share based on given share series and trade date.
+   */
+  @Override
+  public ProratedFloatingRateAccrual prorate(LocalDateDoubleTimeSeries pctShare, LocalDate tradeDate) {
+    final double share = tsget(pctShare, max(startDate, tradeDate));
+
+    return ProratedFloatingRateAccrual.of(startDate, endDate, paymentDate, allInRate, pikSpread,
+        accrualAmount.multipliedBy(share), dayCount, paymentFrequency, index, baseRate, spread);
   }
 
   /**
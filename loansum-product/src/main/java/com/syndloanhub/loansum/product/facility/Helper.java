@@ -10,6 +10,7 @@
 
 package com.syndloanhub.loansum.product.facility;
 
+import static com.syndloanhub.loansum.product.facility.FacilityEventType.CommitmentAdjustmentEvent;
 import static com.syndloanhub.loansum.product.facility.FacilityType.Revolving;
 import static com.syndloanhub.loansum.product.facility.FacilityType.Term;
 import static com.syndloanhub.loansum.product.facility.LoanContractEventType.RepaymentEvent;
@@ -24,13 +25,14 @@ import java.util.Comparator;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
+import java.util.SortedSet;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.collect.ImmutableList;
 import com.opengamma.strata.basics.currency.Currency;
 import com.opengamma.strata.basics.currency.CurrencyAmount;
 import com.opengamma.strata.collect.timeseries.LocalDateDoubleTimeSeries;
@@ -158,63 +160,13 @@ public final class Helper {
    * @return list of equivalent sub-accruals
    */
   public final static List<Accrual> generateContractAccrualSchedule(LoanContract contract) {
-    List<Accrual> accrualSchedule = new ArrayList<Accrual>();
-
-    // Filter and sort repayment contract events.
-    List<Repayment> repayments = contract.getEvents()
-        .stream()
-        .filter(event -> event.getType() == RepaymentEvent)
-        .map(event -> (Repayment) event)
-        .sorted(Comparator.comparing(Repayment::getEffectiveDate))
-        .collect(Collectors.toList());
-
-    // The accrual list will have a second element only if an accrual is 
-    // mixed cash and PIK, split since accrual periods may be different across 
-    // the settlement period.
-    List<Accrual> accruals = Arrays.asList(contract.getAccrual());
-
-    if (contract.getAccrual().getAllInRate() > 0 && contract.getAccrual().getPikSpread() > 0) {
-      Pair<Accrual, Accrual> cashPik = contract.getAccrual().split();
-      accruals = Arrays.asList(cashPik.getFirst(), cashPik.getSecond());
-    }
+    final ContractAccrualSchedule schedule = ContractAccrualSchedule.of(contract);
+    final ImmutableList.Builder<Accrual> accruals = ImmutableList.builder();
 
-    for (Accrual accrual : accruals) {
-      // If no repayments, add accrual as is.
-      if (repayments.isEmpty() || (repayments.size() == 1 && repayments.get(0).getEffectiveDate().isEqual(accrual.getEndDate())))
-        accrualSchedule.add(accrual);
-      else {
-        final Currency currency = accrual.getAccrualAmount().getCurrency();
-        LocalDate rollingStartDate = accrual.getStartDate();
-        double rollingAmount = accrual.getAccrualAmount().getAmount();
-
-        // Partition the repayments by interest-on-paydown flag.
-        Map<Boolean, List<Repayment>> partitionedRepayments = repayments
-            .stream()
-            .collect(Collectors.partitioningBy(repayment -> repayment.isInterestOnPaydown()));
-
-        // First pass handles repayments with interest to get accrual explains correct.
-        for (Repayment repayment : partitionedRepayments.get(true)) {
-          accrualSchedule.add(accrual.rebuild(accrual.getStartDate(), repayment.getEffectiveDate(),
-              repayment.getAmount(), repayment.getEffectiveDate()));
-          rollingAmount -= repayment.getAmount().getAmount();
-        }
-
-        // Second pass handles remaining repayments.
-        for (Repayment repayment : partitionedRepayments.get(false)) {
-          accrualSchedule.add(accrual.rebuild(rollingStartDate, repayment.getEffectiveDate(),
-              CurrencyAmount.of(currency, rollingAmount), null));
-          rollingStartDate = repayment.getEffectiveDate();
-          rollingAmount -= repayment.getAmount().getAmount();
-        }
-
-        // Handle last sub-accrual if residual.
-        if (rollingStartDate.isBefore(accrual.getEndDate()) && rollingAmount > 0)
-          accrualSchedule.add(accrual.rebuild(rollingStartDate, accrual.getEndDate(),
-              CurrencyAmount.of(currency, rollingAmount), null));
-      }
-    }
+    for (int i = 0; i < schedule.size(); i++)
+      accruals.add(schedule.get(i));
 
-    return accrualSchedule;
+    return accruals.build();
   }
 
   /**
@@ -244,35 +196,27 @@ public final class Helper {
           "assumed commitment fee " + fee.getId() + " amount " + accrual.getAccrualAmount() + " does not equal unfunded amount " +
               loan.getUnfundedAmount(accrual.getStartDate()) + " as of start date " + accrual.getStartDate());
 
-    Set<LocalDate> dates = new HashSet<LocalDate>();
-
-    dates.addAll(loan.getEvents()
-        .stream()
-        .map(event -> event.getEffectiveDate())
-        .filter(date -> date.isAfter(accrual.getStartDate()) && date.isBefore(accrual.getEndDate()))
-        .collect(Collectors.toList()));
-
-    for (LoanContract contract : loan.getContracts())
-      dates.addAll(contract.getEvents()
-          .stream()
-          .map(event -> event.getEffectiveDate())
-          .filter(date -> date.isAfter(accrual.getStartDate()) && date.isBefore(accrual.getEndDate()))
-          .collect(Collectors.toList()));
+    // One ordered sweep over the event dates strictly within the accrual, unfunded amounts are looked
+    // up in the facility's precomputed unfunded profile.
+    final Currency currency = accrual.getAccrualAmount().getCurrency();
+    final SortedSet<LocalDate> dates = loan.getEventDates().subSet(accrual.getStartDate(), false,
+        accrual.getEndDate(), false);
 
     if (dates.isEmpty())
       accrualSchedule.add(accrual);
     else {
       LocalDate startDate = accrual.getStartDate();
       for (LocalDate endDate : dates) {
-        accrualSchedule.add(accrual.rebuild(startDate, endDate, CurrencyAmount.of(accrual.getAccrualAmount().getCurrency(),
-            loan.getUnfundedAmount(startDate).getAmount()), null));
+        accrualSchedule.add(accrual.rebuild(startDate, endDate,
+            CurrencyAmount.of(currency, loan.getUnfundedAmount(startDate).getAmount()), null));
         startDate = endDate;
       }
 
-      if (loan.getUnfundedAmount(startDate).getAmount() > EPSILON_1)
-        accrualSchedule
-            .add(accrual.rebuild(startDate, accrual.getEndDate(), CurrencyAmount.of(accrual.getAccrualAmount().getCurrency(),
-                loan.getUnfundedAmount(startDate).getAmount()), null));
+      final double amount = loan.getUnfundedAmount(startDate).getAmount();
+
+      if (amount > EPSILON_1)
+        accrualSchedule.add(accrual.rebuild(startDate, accrual.getEndDate(), CurrencyAmount.of(currency, amount),
+            null));
     }
 
     return accrualSchedule;
@@ -294,11 +238,27 @@ public final class Helper {
       LocalDate commitmentAmountStartDate,
       double commitmentAmount,
       List<LoanContract> contracts, List<FacilityEvent> events) {
-    List<LocalDate> dates = new ArrayList<LocalDate>();
-    List<Double> values = new ArrayList<Double>();
+    return applyCommitmentSteps(LocalDateDoubleTimeSeries.of(commitmentAmountStartDate, commitmentAmount),
+        generateCommitmentSteps(facilityType, contracts, events));
+  }
 
-    dates.add(commitmentAmountStartDate);
-    values.add(commitmentAmount);
+  /**
+   * Generate the ordered changes in total commitment implied by a set of contracts and facility
+   * events. Each step is an effective date and the amount by which commitment changes from that
+   * date on; steps of zero amount mark event dates which do not change commitment.
+   * <p>
+   * Steps are additive, so the commitment schedule of a facility may be updated for new or changed
+   * contracts and events by applying only their steps, see {@link #applyCommitmentSteps}.
+   * 
+   * @param facilityType type of facility
+   * @param contracts list of contracts
+   * @param events list of facility events
+   * @return ordered list of commitment steps
+   */
+  static public List<Pair<LocalDate, Double>> generateCommitmentSteps(FacilityType facilityType,
+      List<LoanContract> contracts, List<FacilityEvent> events) {
+    List<Pair<LocalDate, Double>> steps = new ArrayList<Pair<LocalDate, Double>>();
+    List<Pair<LocalDate, Double>> pikSteps = new ArrayList<Pair<LocalDate, Double>>();
 
     if (facilityType != Revolving) {
       for (LoanContract contract : contracts) {
@@ -317,25 +277,17 @@ public final class Helper {
                       contract.getAccrual().getPikSpread() * pikContractAmount;
             }
 
-            int i = Collections.binarySearch(dates, event.getEffectiveDate());
-
-            if (i < 0) {
-              i = -(i + 1);
-              dates.add(i, event.getEffectiveDate());
-              values.add(i, values.get(i - 1));
-            }
-
             switch (event.getType()) {
               case BorrowingEvent:
                 pikContractAmount += event.getAmount().getAmount();
-                for (int j = i; j < values.size(); j++)
-                  values.set(j, values.get(j) + event.getAmount().getAmount());
+                steps.add(Pair.of(event.getEffectiveDate(), event.getAmount().getAmount()));
                 break;
               case RepaymentEvent:
                 pikContractAmount -= event.getAmount().getAmount();
-                for (int j = i; j < values.size(); j++)
-                  values.set(j, values.get(j) - event.getAmount().getAmount());
+                steps.add(Pair.of(event.getEffectiveDate(), -event.getAmount().getAmount()));
                 break;
+              default:
+                steps.add(Pair.of(event.getEffectiveDate(), 0.0));
             }
 
             if (piking) {
@@ -351,40 +303,57 @@ public final class Helper {
                   contract.getAccrual().getPikSpread() *
                   pikContractAmount;
 
-          CommitmentAdjustment pikAdjustment = CommitmentAdjustment.builder()
-              .amount(CurrencyAmount.of(contract.getAccrual().getAccrualAmount().getCurrency(), pikInterest))
-              .effectiveDate(contract.getPaymentDate())
-              .pik(true)
-              .build();
-
-          if (events == null)
-            events = new ArrayList<FacilityEvent>();
-
-          events.add(pikAdjustment);
+          pikSteps.add(Pair.of(contract.getPaymentDate(), pikInterest));
         }
       }
     }
 
     if (events != null) {
       for (FacilityEvent event : events) {
-        int i = Collections.binarySearch(dates, event.getEffectiveDate());
-
-        if (i < 0) {
-          i = -(i + 1);
-          dates.add(i, event.getEffectiveDate());
-          values.add(i, values.get(i - 1));
-        }
-
         switch (event.getType()) {
           case CommitmentAdjustmentEvent:
             CommitmentAdjustment adjustment = (CommitmentAdjustment) event;
-            for (int j = i; j < values.size(); j++)
-              values.set(j, values.get(j) + adjustment.getAmount().getAmount());
+            steps.add(Pair.of(event.getEffectiveDate(), adjustment.getAmount().getAmount()));
             break;
+          default:
+            steps.add(Pair.of(event.getEffectiveDate(), 0.0));
         }
       }
     }
 
+    // PIK capitalization adjustments follow all given facility events.
+    steps.addAll(pikSteps);
+
+    return steps;
+  }
+
+  /**
+   * Apply commitment steps, in order, to a commitment schedule. Dates not already in the schedule
+   * take the commitment of the preceding date before the step is applied.
+   * 
+   * @param schedule commitment schedule
+   * @param steps ordered list of effective dates and commitment changes
+   * @return updated commitment schedule
+   */
+  static public LocalDateDoubleTimeSeries applyCommitmentSteps(LocalDateDoubleTimeSeries schedule,
+      List<Pair<LocalDate, Double>> steps) {
+    List<LocalDate> dates = schedule.dates().collect(Collectors.toCollection(ArrayList::new));
+    List<Double> values = schedule.values().boxed().collect(Collectors.toCollection(ArrayList::new));
+
+    for (Pair<LocalDate, Double> step : steps) {
+      int i = Collections.binarySearch(dates, step.getFirst());
+
+      if (i < 0) {
+        i = -(i + 1);
+        dates.add(i, step.getFirst());
+        values.add(i, values.get(i - 1));
+      }
+
+      if (step.getSecond() != 0)
+        for (int j = i; j < values.size(); j++)
+          values.set(j, values.get(j) + step.getSecond());
+    }
+
     return LocalDateDoubleTimeSeries.builder().putAll(dates, values).build();
   }
 
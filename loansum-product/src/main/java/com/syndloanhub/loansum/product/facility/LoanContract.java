@@ -11,7 +11,6 @@
 package com.syndloanhub.loansum.product.facility;
 
 import static com.syndloanhub.loansum.product.facility.Helper.intersection;
-import static com.syndloanhub.loansum.product.facility.Helper.generateContractAccrualSchedule;
 import java.time.LocalDate;
 
 import org.joda.beans.ImmutableBean;
@@ -20,7 +19,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Random;
-import java.util.stream.Collectors;
 
 import org.joda.beans.Bean;
 import org.joda.beans.JodaBeanUtils;
@@ -33,7 +31,10 @@ import org.joda.beans.impl.direct.DirectMetaPropertyMap;
 import com.google.common.collect.ImmutableList;
 
 import com.opengamma.strata.basics.StandardId;
+import com.opengamma.strata.basics.currency.CurrencyAmount;
 import com.opengamma.strata.collect.ArgChecker;
+import com.opengamma.strata.collect.Guavate;
+import com.opengamma.strata.collect.timeseries.LocalDateDoubleTimeSeries;
 import com.opengamma.strata.collect.tuple.Pair;
 import com.opengamma.strata.product.ProductTrade;
 import com.opengamma.strata.product.TradeInfo;
@@ -77,64 +78,79 @@ public final class LoanContract implements ImmutableBean, Proratable<ProratedLoa
     final boolean delayedSettlement =
         loanTrade.isDelayedCompensationFlag() && actualSettlementDate.isAfter(loanTrade.getExpectedSettlementDate());
 
-    /*
-     * Expand accrual into sub-accruals based on contract events
-     * and then prorate accruals.
-     */
-    List<ProratedAccrual> proratedAccrualSchedule = new ArrayList<ProratedAccrual>();
+    // Prorate contract events.
+    final List<ProratedLoanContractEvent> proratedEvents = tradeDate.isBefore(accrual.getEndDate()) ?
+        events.stream().map(event -> event.prorate(trade)).collect(Guavate.toImmutableList()) : ImmutableList.of();
+
+    // Return prorated contract, its sub-accruals generated when first needed. A contract ending before
+    // settlement, or before expected settlement if delayed, has none.
+    if (!accrual.getEndDate().isAfter(delayedSettlement ? loanTrade.getExpectedSettlementDate() : actualSettlementDate))
+      return ProratedLoanContract.of(id, accrual.prorate(trade), paymentDate, proratedEvents, ImmutableList.of());
+
+    // The generator holds only what proration needs, not the trade and its facility.
+    final LocalDateDoubleTimeSeries pctShare = loanTrade.getPctShare();
+    final LocalDate expectedSettlementDate = delayedSettlement ? loanTrade.getExpectedSettlementDate() : null;
 
-    for (Accrual accrual : generateContractAccrualSchedule(this)) {
-      Pair<LocalDate, LocalDate> accrualPeriod = Pair.of(accrual.getStartDate(), accrual.getEndDate());
-      boolean isPikAccrual = accrual.getPikSpread() > 0;
+    return ProratedLoanContract.of(id, accrual.prorate(trade), paymentDate, proratedEvents,
+        () -> prorateAccrualSchedule(pctShare, tradeDate, actualSettlementDate, expectedSettlementDate));
+  }
+
+  /**
+   * Expand accrual into sub-accruals based on contract events and then prorate accruals.
+   * 
+   * @param pctShare prorated share of global facility
+   * @param tradeDate trade date
+   * @param actualSettlementDate actual settlement date
+   * @param expectedSettlementDate expected settlement date if settlement is delayed, otherwise null
+   * @return prorated sub-accruals
+   */
+  private List<ProratedAccrual> prorateAccrualSchedule(LocalDateDoubleTimeSeries pctShare, LocalDate tradeDate,
+      LocalDate actualSettlementDate, LocalDate expectedSettlementDate) {
+    final boolean delayedSettlement = expectedSettlementDate != null;
+    final List<ProratedAccrual> proratedAccrualSchedule = new ArrayList<ProratedAccrual>();
+    final ContractAccrualSchedule schedule = ContractAccrualSchedule.of(this);
+
+    for (int i = 0; i < schedule.size(); i++) {
+      final Accrual base = schedule.getAccrual(i);
+      final LocalDate startDate = schedule.getStartDate(i);
+      final LocalDate endDate = schedule.getEndDate(i);
+      final CurrencyAmount amount = schedule.getAccrualAmount(i);
+      Pair<LocalDate, LocalDate> accrualPeriod = Pair.of(startDate, endDate);
+      boolean isPikAccrual = base.getPikSpread() > 0;
       boolean accrualProrated = false;
 
       // If delayed settlement and accrual spans the settlement period then
       // create separate accruals for delayed compensation and interest.
       if (delayedSettlement && !isPikAccrual) {
         Pair<LocalDate, LocalDate> settlementPeriod =
-            Pair.of(loanTrade.getExpectedSettlementDate(), actualSettlementDate);
+            Pair.of(expectedSettlementDate, actualSettlementDate);
         Pair<LocalDate, LocalDate> intersection = intersection(accrualPeriod, settlementPeriod);
 
         if (intersection != null) {
-          proratedAccrualSchedule.add(accrual.rebuild(intersection.getFirst(), intersection.getSecond(),
-              accrual.getAccrualAmount(), null).prorate(trade));
+          proratedAccrualSchedule.add(base.rebuild(intersection.getFirst(), intersection.getSecond(),
+              amount, null).prorate(pctShare, tradeDate));
 
-          if (accrual.getEndDate().isAfter(actualSettlementDate))
-            proratedAccrualSchedule.add(accrual.rebuild(actualSettlementDate,
-                accrual.getEndDate(), accrual.getAccrualAmount(), null).prorate(trade));
+          if (endDate.isAfter(actualSettlementDate))
+            proratedAccrualSchedule.add(base.rebuild(actualSettlementDate, endDate, amount, null)
+                .prorate(pctShare, tradeDate));
           accrualProrated = true;
         }
       }
 
+      // Sub-accruals are only built once known to survive settlement, straight from their base accrual
+      // where clipped.
       if (!accrualProrated) {
-        if (accrual.getEndDate().isAfter(actualSettlementDate)) {
-          if (accrual.getStartDate().isBefore(actualSettlementDate) && !isPikAccrual)
-            accrual =
-                accrual.rebuild(actualSettlementDate, accrual.getEndDate(), accrual.getAccrualAmount(), null);
-
-          proratedAccrualSchedule.add(accrual.prorate(trade));
+        if (endDate.isAfter(actualSettlementDate)) {
+          if (startDate.isBefore(actualSettlementDate) && !isPikAccrual)
+            proratedAccrualSchedule.add(base.rebuild(actualSettlementDate, endDate, amount, null)
+                .prorate(pctShare, tradeDate));
+          else
+            proratedAccrualSchedule.add(schedule.get(i).prorate(pctShare, tradeDate));
         }
       }
     }
 
-    // Prorate contract events.
-    List<ProratedLoanContractEvent> proratedEvents = new ArrayList<ProratedLoanContractEvent>();
-
-    if (tradeDate.isBefore(accrual.getEndDate())) {
-      proratedEvents = events
-          .stream()
-          .map(event -> event.prorate(trade))
-          .collect(Collectors.toList());
-    }
-
-    // Return prorated contract.
-    return ProratedLoanContract.builder()
-        .id(id)
-        .accrualSchedule(proratedAccrualSchedule)
-        .accrual(accrual.prorate(trade))
-        .paymentDate(paymentDate)
-        .events(proratedEvents)
-        .build();
+    return proratedAccrualSchedule;
   }
 
   /**
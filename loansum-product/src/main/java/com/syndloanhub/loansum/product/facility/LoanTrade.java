@@ -13,8 +13,11 @@ package com.syndloanhub.loansum.product.facility;
 import static com.syndloanhub.loansum.product.facility.FacilityType.Term;
 import static com.syndloanhub.loansum.product.facility.LoanTradingType.Secondary;
 import java.time.LocalDate;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
 
 import org.joda.beans.ImmutableBean;
 import org.joda.beans.JodaBeanUtils;
@@ -23,6 +26,8 @@ import org.joda.beans.impl.direct.DirectFieldsBeanBuilder;
 import org.joda.beans.impl.direct.DirectMetaBean;
 import org.joda.beans.impl.direct.DirectMetaPropertyMap;
 
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.opengamma.strata.basics.StandardId;
 import com.opengamma.strata.basics.currency.Currency;
 import com.opengamma.strata.collect.ArgChecker;
@@ -31,6 +36,7 @@ import com.opengamma.strata.collect.timeseries.LocalDateDoubleTimeSeriesBuilder;
 import com.opengamma.strata.product.ProductTrade;
 import com.opengamma.strata.product.TradeInfo;
 import com.opengamma.strata.product.common.BuySell;
+import com.syndloanhub.loansum.product.facility.prorated.ProratedLoanContract;
 import com.syndloanhub.loansum.product.facility.prorated.ProratedLoanTrade;
 
 import org.joda.beans.Bean;
@@ -60,6 +66,52 @@ public final class LoanTrade implements ProductTrade, Proratable<ProratedLoanTra
   public ProratedLoanTrade prorate(ProductTrade trade) {
     assert (trade == null || trade == this);
 
+    return prorate(Optional.empty(), ImmutableSet.of());
+  }
+
+  /**
+   * Prorate this trade after a delta has been applied to its facility, reusing the prorated contracts
+   * of a previous proration which the delta did not add or change. This trade must reference the
+   * updated facility but otherwise be the trade from which the previous proration was produced.
+   * <p>
+   * Contracts are only reused when the pct share and adjusted amount of the trade are unaffected
+   * by the delta; a commitment adjustment which changes pct share forces a full proration.
+   * 
+   * @param previous proration of this trade prior to the delta
+   * @param delta changes applied to the facility
+   * @return prorated trade
+   */
+  public ProratedLoanTrade prorate(ProratedLoanTrade previous, FacilityDelta delta) {
+    ArgChecker.isTrue(previous.getProduct().getId().equals(getProduct().getId()),
+        "Previous proration of facility {} cannot be reused for facility {}", previous.getProduct().getId(),
+        getProduct().getId());
+
+    return prorate(Optional.of(previous), delta.getContractIds());
+  }
+
+  /**
+   * Prorate this trade as a net position whose share of the facility is a given series rather than
+   * the series implied by its amount. The facility is prorated once with the series, see
+   * {@link LoanTradeList#netPositions(LocalDate)}.
+   * 
+   * @param netPctShare net series of prorated share of global facility, from trade date
+   * @return prorated net position
+   */
+  ProratedLoanTrade prorateNetPosition(LocalDateDoubleTimeSeries netPctShare) {
+    final LoanTrade position = new LoanTrade(info, product, buySell, buyer, seller, amount, currency, price,
+        expectedSettlementDate, delayedCompensationFlag, association, formOfPurchase, documentationType, tradeType,
+        whenIssuedFlag, commitmentReductionCreditFlag, false, false, accrualSettlementType, averageLibor, netPctShare);
+
+    return position.prorated(position, ImmutableMap.of());
+  }
+
+  /**
+   * Build the penultimate trade used to prorate the facility, i.e. this trade with its amount adjusted
+   * for any repayment or commitment adjustment on trade date.
+   * 
+   * @return penultimate trade
+   */
+  LoanTrade penultimateTrade() {
     // Adjust trade amount if necessary due to trade date repayment or adjustment.
 
     double adjustedAmount = getAmount();
@@ -74,9 +126,7 @@ public final class LoanTrade implements ProductTrade, Proratable<ProratedLoanTra
         adjustedAmount *= commitmentOnTrade / commitmentBeforeTrade;
     }
 
-    // Build penultimate trade used to prorate penultimate loan.
-
-    LoanTrade penultimateTrade = LoanTrade.builder()
+    return LoanTrade.builder()
         .accrualSettlementType(accrualSettlementType)
         .amount(adjustedAmount)
         .association(association)
@@ -96,9 +146,44 @@ public final class LoanTrade implements ProductTrade, Proratable<ProratedLoanTra
         .product(loan)
         .tradeType(tradeType)
         .build();
+  }
+
+  /**
+   * Prorate this trade, optionally reusing contracts from a previous proration.
+   * 
+   * @param previous optional previous proration
+   * @param changedContracts ids of contracts which may not be reused
+   * @return prorated trade
+   */
+  private ProratedLoanTrade prorate(Optional<ProratedLoanTrade> previous, Set<StandardId> changedContracts) {
+    // Build penultimate trade used to prorate penultimate loan.
+
+    final LoanTrade penultimateTrade = penultimateTrade();
+    final double adjustedAmount = penultimateTrade.getAmount();
 
-    // Return final trade with prorated loan.
+    // Reuse unchanged prorated contracts if the share of the facility is unchanged.
 
+    Map<StandardId, ProratedLoanContract> proratedContracts = new HashMap<StandardId, ProratedLoanContract>();
+
+    if (previous.isPresent() && previous.get().getInfo().equals(info) && previous.get().getAmount() == adjustedAmount &&
+        previous.get().getPctShare().equals(penultimateTrade.getPctShare())) {
+      for (ProratedLoanContract contract : previous.get().getProduct().getContracts())
+        if (!changedContracts.contains(contract.getId()))
+          proratedContracts.put(contract.getId(), contract);
+    }
+
+    return prorated(penultimateTrade, proratedContracts);
+  }
+
+  /**
+   * Build the final trade with prorated loan.
+   * 
+   * @param penultimateTrade trade used to prorate the facility
+   * @param proratedContracts prorated contracts, by id, known to be unaffected by the trade
+   * @return prorated trade
+   */
+  private ProratedLoanTrade prorated(LoanTrade penultimateTrade,
+      Map<StandardId, ProratedLoanContract> proratedContracts) {
     return ProratedLoanTrade.builder()
         .accrualSettlementType(accrualSettlementType)
         .association(association)
@@ -110,7 +195,7 @@ public final class LoanTrade implements ProductTrade, Proratable<ProratedLoanTra
         .currency(currency)
         .paydownOnTradeDate(paydownOnTradeDate)
         .buySell(buySell)
-        .amount(adjustedAmount)
+        .amount(penultimateTrade.getAmount())
         .originalAmount(amount)
         .price(price)
         .expectedSettlementDate(expectedSettlementDate)
@@ -118,7 +203,7 @@ public final class LoanTrade implements ProductTrade, Proratable<ProratedLoanTra
         .averageLibor(averageLibor)
         .tradeType(tradeType)
         .info(info)
-        .product(loan.prorate(penultimateTrade))
+        .product(product.prorate(penultimateTrade, proratedContracts))
         .pctShare(penultimateTrade.getPctShare())
         .build();
   }
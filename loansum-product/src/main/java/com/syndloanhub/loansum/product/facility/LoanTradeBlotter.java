@@ -0,0 +1,239 @@
+/**
+ * Copyright (c) 2018 SyndLoanHub, LLC and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License from within this distribution and at:
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.syndloanhub.loansum.product.facility;
+
+import static com.syndloanhub.loansum.product.facility.LoanTradingAccrualSettlement.SettledWithoutAccrued;
+import static com.syndloanhub.loansum.product.facility.LoanTradingAssoc.LSTA;
+import static com.syndloanhub.loansum.product.facility.LoanTradingDocType.Par;
+import static com.syndloanhub.loansum.product.facility.LoanTradingFormOfPurchase.Assignment;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableMap;
+import com.opengamma.strata.basics.StandardId;
+import com.opengamma.strata.collect.ArgChecker;
+import com.opengamma.strata.collect.Guavate;
+import com.opengamma.strata.product.TradeInfo;
+import com.opengamma.strata.product.common.BuySell;
+
+/**
+ * Streaming reader of trade blotters, comma-separated files of one trade per row with columns
+ * {@code Deal Number}, {@code Child}, {@code Deal Date}, {@code Legal Settlement Date},
+ * {@code Actual Settlement Date}, {@code Dealt Price} in percent and {@code Dealt Total Commitments}, positive
+ * for a buy and negative for a sell. Dates are ISO or day/month/year. An optional {@code Facility} column holds
+ * the facility identifier of each row, otherwise all rows are of one facility given by the caller. Facilities
+ * are looked up in a registry.
+ * <p>
+ * Rows are parsed one at a time as the returned stream is consumed, so memory does not grow with the size of
+ * the blotter. Trades are LSTA par assignments settled without accrued, between the holder and a seller for
+ * buys or a buyer for sells. Quoted fields are not supported.
+ */
+public final class LoanTradeBlotter {
+
+  private static final String DEAL_NUMBER = "Deal Number";
+  private static final String CHILD = "Child";
+  private static final String DEAL_DATE = "Deal Date";
+  private static final String LEGAL_SETTLEMENT_DATE = "Legal Settlement Date";
+  private static final String ACTUAL_SETTLEMENT_DATE = "Actual Settlement Date";
+  private static final String DEALT_PRICE = "Dealt Price";
+  private static final String DEALT_TOTAL_COMMITMENTS = "Dealt Total Commitments";
+  private static final String FACILITY = "Facility";
+
+  private static final DateTimeFormatter DAY_MONTH_YEAR = DateTimeFormatter.ofPattern("d/M/yyyy");
+
+  private final Map<StandardId, Facility> facilities;
+  private final StandardId holder;
+  private final StandardId seller;
+  private final StandardId buyer;
+
+  /**
+   * Create a blotter reader.
+   * 
+   * @param facilities facility registry by identifier
+   * @param holder counterparty whose blotter is read
+   * @param seller counterparty selling to the holder
+   * @param buyer counterparty buying from the holder
+   */
+  public LoanTradeBlotter(Map<StandardId, Facility> facilities, StandardId holder, StandardId seller,
+      StandardId buyer) {
+    this.facilities = ImmutableMap.copyOf(ArgChecker.notNull(facilities, "facilities"));
+    this.holder = ArgChecker.notNull(holder, "holder");
+    this.seller = ArgChecker.notNull(seller, "seller");
+    this.buyer = ArgChecker.notNull(buyer, "buyer");
+  }
+
+  /**
+   * Create a blotter reader of a set of facilities, held by {@code cpty~SELF} and traded with
+   * {@code cpty~SELLER} and {@code cpty~BUYER}.
+   * 
+   * @param facilities the facilities
+   * @return blotter reader
+   */
+  public static LoanTradeBlotter of(Collection<Facility> facilities) {
+    return new LoanTradeBlotter(facilities.stream().collect(Guavate.toImmutableMap(Facility::getId)),
+        StandardId.of("cpty", "SELF"), StandardId.of("cpty", "SELLER"), StandardId.of("cpty", "BUYER"));
+  }
+
+  /**
+   * Create a blotter reader of facilities, held by {@code cpty~SELF} and traded with {@code cpty~SELLER}
+   * and {@code cpty~BUYER}.
+   * 
+   * @param facilities the facilities
+   * @return blotter reader
+   */
+  public static LoanTradeBlotter of(Facility... facilities) {
+    return of(Arrays.asList(facilities));
+  }
+
+  /**
+   * Return a lazy sequential stream of the trades of a blotter. The reader is consumed as the stream is and
+   * remains owned by the caller.
+   * 
+   * @param reader blotter, starting with its header row
+   * @param facility facility of rows without a facility column, may be null if the blotter has one
+   * @return trades in blotter order
+   * @throws IllegalArgumentException if the header lacks a column, or when consumed if a row is invalid
+   */
+  public Stream<LoanTrade> trades(BufferedReader reader, StandardId facility) {
+    final Rows rows = new Rows(reader, facility);
+
+    return StreamSupport.stream(
+        Spliterators.spliteratorUnknownSize(rows, Spliterator.ORDERED | Spliterator.NONNULL), false);
+  }
+
+  /**
+   * Iterator over the rows of a blotter, converting each to a trade.
+   */
+  private final class Rows extends AbstractIterator<LoanTrade> {
+    private final BufferedReader reader;
+    private final StandardId facility;
+    private final int[] columns;
+    private final int facilityColumn;
+    private int line = 1;
+
+    private Rows(BufferedReader reader, StandardId facility) {
+      this.reader = ArgChecker.notNull(reader, "reader");
+      this.facility = facility;
+
+      final String header = readLine();
+      ArgChecker.isTrue(header != null, "blotter has no header");
+
+      final List<String> names = Arrays.asList(header.trim().split("\\s*,\\s*"));
+
+      columns = Stream.of(DEAL_NUMBER, CHILD, DEAL_DATE, LEGAL_SETTLEMENT_DATE, ACTUAL_SETTLEMENT_DATE, DEALT_PRICE,
+          DEALT_TOTAL_COMMITMENTS).mapToInt(name -> {
+            final int column = names.indexOf(name);
+            ArgChecker.isTrue(column >= 0, "blotter has no {} column", name);
+            return column;
+          }).toArray();
+      facilityColumn = names.indexOf(FACILITY);
+
+      ArgChecker.isTrue(facilityColumn >= 0 || facility != null, "blotter has no {} column and no facility given",
+          FACILITY);
+    }
+
+    @Override
+    protected LoanTrade computeNext() {
+      String row;
+
+      do {
+        row = readLine();
+        line++;
+      } while (row != null && row.trim().isEmpty());
+
+      if (row == null)
+        return endOfData();
+
+      try {
+        return trade(row.split(",", -1));
+      } catch (RuntimeException exc) {
+        throw new IllegalArgumentException("Invalid blotter row " + line + ": " + exc.getMessage(), exc);
+      }
+    }
+
+    /**
+     * @param fields fields of a row
+     * @return trade of the row
+     */
+    private LoanTrade trade(String[] fields) {
+      final String dealNumber = field(fields, 0);
+      final StandardId facilityId = facilityColumn < 0 ? facility : StandardId.parse(fields[facilityColumn].trim());
+      final Facility product = facilities.get(facilityId);
+      final double amount = Double.parseDouble(field(fields, 6));
+
+      ArgChecker.isTrue(product != null, "unknown facility {}", facilityId);
+
+      return LoanTrade.builder()
+          .product(product)
+          .info(TradeInfo.builder()
+              .tradeDate(date(field(fields, 2)))
+              .settlementDate(date(field(fields, 4)))
+              .id(StandardId.of("trade", dealNumber + "." + field(fields, 1)))
+              .build())
+          .buyer(amount < 0 ? buyer : holder)
+          .seller(amount > 0 ? seller : holder)
+          .amount(Math.abs(amount))
+          .price(Double.parseDouble(field(fields, 5)) / 100)
+          .expectedSettlementDate(date(field(fields, 3)))
+          .buySell(amount > 0 ? BuySell.BUY : BuySell.SELL)
+          .accrualSettlementType(SettledWithoutAccrued)
+          .association(LSTA)
+          .commitmentReductionCreditFlag(true)
+          .currency(product.getOriginalCommitmentAmount().getCurrency())
+          .delayedCompensationFlag(true)
+          .documentationType(Par)
+          .formOfPurchase(Assignment)
+          .paydownOnTradeDate(false)
+          .build();
+    }
+
+    /**
+     * @param fields fields of a row
+     * @param column index into required columns
+     * @return trimmed field
+     */
+    private String field(String[] fields, int column) {
+      ArgChecker.isTrue(columns[column] < fields.length, "missing field {}", columns[column] + 1);
+      return fields[columns[column]].trim();
+    }
+
+    private String readLine() {
+      try {
+        return reader.readLine();
+      } catch (IOException exc) {
+        throw new UncheckedIOException(exc);
+      }
+    }
+  }
+
+  /**
+   * @param date ISO or day/month/year date
+   * @return parsed date
+   * @throws DateTimeParseException if neither
+   */
+  private static LocalDate date(String date) {
+    return date.indexOf('/') >= 0 ? LocalDate.parse(date, DAY_MONTH_YEAR) : LocalDate.parse(date);
+  }
+}
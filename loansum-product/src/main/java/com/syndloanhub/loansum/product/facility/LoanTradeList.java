@@ -10,9 +10,18 @@
 
 package com.syndloanhub.loansum.product.facility;
 
+import static com.syndloanhub.loansum.product.facility.Helper.EPSILON_1;
+import static com.syndloanhub.loansum.product.facility.Helper.tsget;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.SortedSet;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 
 import org.joda.beans.Bean;
@@ -28,7 +37,12 @@ import org.joda.beans.impl.direct.DirectMetaProperty;
 import org.joda.beans.impl.direct.DirectMetaPropertyMap;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.opengamma.strata.collect.timeseries.LocalDateDoubleTimeSeries;
+import com.opengamma.strata.collect.timeseries.LocalDateDoubleTimeSeriesBuilder;
 import com.opengamma.strata.product.ProductTrade;
+import com.opengamma.strata.product.TradeInfo;
+import com.opengamma.strata.product.common.BuySell;
 import com.syndloanhub.loansum.product.facility.prorated.ProratedLoanTrade;
 import com.syndloanhub.loansum.product.facility.prorated.ProratedLoanTradeList;
 
@@ -57,7 +71,114 @@ public final class LoanTradeList implements Proratable<ProratedLoanTradeList>, I
         .build();
   }
 
-  //------------------------- AUTOGENERATED START -------------------------
+  /**
+   * Prorate trades settled on or before a given date as net positions, one per facility, counterparty
+   * pair, form of purchase and settlement date. Buys and sells between the same counterparties offset.
+   * Trades not yet settled are prorated unchanged and fully offset positions are dropped.
+   * <p>
+   * The pct share series of a net position is the signed sum of the pct share series of its trades, with
+   * which the facility is prorated once per position rather than once per trade. A position settles with
+   * its trades and is traded on the latest of their trade dates. Proration is linear in pct share, so the
+   * interest, fee and principal cash flows of a position paid after the given date reconcile, date by date,
+   * to the merged cash flows of its trades. Cash flows paid on or before the given date, including those
+   * exchanged on settlement, are not those of the trades and should be disregarded.
+   * 
+   * @param asOf date on or before which trades must have settled to be netted
+   * @return prorated net positions followed by prorated unsettled trades
+   */
+  public ProratedLoanTradeList netPositions(LocalDate asOf) {
+    final Map<List<Object>, List<LoanTrade>> positions = new LinkedHashMap<List<Object>, List<LoanTrade>>();
+    final List<ProratedLoanTrade> netted = new ArrayList<ProratedLoanTrade>();
+    final List<LoanTrade> unsettled = new ArrayList<LoanTrade>();
+
+    for (LoanTrade trade : trades) {
+      if (trade.getInfo().getSettlementDate().isPresent() && !trade.getInfo().getSettlementDate().get().isAfter(asOf)) {
+        List<Object> key = Arrays.asList(trade.getProduct().getId(),
+            ImmutableSet.of(trade.getBuyer(), trade.getSeller()), trade.getFormOfPurchase(),
+            trade.getInfo().getSettlementDate().get());
+        positions.computeIfAbsent(key, k -> new ArrayList<LoanTrade>()).add(trade);
+      } else
+        unsettled.add(trade);
+    }
+
+    for (List<LoanTrade> position : positions.values()) {
+      final LoanTrade first = position.get(0);
+      final LocalDate tradeDate = position.stream()
+          .map(trade -> trade.getInfo().getTradeDate().get())
+          .max(LocalDate::compareTo)
+          .get();
+      final LocalDate settlementDate = first.getInfo().getSettlementDate().get();
+      final LocalDateDoubleTimeSeries netPctShare = netPctShare(position);
+      final double netAmount =
+          tsget(netPctShare, tradeDate) * first.getProduct().getCommitmentAmount(tradeDate).getAmount();
+
+      if (Math.abs(netAmount) <= EPSILON_1)
+        continue;
+
+      final BuySell buySell = netAmount > 0 ? BuySell.BUY : BuySell.SELL;
+      final boolean swap = buySell != first.getBuySell();
+      final LoanTrade net = LoanTrade.builder()
+          .product(first.getProduct())
+          .info(TradeInfo.builder().tradeDate(tradeDate).settlementDate(settlementDate).build())
+          .buySell(buySell)
+          .buyer(swap ? first.getSeller() : first.getBuyer())
+          .seller(swap ? first.getBuyer() : first.getSeller())
+          .amount(Math.abs(netAmount))
+          .currency(first.getCurrency())
+          .price(first.getPrice())
+          .expectedSettlementDate(settlementDate)
+          .delayedCompensationFlag(false)
+          .association(first.getAssociation())
+          .formOfPurchase(first.getFormOfPurchase())
+          .documentationType(first.getDocumentationType())
+          .tradeType(first.getTradeType())
+          .whenIssuedFlag(first.isWhenIssuedFlag())
+          .accrualSettlementType(first.getAccrualSettlementType())
+          .commitmentReductionCreditFlag(first.isCommitmentReductionCreditFlag())
+          .paydownOnTradeDate(false)
+          .adjustmentOnTradeDate(false)
+          .averageLibor(first.getAverageLibor())
+          .build();
+
+      netted.add(net.prorateNetPosition(buySell.isBuy() ? netPctShare : netPctShare.mapValues(value -> -value)));
+    }
+
+    for (LoanTrade trade : unsettled)
+      netted.add(trade.prorate(null));
+
+    return ProratedLoanTradeList.builder().trades(netted).build();
+  }
+
+  /**
+   * Sum the pct share series of a position's trades, buys less sells, on every date of any of the series.
+   * A trade has no share before its first date.
+   * 
+   * @param position trades of the position
+   * @return net pct share series, from the earliest trade date
+   */
+  private static LocalDateDoubleTimeSeries netPctShare(List<LoanTrade> position) {
+    final List<LocalDateDoubleTimeSeries> pctShares = position.stream()
+        .map(trade -> trade.penultimateTrade().getPctShare())
+        .collect(Collectors.toList());
+    final SortedSet<LocalDate> dates = new TreeSet<LocalDate>();
+    final LocalDateDoubleTimeSeriesBuilder builder = LocalDateDoubleTimeSeries.builder();
+
+    for (LocalDateDoubleTimeSeries pctShare : pctShares)
+      pctShare.dates().forEach(dates::add);
+
+    for (LocalDate date : dates) {
+      double net = 0;
+
+      for (int i = 0; i < position.size(); i++)
+        if (!date.isBefore(pctShares.get(i).getEarliestDate()))
+          net += (position.get(i).getBuySell().isBuy() ? 1 : -1) * tsget(pctShares.get(i), date);
+
+      builder.put(date, net);
+    }
+
+    return builder.build();
+  }
+
   /**
    * The meta-bean for {@code LoanTradeList}.
    * @return the meta-bean, not null
@@ -49,12 +49,8 @@ public class Repayment implements LoanContractEvent, ImmutableBean {
    */
   @Override
   public ProratedLoanContractEvent prorate(ProductTrade trade) {
-    return ProratedRepayment.builder()
-        .amount(amount.multipliedBy(tsget(((LoanTrade) trade).getPctShare(), effectiveDate)))
-        .effectiveDate(effectiveDate)
-        .interestOnPaydown(interestOnPaydown)
-        .price(price)
-        .build();
+    return ProratedRepayment.of(effectiveDate,
+        amount.multipliedBy(tsget(((LoanTrade) trade).getPctShare(), effectiveDate)), interestOnPaydown, price);
   }
 
   /**
@@ -0,0 +1,561 @@
+/**
+ * Copyright (c) 2018 SyndLoanHub, LLC and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License from within this distribution and at:
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.syndloanhub.loansum.product.facility;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.joda.beans.Bean;
+import org.joda.beans.ImmutableBean;
+import org.joda.beans.JodaBeanUtils;
+import org.joda.beans.MetaBean;
+import org.joda.beans.MetaProperty;
+import org.joda.beans.gen.BeanDefinition;
+import org.joda.beans.gen.ImmutableValidator;
+import org.joda.beans.gen.PropertyDefinition;
+import org.joda.beans.impl.direct.DirectFieldsBeanBuilder;
+import org.joda.beans.impl.direct.DirectMetaBean;
+import org.joda.beans.impl.direct.DirectMetaProperty;
+import org.joda.beans.impl.direct.DirectMetaPropertyMap;
+
+import com.google.common.collect.ImmutableList;
+import com.opengamma.strata.basics.currency.Currency;
+import com.opengamma.strata.collect.ArgChecker;
+import com.opengamma.strata.collect.array.DoubleArray;
+
+/**
+ * Settlement amounts of a single trade evaluated over a range of candidate settlement dates.
+ * <p>
+ * Row i of each column holds the value had the trade settled on the i-th settlement date.
+ */
+@BeanDefinition
+public final class SettlementDateSweep implements ImmutableBean {
+
+  /**
+   * The currency of all amounts.
+   */
+  @PropertyDefinition(validate = "notNull")
+  private final Currency currency;
+
+  /**
+   * Candidate settlement dates in ascending order.
+   */
+  @PropertyDefinition(validate = "notNull", builderType = "List<? extends LocalDate>")
+  private final ImmutableList<LocalDate> settlementDates;
+
+  /**
+   * Core purchase price: cost of funded less benefit of unfunded less economic benefit.
+   */
+  @PropertyDefinition(validate = "notNull")
+  private final DoubleArray purchasePrice;
+
+  /**
+   * Delayed compensation paid by seller to buyer.
+   */
+  @PropertyDefinition(validate = "notNull")
+  private final DoubleArray delayedCompensation;
+
+  /**
+   * Cost of carry paid by buyer to seller.
+   */
+  @PropertyDefinition(validate = "notNull")
+  private final DoubleArray costOfCarry;
+
+  /**
+   * Return the number of candidate settlement dates.
+   * 
+   * @return number of rows
+   */
+  public int size() {
+    return settlementDates.size();
+  }
+
+  /**
+   * Validation rules.
+   */
+  @ImmutableValidator
+  private void validate() {
+    ArgChecker.isTrue(purchasePrice.size() == settlementDates.size(), "purchase price size must match settlement dates");
+    ArgChecker.isTrue(delayedCompensation.size() == settlementDates.size(),
+        "delayed compensation size must match settlement dates");
+    ArgChecker.isTrue(costOfCarry.size() == settlementDates.size(), "cost of carry size must match settlement dates");
+  }
+
+  //------------------------- AUTOGENERATED START -------------------------
+  /**
+   * The meta-bean for {@code SettlementDateSweep}.
+   * @return the meta-bean, not null
+   */
+  public static SettlementDateSweep.Meta meta() {
+    return SettlementDateSweep.Meta.INSTANCE;
+  }
+
+  static {
+    MetaBean.register(SettlementDateSweep.Meta.INSTANCE);
+  }
+
+  /**
+   * Returns a builder used to create an instance of the bean.
+   * @return the builder, not null
+   */
+  public static SettlementDateSweep.Builder builder() {
+    return new SettlementDateSweep.Builder();
+  }
+
+  private SettlementDateSweep(
+      Currency currency,
+      List<? extends LocalDate> settlementDates,
+      DoubleArray purchasePrice,
+      DoubleArray delayedCompensation,
+      DoubleArray costOfCarry) {
+    JodaBeanUtils.notNull(currency, "currency");
+    JodaBeanUtils.notNull(settlementDates, "settlementDates");
+    JodaBeanUtils.notNull(purchasePrice, "purchasePrice");
+    JodaBeanUtils.notNull(delayedCompensation, "delayedCompensation");
+    JodaBeanUtils.notNull(costOfCarry, "costOfCarry");
+    this.currency = currency;
+    this.settlementDates = ImmutableList.copyOf(settlementDates);
+    this.purchasePrice = purchasePrice;
+    this.delayedCompensation = delayedCompensation;
+    this.costOfCarry = costOfCarry;
+    validate();
+  }
+
+  @Override
+  public SettlementDateSweep.Meta metaBean() {
+    return SettlementDateSweep.Meta.INSTANCE;
+  }
+
+  //-----------------------------------------------------------------------
+  /**
+   * Gets the currency of all amounts.
+   * @return the value of the property, not null
+   */
+  public Currency getCurrency() {
+    return currency;
+  }
+
+  //-----------------------------------------------------------------------
+  /**
+   * Gets candidate settlement dates in ascending order.
+   * @return the value of the property, not null
+   */
+  public ImmutableList<LocalDate> getSettlementDates() {
+    return settlementDates;
+  }
+
+  //-----------------------------------------------------------------------
+  /**
+   * Gets core purchase price: cost of funded less benefit of unfunded less economic benefit.
+   * @return the value of the property, not null
+   */
+  public DoubleArray getPurchasePrice() {
+    return purchasePrice;
+  }
+
+  //-----------------------------------------------------------------------
+  /**
+   * Gets delayed compensation paid by seller to buyer.
+   * @return the value of the property, not null
+   */
+  public DoubleArray getDelayedCompensation() {
+    return delayedCompensation;
+  }
+
+  //-----------------------------------------------------------------------
+  /**
+   * Gets cost of carry paid by buyer to seller.
+   * @return the value of the property, not null
+   */
+  public DoubleArray getCostOfCarry() {
+    return costOfCarry;
+  }
+
+  //-----------------------------------------------------------------------
+  /**
+   * Returns a builder that allows this bean to be mutated.
+   * @return the mutable builder, not null
+   */
+  public Builder toBuilder() {
+    return new Builder(this);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj == this) {
+      return true;
+    }
+    if (obj != null && obj.getClass() == this.getClass()) {
+      SettlementDateSweep other = (SettlementDateSweep) obj;
+      return JodaBeanUtils.equal(currency, other.currency) &&
+          JodaBeanUtils.equal(settlementDates, other.settlementDates) &&
+          JodaBeanUtils.equal(purchasePrice, other.purchasePrice) &&
+          JodaBeanUtils.equal(delayedCompensation, other.delayedCompensation) &&
+          JodaBeanUtils.equal(costOfCarry, other.costOfCarry);
+    }
+    return false;
+  }
+
+  @Override
+  public int hashCode() {
+    int hash = getClass().hashCode();
+    hash = hash * 31 + JodaBeanUtils.hashCode(currency);
+    hash = hash * 31 + JodaBeanUtils.hashCode(settlementDates);
+    hash = hash * 31 + JodaBeanUtils.hashCode(purchasePrice);
+    hash = hash * 31 + JodaBeanUtils.hashCode(delayedCompensation);
+    hash = hash * 31 + JodaBeanUtils.hashCode(costOfCarry);
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder buf = new StringBuilder(192);
+    buf.append("SettlementDateSweep{");
+    buf.append("currency").append('=').append(currency).append(',').append(' ');
+    buf.append("settlementDates").append('=').append(settlementDates).append(',').append(' ');
+    buf.append("purchasePrice").append('=').append(purchasePrice).append(',').append(' ');
+    buf.append("delayedCompensation").append('=').append(delayedCompensation).append(',').append(' ');
+    buf.append("costOfCarry").append('=').append(JodaBeanUtils.toString(costOfCarry));
+    buf.append('}');
+    return buf.toString();
+  }
+
+  //-----------------------------------------------------------------------
+  /**
+   * The meta-bean for {@code SettlementDateSweep}.
+   */
+  public static final class Meta extends DirectMetaBean {
+    /**
+     * The singleton instance of the meta-bean.
+     */
+    static final Meta INSTANCE = new Meta();
+
+    /**
+     * The meta-property for the {@code currency} property.
+     */
+    private final MetaProperty<Currency> _currency = DirectMetaProperty.ofImmutable(
+        this, "currency", SettlementDateSweep.class, Currency.class);
+    /**
+     * The meta-property for the {@code settlementDates} property.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes" })
+    private final MetaProperty<ImmutableList<LocalDate>> _settlementDates = DirectMetaProperty.ofImmutable(
+        this, "settlementDates", SettlementDateSweep.class, (Class) ImmutableList.class);
+    /**
+     * The meta-property for the {@code purchasePrice} property.
+     */
+    private final MetaProperty<DoubleArray> _purchasePrice = DirectMetaProperty.ofImmutable(
+        this, "purchasePrice", SettlementDateSweep.class, DoubleArray.class);
+    /**
+     * The meta-property for the {@code delayedCompensation} property.
+     */
+    private final MetaProperty<DoubleArray> _delayedCompensation = DirectMetaProperty.ofImmutable(
+        this, "delayedCompensation", SettlementDateSweep.class, DoubleArray.class);
+    /**
+     * The meta-property for the {@code costOfCarry} property.
+     */
+    private final MetaProperty<DoubleArray> _costOfCarry = DirectMetaProperty.ofImmutable(
+        this, "costOfCarry", SettlementDateSweep.class, DoubleArray.class);
+    /**
+     * The meta-properties.
+     */
+    private final Map<String, MetaProperty<?>> _metaPropertyMap$ = new DirectMetaPropertyMap(
+        this, null,
+        "currency",
+        "settlementDates",
+        "purchasePrice",
+        "delayedCompensation",
+        "costOfCarry");
+
+    /**
+     * Restricted constructor.
+     */
+    private Meta() {
+    }
+
+    @Override
+    protected MetaProperty<?> metaPropertyGet(String propertyName) {
+      switch (propertyName.hashCode()) {
+        case 575402001:  // currency
+          return _currency;
+        case -584458532:  // settlementDates
+          return _settlementDates;
+        case -1337740088:  // purchasePrice
+          return _purchasePrice;
+        case 417048284:  // delayedCompensation
+          return _delayedCompensation;
+        case 839381239:  // costOfCarry
+          return _costOfCarry;
+      }
+      return super.metaPropertyGet(propertyName);
+    }
+
+    @Override
+    public SettlementDateSweep.Builder builder() {
+      return new SettlementDateSweep.Builder();
+    }
+
+    @Override
+    public Class<? extends SettlementDateSweep> beanType() {
+      return SettlementDateSweep.class;
+    }
+
+    @Override
+    public Map<String, MetaProperty<?>> metaPropertyMap() {
+      return _metaPropertyMap$;
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * The meta-property for the {@code currency} property.
+     * @return the meta-property, not null
+     */
+    public MetaProperty<Currency> currency() {
+      return _currency;
+    }
+
+    /**
+     * The meta-property for the {@code settlementDates} property.
+     * @return the meta-property, not null
+     */
+    public MetaProperty<ImmutableList<LocalDate>> settlementDates() {
+      return _settlementDates;
+    }
+
+    /**
+     * The meta-property for the {@code purchasePrice} property.
+     * @return the meta-property, not null
+     */
+    public MetaProperty<DoubleArray> purchasePrice() {
+      return _purchasePrice;
+    }
+
+    /**
+     * The meta-property for the {@code delayedCompensation} property.
+     * @return the meta-property, not null
+     */
+    public MetaProperty<DoubleArray> delayedCompensation() {
+      return _delayedCompensation;
+    }
+
+    /**
+     * The meta-property for the {@code costOfCarry} property.
+     * @return the meta-property, not null
+     */
+    public MetaProperty<DoubleArray> costOfCarry() {
+      return _costOfCarry;
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    protected Object propertyGet(Bean bean, String propertyName, boolean quiet) {
+      switch (propertyName.hashCode()) {
+        case 575402001:  // currency
+          return ((SettlementDateSweep) bean).getCurrency();
+        case -584458532:  // settlementDates
+          return ((SettlementDateSweep) bean).getSettlementDates();
+        case -1337740088:  // purchasePrice
+          return ((SettlementDateSweep) bean).getPurchasePrice();
+        case 417048284:  // delayedCompensation
+          return ((SettlementDateSweep) bean).getDelayedCompensation();
+        case 839381239:  // costOfCarry
+          return ((SettlementDateSweep) bean).getCostOfCarry();
+      }
+      return super.propertyGet(bean, propertyName, quiet);
+    }
+
+    @Override
+    protected void propertySet(Bean bean, String propertyName, Object newValue, boolean quiet) {
+      metaProperty(propertyName);
+      if (quiet) {
+        return;
+      }
+      throw new UnsupportedOperationException("Property cannot be written: " + propertyName);
+    }
+
+  }
+
+  //-----------------------------------------------------------------------
+  /**
+   * The bean-builder for {@code SettlementDateSweep}.
+   */
+  public static final class Builder extends DirectFieldsBeanBuilder<SettlementDateSweep> {
+
+    private Currency currency;
+    private List<? extends LocalDate> settlementDates = ImmutableList.of();
+    private DoubleArray purchasePrice;
+    private DoubleArray delayedCompensation;
+    private DoubleArray costOfCarry;
+
+    /**
+     * Restricted constructor.
+     */
+    private Builder() {
+    }
+
+    /**
+     * Restricted copy constructor.
+     * @param beanToCopy  the bean to copy from, not null
+     */
+    private Builder(SettlementDateSweep beanToCopy) {
+      this.currency = beanToCopy.getCurrency();
+      this.settlementDates = beanToCopy.getSettlementDates();
+      this.purchasePrice = beanToCopy.getPurchasePrice();
+      this.delayedCompensation = beanToCopy.getDelayedCompensation();
+      this.costOfCarry = beanToCopy.getCostOfCarry();
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public Object get(String propertyName) {
+      switch (propertyName.hashCode()) {
+        case 575402001:  // currency
+          return currency;
+        case -584458532:  // settlementDates
+          return settlementDates;
+        case -1337740088:  // purchasePrice
+          return purchasePrice;
+        case 417048284:  // delayedCompensation
+          return delayedCompensation;
+        case 839381239:  // costOfCarry
+          return costOfCarry;
+        default:
+          throw new NoSuchElementException("Unknown property: " + propertyName);
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Builder set(String propertyName, Object newValue) {
+      switch (propertyName.hashCode()) {
+        case 575402001:  // currency
+          this.currency = (Currency) newValue;
+          break;
+        case -584458532:  // settlementDates
+          this.settlementDates = (List<? extends LocalDate>) newValue;
+          break;
+        case -1337740088:  // purchasePrice
+          this.purchasePrice = (DoubleArray) newValue;
+          break;
+        case 417048284:  // delayedCompensation
+          this.delayedCompensation = (DoubleArray) newValue;
+          break;
+        case 839381239:  // costOfCarry
+          this.costOfCarry = (DoubleArray) newValue;
+          break;
+        default:
+          throw new NoSuchElementException("Unknown property: " + propertyName);
+      }
+      return this;
+    }
+
+    @Override
+    public Builder set(MetaProperty<?> property, Object value) {
+      super.set(property, value);
+      return this;
+    }
+
+    @Override
+    public SettlementDateSweep build() {
+      return new SettlementDateSweep(
+          currency,
+          settlementDates,
+          purchasePrice,
+          delayedCompensation,
+          costOfCarry);
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Sets the currency of all amounts.
+     * @param currency  the new value, not null
+     * @return this, for chaining, not null
+     */
+    public Builder currency(Currency currency) {
+      JodaBeanUtils.notNull(currency, "currency");
+      this.currency = currency;
+      return this;
+    }
+
+    /**
+     * Sets candidate settlement dates in ascending order.
+     * @param settlementDates  the new value, not null
+     * @return this, for chaining, not null
+     */
+    public Builder settlementDates(List<? extends LocalDate> settlementDates) {
+      JodaBeanUtils.notNull(settlementDates, "settlementDates");
+      this.settlementDates = settlementDates;
+      return this;
+    }
+
+    /**
+     * Sets the {@code settlementDates} property in the builder
+     * from an array of objects.
+     * @param settlementDates  the new value, not null
+     * @return this, for chaining, not null
+     */
+    public Builder settlementDates(LocalDate... settlementDates) {
+      return settlementDates(ImmutableList.copyOf(settlementDates));
+    }
+
+    /**
+     * Sets core purchase price: cost of funded less benefit of unfunded less economic benefit.
+     * @param purchasePrice  the new value, not null
+     * @return this, for chaining, not null
+     */
+    public Builder purchasePrice(DoubleArray purchasePrice) {
+      JodaBeanUtils.notNull(purchasePrice, "purchasePrice");
+      this.purchasePrice = purchasePrice;
+      return this;
+    }
+
+    /**
+     * Sets delayed compensation paid by seller to buyer.
+     * @param delayedCompensation  the new value, not null
+     * @return this, for chaining, not null
+     */
+    public Builder delayedCompensation(DoubleArray delayedCompensation) {
+      JodaBeanUtils.notNull(delayedCompensation, "delayedCompensation");
+      this.delayedCompensation = delayedCompensation;
+      return this;
+    }
+
+    /**
+     * Sets cost of carry paid by buyer to seller.
+     * @param costOfCarry  the new value, not null
+     * @return this, for chaining, not null
+     */
+    public Builder costOfCarry(DoubleArray costOfCarry) {
+      JodaBeanUtils.notNull(costOfCarry, "costOfCarry");
+      this.costOfCarry = costOfCarry;
+      return this;
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public String toString() {
+      StringBuilder buf = new StringBuilder(192);
+      buf.append("SettlementDateSweep.Builder{");
+      buf.append("currency").append('=').append(JodaBeanUtils.toString(currency)).append(',').append(' ');
+      buf.append("settlementDates").append('=').append(JodaBeanUtils.toString(settlementDates)).append(',').append(' ');
+      buf.append("purchasePrice").append('=').append(JodaBeanUtils.toString(purchasePrice)).append(',').append(' ');
+      buf.append("delayedCompensation").append('=').append(JodaBeanUtils.toString(delayedCompensation)).append(',').append(' ');
+      buf.append("costOfCarry").append('=').append(JodaBeanUtils.toString(costOfCarry));
+      buf.append('}');
+      return buf.toString();
+    }
+
+  }
+
+  //-------------------------- AUTOGENERATED END --------------------------
+}
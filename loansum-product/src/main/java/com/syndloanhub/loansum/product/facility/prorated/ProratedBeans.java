@@ -0,0 +1,56 @@
+/**
+ * Copyright (c) 2018 SyndLoanHub, LLC and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License from within this distribution and at:
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.syndloanhub.loansum.product.facility.prorated;
+
+import com.opengamma.strata.basics.currency.CurrencyAmount;
+import com.opengamma.strata.collect.ArgChecker;
+
+/**
+ * Support for the trusted construction path of prorated beans.
+ * <p>
+ * Proration builds prorated beans from facility beans which have already been validated, so the
+ * {@code of} factories used by proration construct directly, skipping builders and copying no list that is
+ * already immutable. Setting system property {@code loansum.prorated.validate} to true also builds each bean
+ * through its builder, so every validation runs again, and checks the trusted bean equals the built one, for
+ * debugging proration.
+ */
+final class ProratedBeans {
+
+  /**
+   * True to also construct through the builders with full validation and check the trusted beans against them.
+   */
+  static final boolean VALIDATE = Boolean.getBoolean("loansum.prorated.validate");
+
+  private ProratedBeans() {
+  }
+
+  /**
+   * Check a bean constructed on the trusted path equals the same bean built with full validation.
+   * 
+   * @param trusted bean constructed directly
+   * @param built the same bean built through its builder
+   */
+  static void check(Object trusted, Object built) {
+    ArgChecker.isTrue(built.equals(trusted), "Trusted construction {} differs from built {}", trusted, built);
+  }
+
+  /**
+   * Projected interest of an accrual, as calculated by accrual pre-build.
+   * 
+   * @param accrualAmount accrual amount
+   * @param rate annual rate
+   * @param yearFraction year fraction of the accrual period
+   * @return projected interest
+   */
+  static CurrencyAmount projection(CurrencyAmount accrualAmount, double rate, double yearFraction) {
+    return CurrencyAmount.of(accrualAmount.getCurrency(), accrualAmount.getAmount() * rate * yearFraction);
+  }
+}
@@ -186,6 +186,50 @@ public final class ProratedFacility implements ProratedProduct, ImmutableBean {
   @PropertyDefinition(validate = "", builderType = "List<? extends ProratedLoanEvent>")
   private final ImmutableList<ProratedLoanEvent> events;
 
+  /**
+   * Trusted construction from a validated facility without going through a builder. Lists are copied only
+   * if not already immutable.
+   * 
+   * @param id facility id
+   * @param borrower borrower id
+   * @param agent agent id
+   * @param facilityType facility type
+   * @param identifiers other identifiers
+   * @param startDate start date
+   * @param maturityDate maturity date
+   * @param currency currency
+   * @param commitment prorated commitment
+   * @param contracts prorated contracts
+   * @param fees prorated fees
+   * @param events prorated events
+   * @return prorated facility
+   */
+  public static ProratedFacility of(StandardId id, StandardId borrower, StandardId agent, FacilityType facilityType,
+      List<? extends StandardId> identifiers, LocalDate startDate, LocalDate maturityDate, Currency currency,
+      LocalDateDoubleTimeSeries commitment, List<? extends ProratedLoanContract> contracts,
+      List<? extends ProratedAccruingFee> fees, List<? extends ProratedLoanEvent> events) {
+    final ProratedFacility facility = new ProratedFacility(id, borrower, agent, facilityType, identifiers, startDate,
+        maturityDate, currency, commitment, contracts, fees, events);
+
+    if (ProratedBeans.VALIDATE)
+      ProratedBeans.check(facility, builder()
+          .id(id)
+          .borrower(borrower)
+          .agent(agent)
+          .facilityType(facilityType)
+          .identifiers(identifiers)
+          .startDate(startDate)
+          .maturityDate(maturityDate)
+          .currency(currency)
+          .commitment(commitment)
+          .contracts(contracts)
+          .fees(fees)
+          .events(events)
+          .build());
+
+    return facility;
+  }
+
   //------------------------- AUTOGENERATED START -------------------------
   /**
    * The meta-bean for {@code ProratedFacility}.
@@ -139,10 +139,53 @@ public final class ProratedFloatingRateAccrual implements ProratedAccrual, Immut
   private static void preBuild(Builder builder) {
     final double yearFraction = builder.dayCount.yearFraction(builder.startDate, builder.endDate);
 
-    builder.paymentProjection(CurrencyAmount.of(builder.accrualAmount.getCurrency(),
-        builder.accrualAmount.getAmount() * builder.allInRate * yearFraction));
-    builder.pikProjection(CurrencyAmount.of(builder.accrualAmount.getCurrency(),
-        builder.accrualAmount.getAmount() * builder.pikSpread * yearFraction));
+    builder.paymentProjection(ProratedBeans.projection(builder.accrualAmount, builder.allInRate, yearFraction));
+    builder.pikProjection(ProratedBeans.projection(builder.accrualAmount, builder.pikSpread, yearFraction));
+  }
+
+  /**
+   * Trusted construction from a validated accrual, calculating projected payment amounts as pre-build
+   * does without going through a builder.
+   * 
+   * @param startDate start date
+   * @param endDate end date
+   * @param paymentDate payment date, may be null
+   * @param allInRate cash rate
+   * @param pikSpread PIK rate
+   * @param accrualAmount prorated accrual amount
+   * @param dayCount day count convention
+   * @param paymentFrequency payment frequency
+   * @param index rate index
+   * @param baseRate base rate
+   * @param spread spread over the index
+   * @return prorated accrual
+   */
+  public static ProratedFloatingRateAccrual of(LocalDate startDate, LocalDate endDate, LocalDate paymentDate,
+      double allInRate, double pikSpread, CurrencyAmount accrualAmount, DayCount dayCount,
+      Frequency paymentFrequency,
+      RateIndex index, double baseRate, double spread) {
+    final double yearFraction = dayCount.yearFraction(startDate, endDate);
+    final ProratedFloatingRateAccrual accrual = new ProratedFloatingRateAccrual(startDate, endDate, paymentDate,
+        allInRate, pikSpread, accrualAmount, dayCount, paymentFrequency,
+        ProratedBeans.projection(accrualAmount, allInRate, yearFraction),
+        ProratedBeans.projection(accrualAmount, pikSpread, yearFraction), index, baseRate, spread);
+
+    if (ProratedBeans.VALIDATE)
+      ProratedBeans.check(accrual, builder()
+          .startDate(startDate)
+          .endDate(endDate)
+          .paymentDate(paymentDate)
+          .allInRate(allInRate)
+          .pikSpread(pikSpread)
+          .accrualAmount(accrualAmount)
+          .dayCount(dayCount)
+          .paymentFrequency(paymentFrequency)
+          .index(index)
+          .baseRate(baseRate)
+          .spread(spread)
+          .build());
+
+    return accrual;
   }
 
   //------------------------- AUTOGENERATED START -------------------------
@@ -12,12 +12,14 @@ package com.syndloanhub.loansum.product.facility.prorated;
 
 import org.joda.beans.ImmutableBean;
 
+import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableList;
 import com.opengamma.strata.basics.StandardId;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.function.Supplier;
 import org.joda.beans.JodaBeanUtils;
 import org.joda.beans.MetaProperty;
 import org.joda.beans.impl.direct.DirectFieldsBeanBuilder;
@@ -66,10 +68,130 @@ public final class ProratedLoanContract implements ImmutableBean {
 
   /**
    * Normalized set of sub-accruals based on contract-level events.
+   * <p>
+   * Null if the contract was created with a schedule generator, in which case the schedule is generated on
+   * first access.
    */
-  @PropertyDefinition(validate = "", builderType = "List<? extends ProratedAccrual>")
+  @PropertyDefinition(validate = "", get = "manual", builderType = "List<? extends ProratedAccrual>")
   private final ImmutableList<ProratedAccrual> accrualSchedule;
 
+  /**
+   * Generator of the accrual schedule, memoized, or null if the schedule was given.
+   */
+  private transient volatile Supplier<ImmutableList<ProratedAccrual>> accrualScheduleGenerator;
+
+  /**
+   * Create a prorated contract whose accrual schedule is generated on first access and then kept, so
+   * contracts whose schedules are never asked for, such as those expired before settlement, never pay for
+   * their generation. With {@code loansum.prorated.validate} set, the schedule is checked once generated.
+   * 
+   * @param id contract id
+   * @param accrual prorated contract accrual
+   * @param paymentDate payment date
+   * @param events prorated contract events
+   * @param accrualSchedule generator of the prorated accrual schedule
+   * @return prorated contract
+   */
+  public static ProratedLoanContract of(StandardId id, ProratedAccrual accrual, LocalDate paymentDate,
+      List<? extends ProratedLoanContractEvent> events,
+      Supplier<? extends List<? extends ProratedAccrual>> accrualSchedule) {
+    final ProratedLoanContract contract = new ProratedLoanContract(id, accrual, paymentDate, events, null);
+
+    contract.accrualScheduleGenerator = Suppliers.memoize(() -> {
+      final ImmutableList<ProratedAccrual> generated = ImmutableList.copyOf(accrualSchedule.get());
+
+      // The generated schedule is checked as a given one would be, through a copy given it, since the
+      // contract itself cannot be compared until its generator returns.
+      if (ProratedBeans.VALIDATE)
+        of(id, accrual, paymentDate, events, generated);
+
+      return generated;
+    });
+
+    return contract;
+  }
+
+  /**
+   * Trusted construction from a validated contract without going through a builder. Lists are copied only
+   * if not already immutable.
+   * 
+   * @param id contract id
+   * @param accrual prorated contract accrual
+   * @param paymentDate payment date
+   * @param events prorated contract events
+   * @param accrualSchedule prorated accrual schedule
+   * @return prorated contract
+   */
+  public static ProratedLoanContract of(StandardId id, ProratedAccrual accrual, LocalDate paymentDate,
+      List<? extends ProratedLoanContractEvent> events, List<? extends ProratedAccrual> accrualSchedule) {
+    final ProratedLoanContract contract = new ProratedLoanContract(id, accrual, paymentDate, events, accrualSchedule);
+
+    if (ProratedBeans.VALIDATE)
+      ProratedBeans.check(contract, builder()
+          .id(id)
+          .accrual(accrual)
+          .paymentDate(paymentDate)
+          .events(events)
+          .accrualSchedule(accrualSchedule)
+          .build());
+
+    return contract;
+  }
+
+  /**
+   * Gets normalized set of sub-accruals based on contract-level events, generating them on first access if
+   * the contract was created with a schedule generator.
+   * 
+   * @return the value of the property
+   */
+  public ImmutableList<ProratedAccrual> getAccrualSchedule() {
+    final Supplier<ImmutableList<ProratedAccrual>> generator = accrualScheduleGenerator;
+
+    return accrualSchedule != null || generator == null ? accrualSchedule : generator.get();
+  }
+
+  // Equality, hashing and description are written by hand so they go through getAccrualSchedule and see a
+  // generated schedule like a given one.
+  @Override
+  public boolean equals(Object obj) {
+    if (obj == this) {
+      return true;
+    }
+    if (obj != null && obj.getClass() == this.getClass()) {
+      ProratedLoanContract other = (ProratedLoanContract) obj;
+      return JodaBeanUtils.equal(id, other.id) &&
+          JodaBeanUtils.equal(accrual, other.accrual) &&
+          JodaBeanUtils.equal(paymentDate, other.paymentDate) &&
+          JodaBeanUtils.equal(events, other.events) &&
+          JodaBeanUtils.equal(getAccrualSchedule(), other.getAccrualSchedule());
+    }
+    return false;
+  }
+
+  @Override
+  public int hashCode() {
+    int hash = getClass().hashCode();
+    hash = hash * 31 + JodaBeanUtils.hashCode(id);
+    hash = hash * 31 + JodaBeanUtils.hashCode(accrual);
+    hash = hash * 31 + JodaBeanUtils.hashCode(paymentDate);
+    hash = hash * 31 + JodaBeanUtils.hashCode(events);
+    hash = hash * 31 + JodaBeanUtils.hashCode(getAccrualSchedule());
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder buf = new StringBuilder(192);
+    buf.append("ProratedLoanContract{");
+    buf.append("id").append('=').append(id).append(',').append(' ');
+    buf.append("accrual").append('=').append(accrual).append(',').append(' ');
+    buf.append("paymentDate").append('=').append(paymentDate).append(',').append(' ');
+    buf.append("events").append('=').append(events).append(',').append(' ');
+    buf.append("accrualSchedule").append('=').append(JodaBeanUtils.toString(getAccrualSchedule()));
+    buf.append('}');
+    return buf.toString();
+  }
+
   //------------------------- AUTOGENERATED START -------------------------
   /**
    * The meta-bean for {@code ProratedLoanContract}.
@@ -153,15 +275,6 @@ public final class ProratedLoanContract implements ImmutableBean {
     return events;
   }
 
-  //-----------------------------------------------------------------------
-  /**
-   * Gets normalized set of sub-accruals based on contract-level events.
-   * @return the value of the property
-   */
-  public ImmutableList<ProratedAccrual> getAccrualSchedule() {
-    return accrualSchedule;
-  }
-
   //-----------------------------------------------------------------------
   /**
    * Returns a builder that allows this bean to be mutated.
@@ -171,46 +284,6 @@ public final class ProratedLoanContract implements ImmutableBean {
     return new Builder(this);
   }
 
-  @Override
-  public boolean equals(Object obj) {
-    if (obj == this) {
-      return true;
-    }
-    if (obj != null && obj.getClass() == this.getClass()) {
-      ProratedLoanContract other = (ProratedLoanContract) obj;
-      return JodaBeanUtils.equal(id, other.id) &&
-          JodaBeanUtils.equal(accrual, other.accrual) &&
-          JodaBeanUtils.equal(paymentDate, other.paymentDate) &&
-          JodaBeanUtils.equal(events, other.events) &&
-          JodaBeanUtils.equal(accrualSchedule, other.accrualSchedule);
-    }
-    return false;
-  }
-
-  @Override
-  public int hashCode() {
-    int hash = getClass().hashCode();
-    hash = hash * 31 + JodaBeanUtils.hashCode(id);
-    hash = hash * 31 + JodaBeanUtils.hashCode(accrual);
-    hash = hash * 31 + JodaBeanUtils.hashCode(paymentDate);
-    hash = hash * 31 + JodaBeanUtils.hashCode(events);
-    hash = hash * 31 + JodaBeanUtils.hashCode(accrualSchedule);
-    return hash;
-  }
-
-  @Override
-  public String toString() {
-    StringBuilder buf = new StringBuilder(192);
-    buf.append("ProratedLoanContract{");
-    buf.append("id").append('=').append(id).append(',').append(' ');
-    buf.append("accrual").append('=').append(accrual).append(',').append(' ');
-    buf.append("paymentDate").append('=').append(paymentDate).append(',').append(' ');
-    buf.append("events").append('=').append(events).append(',').append(' ');
-    buf.append("accrualSchedule").append('=').append(JodaBeanUtils.toString(accrualSchedule));
-    buf.append('}');
-    return buf.toString();
-  }
-
   //-----------------------------------------------------------------------
   /**
    * The meta-bean for {@code ProratedLoanContract}.
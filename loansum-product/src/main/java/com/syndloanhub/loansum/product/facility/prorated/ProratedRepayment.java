@@ -75,6 +75,39 @@ public class ProratedRepayment implements ProratedLoanContractEvent, ImmutableBe
   @PropertyDefinition(validate = "")
   private final double price;
 
+  /**
+   * Trusted construction from a validated repayment without going through a builder.
+   * 
+   * @param effectiveDate effective date
+   * @param amount prorated amount
+   * @param interestOnPaydown interest-on-paydown flag
+   * @param price price of the repaid principal
+   * @return prorated repayment
+   */
+  public static ProratedRepayment of(LocalDate effectiveDate, CurrencyAmount amount, boolean interestOnPaydown,
+      double price) {
+    final ProratedRepayment repayment = new ProratedRepayment(effectiveDate, amount, interestOnPaydown, price);
+
+    if (ProratedBeans.VALIDATE)
+      ProratedBeans.check(repayment, builder()
+          .effectiveDate(effectiveDate)
+          .amount(amount)
+          .interestOnPaydown(interestOnPaydown)
+          .price(price)
+          .build());
+
+    return repayment;
+  }
+
+  private ProratedRepayment(LocalDate effectiveDate, CurrencyAmount amount, boolean interestOnPaydown, double price) {
+    JodaBeanUtils.notNull(effectiveDate, "effectiveDate");
+    JodaBeanUtils.notNull(amount, "amount");
+    this.effectiveDate = effectiveDate;
+    this.amount = amount;
+    this.interestOnPaydown = interestOnPaydown;
+    this.price = price;
+  }
+
   //------------------------- AUTOGENERATED START -------------------------
   /**
    * The meta-bean for {@code ProratedRepayment}.
@@ -18,7 +18,9 @@ import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
 
+import javax.ws.rs.Consumes;
 import javax.ws.rs.Produces;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.MediaType;
@@ -32,12 +34,44 @@ import org.joda.beans.ser.JodaBeanSer;
 
 import com.opengamma.strata.collect.result.Result;
 
+/**
+ * Reads and writes Joda beans in one of three wire formats, chosen by media type: pretty-printed JSON,
+ * the default and the format of browsers and {@code cashflow.html}, compact JSON and compact binary.
+ * Compact formats are smaller and cheaper to parse and write, for use by internal clients.
+ */
 @Provider
-@Produces(MediaType.APPLICATION_JSON)
+@Consumes({MediaType.APPLICATION_JSON, BeanMarshaller.APPLICATION_COMPACT_JSON, BeanMarshaller.APPLICATION_BINARY})
+@Produces({MediaType.APPLICATION_JSON, BeanMarshaller.APPLICATION_COMPACT_JSON, BeanMarshaller.APPLICATION_BINARY})
 public class BeanMarshaller implements
     MessageBodyWriter<Bean>,
     MessageBodyReader<Bean> {
 
+  /**
+   * Media type of compact JSON, without indentation or line breaks.
+   */
+  public static final String APPLICATION_COMPACT_JSON = "application/vnd.loansum.compact+json";
+
+  /**
+   * Media type of the Joda-Beans compact binary format.
+   */
+  public static final String APPLICATION_BINARY = "application/vnd.loansum.binary";
+
+  /**
+   * @param mediaType media type
+   * @return true if compact JSON
+   */
+  private static boolean isCompactJson(MediaType mediaType) {
+    return mediaType != null && mediaType.isCompatible(MediaType.valueOf(APPLICATION_COMPACT_JSON));
+  }
+
+  /**
+   * @param mediaType media type
+   * @return true if binary
+   */
+  private static boolean isBinary(MediaType mediaType) {
+    return mediaType != null && mediaType.isCompatible(MediaType.valueOf(APPLICATION_BINARY));
+  }
+
   @Override
   public long getSize(Bean arg0, Class<?> arg1, Type arg2, Annotation[] arg3, MediaType arg4) {
     return -1;
@@ -51,8 +85,14 @@ public class BeanMarshaller implements
   @Override
   public void writeTo(Bean bean, Class<?> arg1, Type arg2, Annotation[] arg3, MediaType arg4,
       MultivaluedMap<String, Object> arg5, OutputStream stream) throws IOException, WebApplicationException {
-    DataOutputStream outputStream = new DataOutputStream(stream);
-    outputStream.writeBytes(JodaBeanSer.PRETTY.jsonWriter().write(bean));
+    if (isBinary(arg4))
+      stream.write(JodaBeanSer.COMPACT.binWriter().write(bean));
+    else if (isCompactJson(arg4))
+      stream.write(JodaBeanSer.COMPACT.jsonWriter().write(bean).getBytes(StandardCharsets.UTF_8));
+    else {
+      DataOutputStream outputStream = new DataOutputStream(stream);
+      outputStream.writeBytes(JodaBeanSer.PRETTY.jsonWriter().write(bean));
+    }
   }
 
   @Override
@@ -63,13 +103,19 @@ public class BeanMarshaller implements
   @Override
   public Result<Bean> readFrom(Class<Bean> arg0, Type arg1, Annotation[] arg2, MediaType arg3,
       MultivaluedMap<String, String> arg4, InputStream arg5) throws IOException, WebApplicationException {
-    InputStreamReader reader = new InputStreamReader(arg5);
-    return readLoanTrade(reader);
+    return isBinary(arg3) ? readBinary(arg5) : readLoanTrade(new InputStreamReader(arg5));
+  }
+
+  private Result<Bean> readBinary(InputStream stream) {
+    try {
+      return Result.success(JodaBeanSer.COMPACT.binReader().read(stream));
+    } catch (Exception exc) {
+      return Result.failure(exc);
+    }
   }
 
   private Result<Bean> readLoanTrade(InputStreamReader reader) {
     try {
-      System.out.println("reading loan trade");
       return Result.success(JodaBeanSer.PRETTY.jsonReader().read(reader));
     } catch (Exception exc) {
       return Result.failure(exc);
@@ -0,0 +1,180 @@
+/**
+ * Copyright (c) 2018 SyndLoanHub, LLC and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License from within this distribution and at:
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.syndloanhub.loansum.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+import javax.ws.rs.ServiceUnavailableException;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.joda.beans.Bean;
+import org.joda.beans.ser.JodaBeanSer;
+
+import com.opengamma.strata.collect.ArgChecker;
+import com.opengamma.strata.collect.result.Result;
+
+/**
+ * Streams the results of a calculation applied to each line of a newline-delimited JSON request.
+ * <p>
+ * Each input line is a single bean in Joda JSON. Lines are calculated concurrently, at most
+ * {@code maxInFlight} at a time, so a large request never holds more than that many parsed beans and
+ * results in memory. Each result is written on its own line as
+ * soon as it completes, so output order is completion order and each result carries the 1-based line
+ * number of its input: {@code {"line":n,"result":{...}}}. A line which fails to parse or calculate
+ * yields {@code {"line":n,"failure":{...}}} and does not affect other lines. Blank lines are skipped.
+ * <p>
+ * The executor is shared by all bulk requests and sheds work once its queue is full. A line which cannot be
+ * queued waits for a line of the same request to complete and is then retried. If the request has no line in
+ * flight the whole request is shed with 503 Service Unavailable if nothing has been written yet, otherwise the
+ * line yields a failure.
+ */
+final class BulkCalculation implements StreamingOutput {
+
+  private final InputStream input;
+  private final ExecutorService executor;
+  private final int maxInFlight;
+  private final Function<Bean, Bean> calculation;
+
+  /**
+   * Create a bulk calculation.
+   * 
+   * @param input newline-delimited JSON beans
+   * @param executor executor on which calculations run
+   * @param maxInFlight maximum number of lines being calculated at once
+   * @param calculation calculation applied to each bean
+   */
+  BulkCalculation(InputStream input, ExecutorService executor, int maxInFlight, Function<Bean, Bean> calculation) {
+    ArgChecker.notNull(input, "input");
+    ArgChecker.notNull(executor, "executor");
+    ArgChecker.notNegativeOrZero(maxInFlight, "maxInFlight");
+    ArgChecker.notNull(calculation, "calculation");
+
+    this.input = input;
+    this.executor = executor;
+    this.maxInFlight = maxInFlight;
+    this.calculation = calculation;
+  }
+
+  @Override
+  public void write(OutputStream output) throws IOException, WebApplicationException {
+    final BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+    final Writer writer = new OutputStreamWriter(output, StandardCharsets.UTF_8);
+    final CompletionService<String> completed = new ExecutorCompletionService<String>(executor);
+    int inFlight = 0, lineNumber = 0;
+    boolean written = false;
+    String line;
+
+    while ((line = reader.readLine()) != null) {
+      lineNumber++;
+
+      if (line.trim().isEmpty())
+        continue;
+
+      if (inFlight == maxInFlight) {
+        writeLine(writer, completed);
+        inFlight--;
+        written = true;
+      }
+
+      final String json = line;
+      final int number = lineNumber;
+
+      for (;;) {
+        try {
+          completed.submit(() -> calculate(number, json));
+          inFlight++;
+          break;
+        } catch (RejectedExecutionException exc) {
+          if (inFlight > 0) {
+            writeLine(writer, completed);
+            inFlight--;
+            written = true;
+          } else if (!written)
+            throw new ServiceUnavailableException((long) PricingExecutors.RETRY_AFTER);
+          else {
+            writer.write(failure(number, exc));
+            writer.write('\n');
+            writer.flush();
+            break;
+          }
+        }
+      }
+    }
+
+    for (; inFlight > 0; inFlight--)
+      writeLine(writer, completed);
+
+    writer.flush();
+  }
+
+  /**
+   * Parse and calculate a single line, returning its output line. Anything thrown, including an
+   * {@link Error}, yields a failure line so the rest of the stream is unaffected.
+   * 
+   * @param number line number
+   * @param json input line
+   * @return output line
+   */
+  private String calculate(int number, String json) {
+    try {
+      final Bean result = calculation.apply(JodaBeanSer.COMPACT.jsonReader().read(json));
+      return "{\"line\":" + number + ",\"result\":" + JodaBeanSer.COMPACT.jsonWriter().write(result) + "}";
+    } catch (Throwable exc) {
+      return failure(number, exc);
+    }
+  }
+
+  /**
+   * @param number line number
+   * @param exc what the line threw
+   * @return failure output line
+   */
+  private static String failure(int number, Throwable exc) {
+    final Exception cause = exc instanceof Exception ? (Exception) exc : new ExecutionException(exc);
+
+    return "{\"line\":" + number + ",\"failure\":" +
+        JodaBeanSer.COMPACT.jsonWriter().write(Result.failure(cause).getFailure()) + "}";
+  }
+
+  /**
+   * Wait for the next calculation to complete and write its output line.
+   * 
+   * @param writer output writer
+   * @param completed completion service
+   * @throws IOException on write failure
+   */
+  private void writeLine(Writer writer, CompletionService<String> completed) throws IOException {
+    try {
+      writer.write(completed.take().get());
+      writer.write('\n');
+      writer.flush();
+    } catch (InterruptedException exc) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted awaiting bulk calculation", exc);
+    } catch (ExecutionException exc) {
+      throw new IOException("Bulk calculation failed", exc.getCause());
+    }
+  }
+}
@@ -0,0 +1,282 @@
+/**
+ * Copyright (c) 2018 SyndLoanHub, LLC and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License from within this distribution and at:
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.syndloanhub.loansum.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.DateDayVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.types.DateUnit;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.Schema;
+
+import com.opengamma.strata.basics.currency.CurrencyAmount;
+import com.opengamma.strata.collect.ArgChecker;
+import com.opengamma.strata.market.explain.ExplainKey;
+import com.opengamma.strata.market.explain.ExplainMap;
+import com.opengamma.strata.pricer.rate.RatesProvider;
+import com.syndloanhub.loansum.pricer.facility.prorated.ForwardRateProjector;
+import com.syndloanhub.loansum.pricer.facility.prorated.ProratedLoanTradePricer;
+import com.syndloanhub.loansum.product.facility.AnnotatedCashFlow;
+import com.syndloanhub.loansum.product.facility.AnnotatedCashFlows;
+import com.syndloanhub.loansum.product.facility.CashFlowAnnotations;
+import com.syndloanhub.loansum.product.facility.prorated.ProratedLoanTrade;
+
+/**
+ * Exports the cash flows of a stream of trades as Apache Arrow IPC streams with typed columns, for loading into
+ * pyarrow, pandas or Spark without parsing JSON.
+ * <p>
+ * The flows table has one row per cash flow of each trade, unmerged: {@code flow}, a row number,
+ * {@code tradeId}, {@code paymentDate}, {@code amount}, {@code currency}, {@code type}, {@code source},
+ * {@code payingCounterparty}, {@code receivingCounterparty} and {@code uncertain}. The optional explains table
+ * flattens the explain map of each flow to one row per entry: {@code flow}, {@code path} of the entry within
+ * nested explains, {@code key}, {@code value} as text and {@code number} where the value is numeric.
+ * <p>
+ * Trades are priced one at a time as the stream is consumed and rows are written in record batches of
+ * {@value #BATCH_SIZE}, so memory is bounded by a batch whatever the number of trades.
+ */
+public final class CashFlowArrowExporter {
+
+  /**
+   * Media type of an Arrow IPC stream.
+   */
+  public static final String APPLICATION_ARROW_STREAM = "application/vnd.apache.arrow.stream";
+
+  /**
+   * Rows per record batch.
+   */
+  static final int BATCH_SIZE = 4096;
+
+  private static final Schema FLOWS = new Schema(Arrays.asList(
+      Field.notNullable("flow", new ArrowType.Int(64, true)),
+      Field.nullable("tradeId", ArrowType.Utf8.INSTANCE),
+      Field.notNullable("paymentDate", new ArrowType.Date(DateUnit.DAY)),
+      Field.notNullable("amount", new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE)),
+      Field.notNullable("currency", ArrowType.Utf8.INSTANCE),
+      Field.nullable("type", ArrowType.Utf8.INSTANCE),
+      Field.nullable("source", ArrowType.Utf8.INSTANCE),
+      Field.nullable("payingCounterparty", ArrowType.Utf8.INSTANCE),
+      Field.nullable("receivingCounterparty", ArrowType.Utf8.INSTANCE),
+      Field.notNullable("uncertain", ArrowType.Bool.INSTANCE)));
+
+  private static final Schema EXPLAINS = new Schema(Arrays.asList(
+      Field.notNullable("flow", new ArrowType.Int(64, true)),
+      Field.notNullable("path", ArrowType.Utf8.INSTANCE),
+      Field.notNullable("key", ArrowType.Utf8.INSTANCE),
+      Field.nullable("value", ArrowType.Utf8.INSTANCE),
+      Field.nullable("number", new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE))));
+
+  private final ProratedLoanTradePricer pricer;
+
+  /**
+   * Create an exporter.
+   * 
+   * @param pricer pricer of each trade
+   */
+  public CashFlowArrowExporter(ProratedLoanTradePricer pricer) {
+    this.pricer = ArgChecker.notNull(pricer, "pricer");
+  }
+
+  /**
+   * Price a stream of trades and write their cash flows, and optionally their explains, as Arrow IPC streams.
+   * Neither output is closed.
+   * 
+   * @param trades trades, consumed in encounter order
+   * @param provider rates provider
+   * @param projector forward rate projector, or null to price on contractual rates
+   * @param flows output of the flows table
+   * @param explains output of the explains table, null to price without explains
+   * @return number of cash flows written
+   * @throws IOException if an output cannot be written
+   */
+  public long export(Stream<ProratedLoanTrade> trades, RatesProvider provider, ForwardRateProjector projector,
+      OutputStream flows, OutputStream explains) throws IOException {
+    ArgChecker.notNull(flows, "flows");
+
+    try (BufferAllocator allocator = new RootAllocator(Long.MAX_VALUE);
+        Table flowTable = new Table(FLOWS, allocator, flows);
+        Table explainTable = explains == null ? null : new Table(EXPLAINS, allocator, explains)) {
+      long count = 0;
+
+      for (ProratedLoanTrade trade : (Iterable<ProratedLoanTrade>) trades.sequential()::iterator) {
+        final boolean explain = explainTable != null;
+        final AnnotatedCashFlows cashFlows = projector == null ? pricer.cashFlows(trade, provider, explain) :
+            pricer.cashFlows(trade, projector, explain);
+        final String tradeId = trade.getInfo().getId().map(Object::toString).orElse(null);
+
+        for (AnnotatedCashFlow cashFlow : cashFlows.getCashFlows()) {
+          final long flow = count++;
+
+          flowTable.row(root -> flowRow(root, flowTable.rows, flow, tradeId, cashFlow));
+
+          if (explainTable != null && cashFlow.getAnnotation().getExplains().isPresent())
+            explainRows(explainTable, flow, "", cashFlow.getAnnotation().getExplains().get());
+        }
+      }
+
+      return count;
+    }
+  }
+
+  /**
+   * @param root flows batch
+   * @param row row within batch
+   * @param flow flow number
+   * @param tradeId trade identifier or null
+   * @param cashFlow the cash flow
+   */
+  private static void flowRow(VectorSchemaRoot root, int row, long flow, String tradeId, AnnotatedCashFlow cashFlow) {
+    final CashFlowAnnotations annotation = cashFlow.getAnnotation();
+    final CurrencyAmount value = cashFlow.getCashFlow().getForecastValue();
+
+    ((BigIntVector) root.getVector("flow")).setSafe(row, flow);
+    text(root, "tradeId", row, tradeId);
+    ((DateDayVector) root.getVector("paymentDate"))
+        .setSafe(row, (int) cashFlow.getCashFlow().getPaymentDate().toEpochDay());
+    ((Float8Vector) root.getVector("amount")).setSafe(row, value.getAmount());
+    text(root, "currency", row, value.getCurrency());
+    text(root, "type", row, annotation.getType());
+    text(root, "source", row, annotation.getSource());
+    text(root, "payingCounterparty", row, annotation.getPayingCounterparty());
+    text(root, "receivingCounterparty", row, annotation.getReceivingCounterparty());
+    ((BitVector) root.getVector("uncertain")).setSafe(row, annotation.isUncertain() ? 1 : 0);
+  }
+
+  /**
+   * Flatten an explain map into explain rows, recursing into nested explains.
+   * 
+   * @param table explains table
+   * @param flow flow number
+   * @param path path of the map within the explains of the flow
+   * @param explains the explain map
+   * @throws IOException if a batch cannot be written
+   */
+  private static void explainRows(Table table, long flow, String path, ExplainMap explains) throws IOException {
+    for (Map.Entry<ExplainKey<?>, Object> entry : explains.getMap().entrySet()) {
+      final String key = entry.getKey().getName();
+      final Object value = entry.getValue();
+
+      if (value instanceof List && ((List<?>) value).stream().allMatch(ExplainMap.class::isInstance)) {
+        final List<?> nested = (List<?>) value;
+
+        for (int i = 0; i < nested.size(); i++)
+          explainRows(table, flow, path + key + "[" + i + "].", (ExplainMap) nested.get(i));
+      } else
+        table.row(root -> {
+          ((BigIntVector) root.getVector("flow")).setSafe(table.rows, flow);
+          text(root, "path", table.rows, path);
+          text(root, "key", table.rows, key);
+          text(root, "value", table.rows, value);
+
+          final Float8Vector number = (Float8Vector) root.getVector("number");
+
+          if (value instanceof Number)
+            number.setSafe(table.rows, ((Number) value).doubleValue());
+          else if (value instanceof CurrencyAmount)
+            number.setSafe(table.rows, ((CurrencyAmount) value).getAmount());
+          else
+            number.setNull(table.rows);
+        });
+    }
+  }
+
+  /**
+   * Set a text cell, null if the value is null.
+   * 
+   * @param root batch
+   * @param column column name
+   * @param row row within batch
+   * @param value value, written as its string form
+   */
+  private static void text(VectorSchemaRoot root, String column, int row, Object value) {
+    final VarCharVector vector = (VarCharVector) root.getVector(column);
+
+    if (value == null)
+      vector.setNull(row);
+    else
+      vector.setSafe(row, value.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * One table being written as an Arrow IPC stream, a batch at a time.
+   */
+  private static final class Table implements AutoCloseable {
+    private final VectorSchemaRoot root;
+    private final ArrowStreamWriter writer;
+    private int rows;
+
+    private Table(Schema schema, BufferAllocator allocator, OutputStream output) throws IOException {
+      root = VectorSchemaRoot.create(schema, allocator);
+      root.allocateNew();
+      writer = new ArrowStreamWriter(root, null, output);
+      writer.start();
+    }
+
+    /**
+     * Add a row, writing the batch once full.
+     * 
+     * @param setter sets the cells of the row
+     * @throws IOException if the batch cannot be written
+     */
+    private void row(RowSetter setter) throws IOException {
+      setter.set(root);
+
+      if (++rows == BATCH_SIZE)
+        flush();
+    }
+
+    private void flush() throws IOException {
+      if (rows > 0) {
+        root.setRowCount(rows);
+        writer.writeBatch();
+        root.allocateNew();
+        rows = 0;
+      }
+    }
+
+    /**
+     * Write the last batch and the end of stream marker. The writer is not closed as that would close the
+     * output, which belongs to the caller.
+     */
+    @Override
+    public void close() throws IOException {
+      try {
+        flush();
+        writer.end();
+      } finally {
+        root.close();
+      }
+    }
+  }
+
+  /**
+   * Sets the cells of one row of a batch.
+   */
+  @FunctionalInterface
+  private interface RowSetter {
+    void set(VectorSchemaRoot root);
+  }
+}
@@ -0,0 +1,158 @@
+/**
+ * Copyright (c) 2018 SyndLoanHub, LLC and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License from within this distribution and at:
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.syndloanhub.loansum.service;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.opengamma.strata.collect.ArgChecker;
+import com.syndloanhub.loansum.product.facility.Commitment;
+import com.syndloanhub.loansum.product.facility.CommitmentRecord;
+import com.syndloanhub.loansum.product.facility.Facility;
+import com.syndloanhub.loansum.product.facility.Helper;
+
+/**
+ * Commitment records of a facility indexed by effective date, so the breakdown in force on a date or over a
+ * window is found by binary search rather than by regenerating and scanning the whole commitment.
+ * <p>
+ * Indexes are cached per facility, keyed by the digest of the facility content, and evicted beyond
+ * {@code loansum.commitment.cache.size} facilities, default 1000, or {@code loansum.cache.ttl} seconds
+ * after being built, default 300.
+ */
+final class CommitmentIndex {
+
+  private static final Cache<String, CommitmentIndex> CACHE = CacheBuilder.newBuilder()
+      .maximumSize(Long.getLong("loansum.commitment.cache.size", 1000))
+      .expireAfterWrite(Long.getLong("loansum.cache.ttl", 300), TimeUnit.SECONDS)
+      .build();
+
+  /**
+   * Effective dates of the records, ascending.
+   */
+  private final LocalDate[] dates;
+  private final ImmutableList<CommitmentRecord> records;
+
+  /**
+   * Index the records of a commitment.
+   * 
+   * @param commitment commitment with records in ascending effective date order
+   */
+  CommitmentIndex(Commitment commitment) {
+    this(commitment.getCommitment());
+  }
+
+  /**
+   * Index commitment records.
+   * 
+   * @param records records in ascending effective date order, possibly empty
+   */
+  CommitmentIndex(List<CommitmentRecord> records) {
+    this.records = ImmutableList.copyOf(records);
+    dates = this.records.stream().map(CommitmentRecord::getEffectiveDate).toArray(LocalDate[]::new);
+
+    for (int i = 1; i < dates.length; i++)
+      ArgChecker.isTrue(dates[i - 1].isBefore(dates[i]), "commitment records must be in ascending date order");
+  }
+
+  /**
+   * Return the cached index of a facility, generating its commitment on first use.
+   * 
+   * @param facility the facility
+   * @return commitment index
+   */
+  static CommitmentIndex of(Facility facility) {
+    try {
+      return CACHE.get(ResultCache.digest(facility), () -> new CommitmentIndex(generate(facility)));
+    } catch (ExecutionException | UncheckedExecutionException exc) {
+      if (exc.getCause() instanceof RuntimeException)
+        throw (RuntimeException) exc.getCause();
+      throw new IllegalStateException(exc.getCause());
+    }
+  }
+
+  /**
+   * Generate the full commitment of a facility.
+   * 
+   * @param facility the facility
+   * @return commitment
+   */
+  static Commitment generate(Facility facility) {
+    return Helper.generateCommitment(facility.getFacilityType(), facility.getStartDate(),
+        facility.getOriginalCommitmentAmount().getAmount(), facility.getContracts(),
+        facility.getEvents().stream().collect(Collectors.toList()));
+  }
+
+  /**
+   * Discard all cached indexes.
+   */
+  static void clear() {
+    CACHE.invalidateAll();
+  }
+
+  /**
+   * @return all records
+   */
+  Commitment all() {
+    return Commitment.builder().commitment(records).build();
+  }
+
+  /**
+   * Return the commitment breakdown in force at the end of a date, which is zero before the first record.
+   * 
+   * @param asOf the date
+   * @return commitment of a single record
+   */
+  Commitment asOf(LocalDate asOf) {
+    final int i = floor(asOf);
+
+    return Commitment.builder()
+        .commitment(ImmutableList.of(i < 0 ? CommitmentRecord.builder().effectiveDate(asOf).build() : records.get(i)))
+        .build();
+  }
+
+  /**
+   * Return the records in force over a window: the record in force at the start of the window, if any,
+   * followed by those effective after the start up to and including the end.
+   * 
+   * @param startDate start of window or null for the first record
+   * @param endDate end of window or null for the last record
+   * @return commitment over the window, a zero record as of the end, or of the start if the window has no end,
+   *   when no record is in force
+   */
+  Commitment window(LocalDate startDate, LocalDate endDate) {
+    if (endDate == null && records.isEmpty())
+      return asOf(ArgChecker.notNull(startDate, "startDate"));
+
+    final int from = startDate == null ? 0 : Math.max(floor(startDate), 0);
+    final int to = endDate == null ? dates.length - 1 : floor(endDate);
+    final List<CommitmentRecord> window = from <= to ? records.subList(from, to + 1) : ImmutableList.of();
+
+    return window.isEmpty() ? asOf(endDate) : Commitment.builder().commitment(window).build();
+  }
+
+  /**
+   * @param date the date
+   * @return index of the last record effective on or before the date, -1 if none
+   */
+  private int floor(LocalDate date) {
+    final int i = Arrays.binarySearch(dates, date);
+
+    return i >= 0 ? i : -i - 2;
+  }
+}
@@ -0,0 +1,418 @@
+/**
+ * Copyright (c) 2018 SyndLoanHub, LLC and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License from within this distribution and at:
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.syndloanhub.loansum.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.joda.beans.ser.JodaBeanSer;
+
+import com.opengamma.strata.basics.StandardId;
+import com.opengamma.strata.collect.ArgChecker;
+import com.opengamma.strata.collect.Messages;
+import com.syndloanhub.loansum.product.facility.Facility;
+import com.syndloanhub.loansum.product.facility.FacilityDelta;
+
+/**
+ * Local event-sourced store of facilities. Each facility is created once and then evolves through agent
+ * notices, each a {@link FacilityDelta} with an effective date, appended to a log of that facility instead
+ * of resubmitting the whole facility.
+ * <p>
+ * Every {@code snapshotInterval} notices the current facility is materialised to a snapshot recording the
+ * log position it covers and the latest effective date it includes. The facility as of a date is rebuilt
+ * from the latest snapshot including no notice effective after that date, found by binary search, by
+ * replaying only the later notices effective on or before the date. The created facility is the base of
+ * every date.
+ * <p>
+ * Files of a facility are named after its URL-encoded identifier: {@code <id>.log}, a sequence of
+ * effective epoch day, length and compact Joda binary delta, and {@code <id>.<sequence>.snapshot}, the
+ * sequence, log offset and latest effective epoch day followed by the facility in compact Joda binary. A log
+ * record torn by a crash is truncated when the facility is next loaded.
+ */
+public final class FacilityStore {
+
+  private static final String LOG = ".log";
+  private static final String SNAPSHOT = ".snapshot";
+
+  private final Path directory;
+  private final int snapshotInterval;
+  private final ConcurrentHashMap<StandardId, Log> logs = new ConcurrentHashMap<StandardId, Log>();
+
+  /**
+   * Create a store over a directory, loading facilities already stored there on first access.
+   * 
+   * @param directory store directory, created if absent
+   * @param snapshotInterval number of notices between snapshots
+   * @throws IOException if the directory cannot be created
+   */
+  public FacilityStore(Path directory, int snapshotInterval) throws IOException {
+    this.directory = Files.createDirectories(ArgChecker.notNull(directory, "directory"));
+    this.snapshotInterval = ArgChecker.notNegativeOrZero(snapshotInterval, "snapshotInterval");
+  }
+
+  /**
+   * Create a facility, the base of all its later notices. The facility is visible to other calls only once
+   * its files are complete, and a failed creation leaves no facility behind.
+   * 
+   * @param facility the facility
+   * @throws IOException if the facility cannot be written
+   * @throws IllegalArgumentException if the facility already exists
+   */
+  public void create(Facility facility) throws IOException {
+    final StandardId id = ArgChecker.notNull(facility, "facility").getId();
+    final Log log = new Log(id);
+
+    try {
+      Files.createFile(log.logFile);
+    } catch (FileAlreadyExistsException exc) {
+      throw new IllegalArgumentException(Messages.format("facility {} already exists", id), exc);
+    }
+
+    try {
+      log.snapshot(facility, LocalDate.MIN);
+    } catch (IOException | RuntimeException exc) {
+      Files.deleteIfExists(log.logFile);
+      throw exc;
+    }
+
+    // Another call may already have loaded the complete files, its log is equivalent.
+    logs.putIfAbsent(id, log);
+  }
+
+  /**
+   * Append a notice to the log of a facility, materialising a snapshot every {@code snapshotInterval}
+   * notices. The notice is on disk before its sequence number is returned, and a notice which fails to be
+   * written is removed from the log.
+   * 
+   * @param id facility identifier
+   * @param effectiveDate date from which the notice applies
+   * @param delta changes to the facility
+   * @return sequence number of the notice, starting from one
+   * @throws IOException if the notice cannot be written
+   */
+  public long append(StandardId id, LocalDate effectiveDate, FacilityDelta delta) throws IOException {
+    ArgChecker.notNull(effectiveDate, "effectiveDate");
+    ArgChecker.notNull(delta, "delta");
+
+    final Log log = log(id);
+
+    synchronized (log) {
+      final Facility head = log.head.apply(delta);
+      final byte[] bytes = JodaBeanSer.COMPACT.binWriter().write(delta);
+
+      try (FileChannel channel = FileChannel.open(log.logFile, StandardOpenOption.WRITE)) {
+        try {
+          final DataOutputStream output =
+              new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel.position(log.offset))));
+
+          output.writeInt((int) effectiveDate.toEpochDay());
+          output.writeInt(bytes.length);
+          output.write(bytes);
+          output.flush();
+          channel.force(false);
+        } catch (IOException | RuntimeException exc) {
+          // A torn record would otherwise precede the next notice.
+          try {
+            channel.truncate(log.offset);
+          } catch (IOException truncation) {
+            exc.addSuppressed(truncation);
+          }
+          throw exc;
+        }
+      }
+
+      log.offset += 8 + bytes.length;
+      log.sequence++;
+      log.head = head;
+      log.latest = effectiveDate.isAfter(log.latest) ? effectiveDate : log.latest;
+
+      if (log.sequence % snapshotInterval == 0)
+        log.snapshot(log.head, log.latest);
+
+      return log.sequence;
+    }
+  }
+
+  /**
+   * @param id facility identifier
+   * @return facility with all notices applied
+   */
+  public Facility facility(StandardId id) {
+    final Log log = log(id);
+
+    synchronized (log) {
+      return log.head;
+    }
+  }
+
+  /**
+   * Rebuild a facility with the notices effective on or before a date applied.
+   * 
+   * @param id facility identifier
+   * @param asOf the date
+   * @return facility as of the date
+   */
+  public Facility facility(StandardId id, LocalDate asOf) {
+    final Log log = log(id);
+    final Snapshot snapshot;
+    final long end;
+
+    synchronized (log) {
+      if (!log.latest.isAfter(asOf))
+        return log.head;
+
+      snapshot = log.snapshots.get(floor(log.snapshots, asOf));
+      end = log.offset;
+    }
+
+    try {
+      return log.replay(snapshot, end, asOf);
+    } catch (IOException exc) {
+      throw new UncheckedIOException(exc);
+    }
+  }
+
+  /**
+   * @param snapshots snapshots in log order, the first being the base
+   * @param asOf the date
+   * @return index of the last snapshot with no notice effective after the date
+   */
+  private static int floor(List<Snapshot> snapshots, LocalDate asOf) {
+    int low = 0, high = snapshots.size() - 1;
+
+    while (low < high) {
+      final int mid = (low + high + 1) >>> 1;
+
+      if (snapshots.get(mid).latest.isAfter(asOf))
+        high = mid - 1;
+      else
+        low = mid;
+    }
+
+    return low;
+  }
+
+  /**
+   * @param id facility identifier
+   * @return log of the facility, loaded from its files on first access
+   * @throws IllegalArgumentException if the facility does not exist
+   */
+  private Log log(StandardId id) {
+    ArgChecker.notNull(id, "id");
+
+    return logs.computeIfAbsent(id, key -> {
+      final Log log = new Log(key);
+
+      ArgChecker.isTrue(Files.exists(log.logFile), "unknown facility {}", key);
+
+      try {
+        log.load();
+      } catch (IOException exc) {
+        throw new UncheckedIOException(exc);
+      }
+
+      return log;
+    });
+  }
+
+  /**
+   * Materialised facility at a log position.
+   */
+  private static final class Snapshot {
+    private final Path file;
+    private final long sequence;
+    private final long offset;
+    private final LocalDate latest;
+
+    private Snapshot(Path file, long sequence, long offset, LocalDate latest) {
+      this.file = file;
+      this.sequence = sequence;
+      this.offset = offset;
+      this.latest = latest;
+    }
+
+    /**
+     * @return the snapshot facility
+     * @throws IOException if the snapshot cannot be read
+     */
+    private Facility read() throws IOException {
+      try (DataInputStream input = new DataInputStream(Files.newInputStream(file))) {
+        input.readFully(new byte[24]);
+        return JodaBeanSer.COMPACT.binReader().read(input, Facility.class);
+      }
+    }
+  }
+
+  /**
+   * Log, snapshots and current state of one facility.
+   */
+  private final class Log {
+    private final String name;
+    private final Path logFile;
+    private final List<Snapshot> snapshots = new ArrayList<Snapshot>();
+    private Facility head;
+    private LocalDate latest = LocalDate.MIN;
+    private long sequence;
+    private long offset;
+
+    private Log(StandardId id) {
+      try {
+        name = URLEncoder.encode(id.toString(), "UTF-8");
+      } catch (UnsupportedEncodingException exc) {
+        throw new IllegalStateException(exc);
+      }
+
+      logFile = directory.resolve(name + LOG);
+    }
+
+    /**
+     * Write a snapshot of the facility at the current log position.
+     * 
+     * @param facility the facility
+     * @param latest latest effective date of notices included
+     * @throws IOException if the snapshot cannot be written
+     */
+    private void snapshot(Facility facility, LocalDate latest) throws IOException {
+      final Path file = directory.resolve(name + "." + sequence + SNAPSHOT);
+      final Path temp = directory.resolve(file.getFileName() + ".tmp");
+
+      try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+          StandardOpenOption.WRITE);
+          DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)))) {
+        output.writeLong(sequence);
+        output.writeLong(offset);
+        output.writeLong(latest.toEpochDay());
+        output.write(JodaBeanSer.COMPACT.binWriter().write(facility));
+
+        // Force the file to disk before it is moved into place, so a crash cannot leave an incomplete snapshot.
+        output.flush();
+        channel.force(true);
+      }
+
+      Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      snapshots.add(new Snapshot(file, sequence, offset, latest));
+      head = facility;
+    }
+
+    /**
+     * @param fileName name of a file in the store directory
+     * @return true if a snapshot of this facility
+     */
+    private boolean isSnapshot(String fileName) {
+      return fileName.endsWith(SNAPSHOT) && fileName.startsWith(name + ".") &&
+          fileName.substring(name.length() + 1, fileName.length() - SNAPSHOT.length()).matches("[0-9]+");
+    }
+
+    /**
+     * Load snapshot headers and rebuild the current facility from the last snapshot and the log tail.
+     * 
+     * @throws IOException if the files cannot be read
+     */
+    private void load() throws IOException {
+      try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, file -> isSnapshot(file.getFileName()
+          .toString()))) {
+        for (Path file : files)
+          try (DataInputStream input = new DataInputStream(Files.newInputStream(file))) {
+            snapshots.add(new Snapshot(file, input.readLong(), input.readLong(),
+                LocalDate.ofEpochDay(input.readLong())));
+          }
+      }
+
+      ArgChecker.isFalse(snapshots.isEmpty(), "no snapshot of {}", name);
+      Collections.sort(snapshots, Comparator.comparingLong((Snapshot snapshot) -> snapshot.sequence));
+
+      final Snapshot last = snapshots.get(snapshots.size() - 1);
+
+      head = last.read();
+      latest = last.latest;
+      sequence = last.sequence;
+      offset = last.offset;
+
+      try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+        final long size = channel.size();
+        final DataInputStream input =
+            new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel.position(offset))));
+
+        try {
+          while (true) {
+            final LocalDate date = LocalDate.ofEpochDay(input.readInt());
+            final int length = input.readInt();
+
+            if (length < 0 || offset + 8 + length > size)
+              throw new EOFException();
+
+            final byte[] bytes = new byte[length];
+
+            input.readFully(bytes);
+            head = head.apply(JodaBeanSer.COMPACT.binReader().read(bytes, FacilityDelta.class));
+            latest = date.isAfter(latest) ? date : latest;
+            offset += 8 + bytes.length;
+            sequence++;
+          }
+        } catch (EOFException exc) {
+          channel.truncate(offset);
+        }
+      }
+    }
+
+    /**
+     * Replay the notices after a snapshot up to a log position, applying those effective on or before a date.
+     * 
+     * @param snapshot starting snapshot
+     * @param end log position to stop at
+     * @param asOf the date
+     * @return facility as of the date
+     * @throws IOException if the files cannot be read
+     */
+    private Facility replay(Snapshot snapshot, long end, LocalDate asOf) throws IOException {
+      Facility facility = snapshot.read();
+
+      try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.READ)) {
+        final DataInputStream input =
+            new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel.position(snapshot.offset))));
+
+        for (long position = snapshot.offset; position < end;) {
+          final LocalDate date = LocalDate.ofEpochDay(input.readInt());
+          final byte[] bytes = new byte[input.readInt()];
+
+          input.readFully(bytes);
+          position += 8 + bytes.length;
+
+          if (!date.isAfter(asOf))
+            facility = facility.apply(JodaBeanSer.COMPACT.binReader().read(bytes, FacilityDelta.class));
+        }
+      }
+
+      return facility;
+    }
+  }
+}
@@ -10,10 +10,23 @@
 
 package com.syndloanhub.loansum.service;
 
+import java.util.Set;
+
 import javax.ws.rs.ApplicationPath;
 import javax.ws.rs.core.Application;
 
+import com.google.common.collect.ImmutableSet;
+
 @ApplicationPath("/loansum")
 public class LoansumApplication extends Application {
 
+  /**
+   * Resources and providers of the service, listed explicitly so the same application can be deployed
+   * without classpath scanning, as by {@link LoansumServer}.
+   */
+  @Override
+  public Set<Class<?>> getClasses() {
+    return ImmutableSet.<Class<?>>of(LoansumService.class, BeanMarshaller.class, RequestTimingInterceptor.class);
+  }
+
 }
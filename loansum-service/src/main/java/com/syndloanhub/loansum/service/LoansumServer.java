@@ -0,0 +1,194 @@
+/**
+ * Copyright (c) 2018 SyndLoanHub, LLC and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License from within this distribution and at:
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.syndloanhub.loansum.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import org.jboss.resteasy.plugins.server.netty.NettyJaxrsServer;
+import org.jboss.resteasy.spi.ResteasyDeployment;
+import org.joda.beans.Bean;
+import org.joda.beans.MetaBean;
+import org.joda.beans.ser.JodaBeanSer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.reflect.ClassPath;
+import com.opengamma.strata.pricer.rate.RatesProvider;
+import com.syndloanhub.loansum.pricer.facility.prorated.ProratedLoanTradePricer;
+import com.syndloanhub.loansum.product.facility.LoanTrade;
+import com.syndloanhub.loansum.product.facility.prorated.ProratedLoanTrade;
+
+/**
+ * Standalone launcher serving {@link LoansumApplication} from an embedded Netty JAX-RS runtime, without a
+ * servlet container or WAR deployment.
+ * <p>
+ * Before starting the listener the launcher registers every loansum Joda bean, so the first request does not
+ * pay for class loading and meta-bean registration, and optionally warms the JIT by pricing the bundled
+ * fixture trade {@code loansum.warmup.iterations} times, default 100, zero to skip, so no request is served
+ * cold. It then times one request over HTTP and logs startup, warm-up and first request latencies. The port
+ * is {@code loansum.port}, default 8080.
+ */
+public final class LoansumServer {
+  private static final Logger log = LoggerFactory.getLogger(LoansumServer.class);
+
+  private static final String ROOT = "/loansum";
+  private static final String FIXTURE = "/warmup/loantrade.json";
+
+  private LoansumServer() {
+  }
+
+  /**
+   * Start the server.
+   * 
+   * @param args unused
+   * @throws IOException if the classpath or fixture cannot be read, or the first request fails
+   */
+  public static void main(String[] args) throws IOException {
+    final long start = System.nanoTime();
+    final int port = Integer.getInteger("loansum.port", 8080);
+    final int iterations = Integer.getInteger("loansum.warmup.iterations", 100);
+
+    final int beans = registerMetaBeans();
+    final long registered = System.nanoTime();
+    final byte[] fixture = ByteStreams.toByteArray(LoansumServer.class.getResourceAsStream(FIXTURE));
+
+    if (iterations > 0)
+      warmUp(fixture, iterations);
+
+    final long warmed = System.nanoTime();
+
+    final ResteasyDeployment deployment = new ResteasyDeployment();
+    deployment.setApplication(new LoansumApplication());
+
+    final NettyJaxrsServer server = new NettyJaxrsServer();
+    server.setDeployment(deployment);
+    server.setPort(port);
+    server.setRootResourcePath(ROOT);
+    server.setSecurityDomain(null);
+    server.start();
+    Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+
+    final long started = System.nanoTime();
+    log.info("Registered " + beans + " beans in " + millis(start, registered) + " ms, server listening on port " +
+        port + " after " + millis(start, started) + " ms");
+
+    final long firstRequest = firstRequest(port, fixture);
+    final long ready = System.nanoTime();
+
+    log.info("Ready after " + millis(start, ready) + " ms, " +
+        (System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime()) + " ms since JVM start: " +
+        "warm-up " + millis(registered, warmed) + " ms, first request " + firstRequest / 1000000.0 + " ms");
+  }
+
+  /**
+   * Load and register the meta-bean of every Joda bean in loansum packages.
+   * 
+   * @return number of beans registered
+   * @throws IOException if the classpath cannot be read
+   */
+  static int registerMetaBeans() throws IOException {
+    final ClassLoader loader = LoansumServer.class.getClassLoader();
+    int count = 0;
+
+    for (ClassPath.ClassInfo info : ClassPath.from(loader).getTopLevelClassesRecursive("com.syndloanhub.loansum")) {
+      try {
+        final Class<?> type = Class.forName(info.getName(), true, loader);
+
+        if (Bean.class.isAssignableFrom(type) && !type.isInterface()) {
+          MetaBean.of(type);
+          count++;
+        }
+      } catch (ClassNotFoundException | LinkageError | IllegalArgumentException exc) {
+        log.debug("Skipping " + info.getName() + ": " + exc);
+      }
+    }
+
+    return count;
+  }
+
+  /**
+   * Prorate and price the fixture trade repeatedly, logging the first and last iteration latencies.
+   * 
+   * @param fixture JSON loan trade
+   * @param iterations number of iterations
+   */
+  private static void warmUp(byte[] fixture, int iterations) {
+    final ProratedLoanTradePricer pricer = ProratedLoanTradePricer.DEFAULT;
+    final RatesProvider rates = MarketDataContext.INSTANCE.current().ratesProvider(LocalDate.now());
+    long first = 0, last = 0;
+
+    for (int i = 0; i < iterations; i++) {
+      final long start = System.nanoTime();
+      final LoanTrade trade = (LoanTrade) JodaBeanSer.PRETTY.jsonReader()
+          .read(new InputStreamReader(new ByteArrayInputStream(fixture), StandardCharsets.UTF_8));
+      final ProratedLoanTrade proratedTrade = trade.prorate(null);
+
+      JodaBeanSer.PRETTY.jsonWriter().write(pricer.cashFlows(proratedTrade, rates, true));
+      JodaBeanSer.PRETTY.jsonWriter().write(pricer.proceeds(proratedTrade, rates, true));
+
+      last = System.nanoTime() - start;
+
+      if (i == 0)
+        first = last;
+    }
+
+    log.info("Warmed up over " + iterations + " iterations, first " + first / 1000000.0 + " ms, last " +
+        last / 1000000.0 + " ms");
+  }
+
+  /**
+   * Time a proceeds request for the fixture trade over HTTP.
+   * 
+   * @param port server port
+   * @param fixture JSON loan trade
+   * @return request latency in nanoseconds
+   * @throws IOException if the request fails
+   */
+  private static long firstRequest(int port, byte[] fixture) throws IOException {
+    final long start = System.nanoTime();
+    final HttpURLConnection connection =
+        (HttpURLConnection) new URL("http://localhost:" + port + ROOT + "/calculateProceeds").openConnection();
+
+    connection.setRequestMethod("POST");
+    connection.setRequestProperty("Content-Type", "application/json");
+    connection.setDoOutput(true);
+
+    try (OutputStream output = connection.getOutputStream()) {
+      output.write(fixture);
+    }
+
+    final int status = connection.getResponseCode();
+
+    try (InputStream input = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+      if (input != null)
+        ByteStreams.exhaust(input);
+    }
+
+    if (status != 200)
+      log.warn("First request returned status " + status);
+
+    return System.nanoTime() - start;
+  }
+
+  private static double millis(long from, long to) {
+    return (to - from) / 1000000.0;
+  }
+}
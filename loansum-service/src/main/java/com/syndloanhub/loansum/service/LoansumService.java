@@ -12,25 +12,45 @@ package com.syndloanhub.loansum.service;
 
 import javax.ws.rs.POST;
 
+import java.io.InputStream;
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+import javax.ws.rs.BadRequestException;
 import javax.ws.rs.Consumes;
+import javax.ws.rs.DELETE;
+import javax.ws.rs.GET;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
+import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.StreamingOutput;
 
+import org.jboss.resteasy.spi.HttpRequest;
 import org.joda.beans.Bean;
 import org.joda.beans.ser.JodaBeanSer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.cache.CacheStats;
+import com.google.common.io.ByteStreams;
+import com.opengamma.strata.basics.ReferenceData;
 import com.opengamma.strata.collect.result.Result;
-import com.opengamma.strata.pricer.rate.ImmutableRatesProvider;
 import com.opengamma.strata.pricer.rate.RatesProvider;
+import com.syndloanhub.loansum.pricer.facility.prorated.ForwardRateProjector;
 import com.syndloanhub.loansum.pricer.facility.prorated.ProratedLoanTradePricer;
+import com.syndloanhub.loansum.product.facility.AnnotatedCashFlows;
 import com.syndloanhub.loansum.product.facility.Commitment;
 import com.syndloanhub.loansum.product.facility.Facility;
-import com.syndloanhub.loansum.product.facility.Helper;
 import com.syndloanhub.loansum.product.facility.LoanTrade;
 import com.syndloanhub.loansum.product.facility.LoanTradeList;
 import com.syndloanhub.loansum.product.facility.prorated.ProratedLoanTrade;
@@ -42,49 +62,480 @@ import javax.ws.rs.Path;
 public class LoansumService {
   private static final Logger log = LoggerFactory.getLogger(LoansumService.class);
 
+  /**
+   * Media type of newline-delimited JSON.
+   */
+  public static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+  /**
+   * Media type of comma-separated values.
+   */
+  public static final String TEXT_CSV = "text/csv";
+
+  /**
+   * Maximum number of lines of a bulk request calculated at once.
+   */
+  private static final int BULK_MAX_IN_FLIGHT = 64;
+
+  /**
+   * Maximum number of days of a mark-to-market series.
+   */
+  private static final int MARK_TO_MARKET_MAX_DAYS = Integer.getInteger("loansum.markToMarket.maxDays", 3660);
+
+  /**
+   * Server quality of compact formats, below pretty JSON so clients which accept anything get the default.
+   */
+  private static final String QS = ";qs=0.5";
+
+  /**
+   * Projection mode pricing floating rate accruals at their contractual rates, the default.
+   */
+  private static final String CONTRACTUAL = "contractual";
+
+  /**
+   * Projection mode pricing floating rate accruals beyond the valuation date at projected forward rates.
+   */
+  private static final String FORWARD = "forward";
+
+  /**
+   * The request being served, whose properties carry its timings.
+   */
+  @Context
+  private HttpRequest request;
+
   @POST
   @Path("/calculateCashflows")
-  @Consumes(MediaType.APPLICATION_JSON)
-  @Produces(MediaType.APPLICATION_JSON)
-  public Bean cashflow(Result<Bean> tradeList) {
+  @Consumes({MediaType.APPLICATION_JSON, BeanMarshaller.APPLICATION_COMPACT_JSON, BeanMarshaller.APPLICATION_BINARY})
+  @Produces({MediaType.APPLICATION_JSON, BeanMarshaller.APPLICATION_COMPACT_JSON + QS,
+      BeanMarshaller.APPLICATION_BINARY + QS})
+  public void cashflow(Result<Bean> tradeList, @QueryParam("valuationDate") String valuationDate,
+      @QueryParam("projection") @DefaultValue(CONTRACTUAL) String projection, @Suspended AsyncResponse response) {
+    final RequestTimings timings = new RequestTimings("calculateCashflows", request);
+    final boolean forward = forward(projection);
+
     if (tradeList.isSuccess()) {
-      ProratedLoanTradeList proratedTradeList = ((LoanTradeList) tradeList.getValue()).prorate(null);
-      ProratedLoanTradePricer pricer = ProratedLoanTradePricer.DEFAULT;
-      RatesProvider rates = ImmutableRatesProvider.builder(LocalDate.now()).build();
+      final LocalDate date = valuationDate(valuationDate);
+      final MarketDataContext.Version marketData = MarketDataContext.INSTANCE.current();
 
-      return pricer.cashFlows(proratedTradeList, rates, true);
+      submitCached(PricingExecutors.HEAVY, response, timings, timings.getCalculation() + "/" + projection, date,
+          marketData, tradeList.getValue(), () -> {
+        ProratedLoanTradeList proratedTradeList =
+            timings.time("prorate", () -> ((LoanTradeList) tradeList.getValue()).prorate(null));
+        ProratedLoanTradePricer pricer = ProratedLoanTradePricer.DEFAULT;
+        RatesProvider rates = marketData.ratesProvider(date);
+        List<AnnotatedCashFlows> tradeCashFlows = timings.time("price", () -> {
+          if (!forward)
+            return proratedTradeList.getTrades().stream()
+                .map(trade -> pricer.cashFlows(trade, rates, true))
+                .collect(Collectors.toList());
+
+          ForwardRateProjector projector = new ForwardRateProjector(rates, ReferenceData.standard());
+
+          projector.prefetch(proratedTradeList.getTrades());
+          return proratedTradeList.getTrades().stream()
+              .map(trade -> pricer.cashFlows(trade, projector, true))
+              .collect(Collectors.toList());
+        });
+        AnnotatedCashFlows cashFlows = timings.time("merge", () -> pricer.merge(tradeCashFlows));
+
+        sizes(timings, proratedTradeList.getTrades(), cashFlows);
+
+        return cashFlows;
+      });
     } else
-      return tradeList.getFailure();
+      response.resume(tradeList.getFailure());
+  }
+
+  /**
+   * Calculate cash flows of each of a stream of newline-delimited trades or trade lists, streaming one
+   * result line per input line as each completes. The stream is coordinated on the heavy pool and its
+   * lines are calculated on the bulk pool.
+   * 
+   * @param trades newline-delimited JSON loan trades or loan trade lists
+   * @param valuationDate ISO valuation date, default today
+   * @param explain true to include explains
+   * @param projection {@code contractual} or {@code forward}
+   * @param response suspended response, resumed with the newline-delimited results
+   */
+  @POST
+  @Path("/calculateCashflowsBulk")
+  @Consumes(APPLICATION_NDJSON)
+  @Produces(APPLICATION_NDJSON)
+  public void cashflowBulk(InputStream trades, @QueryParam("valuationDate") String valuationDate,
+      @QueryParam("explain") @DefaultValue("false") boolean explain,
+      @QueryParam("projection") @DefaultValue(CONTRACTUAL) String projection, @Suspended AsyncResponse response) {
+    final RatesProvider rates =
+        MarketDataContext.INSTANCE.current().ratesProvider(valuationDate(valuationDate));
+    final ForwardRateProjector projector =
+        forward(projection) ? new ForwardRateProjector(rates, ReferenceData.standard()) : null;
+
+    submitStreamed(PricingExecutors.HEAVY, response, new BulkCalculation(trades, PricingExecutors.BULK,
+        BULK_MAX_IN_FLIGHT, bean -> cashflow(bean, rates, projector, explain)));
+  }
+
+  /**
+   * Stream the unmerged cash flows of a loan trade or loan trade list as an Apache Arrow IPC stream, pricing one
+   * trade at a time on the heavy pool. With {@code table=explains} the flattened explains of the flows are
+   * streamed instead.
+   * 
+   * @param bean loan trade or loan trade list
+   * @param valuationDate valuation date, today if not given
+   * @param table {@code flows} or {@code explains}
+   * @param projection {@code contractual} or {@code forward}
+   * @param response suspended response, resumed with the Arrow IPC stream
+   */
+  @POST
+  @Path("/exportCashflows")
+  @Consumes({MediaType.APPLICATION_JSON, BeanMarshaller.APPLICATION_COMPACT_JSON, BeanMarshaller.APPLICATION_BINARY})
+  @Produces(CashFlowArrowExporter.APPLICATION_ARROW_STREAM)
+  public void exportCashflows(Result<Bean> bean, @QueryParam("valuationDate") String valuationDate,
+      @QueryParam("table") @DefaultValue("flows") String table,
+      @QueryParam("projection") @DefaultValue(CONTRACTUAL) String projection, @Suspended AsyncResponse response) {
+    final RequestTimings timings = new RequestTimings("exportCashflows", request);
+    final RatesProvider rates = MarketDataContext.INSTANCE.current().ratesProvider(valuationDate(valuationDate));
+    final ForwardRateProjector projector =
+        forward(projection) ? new ForwardRateProjector(rates, ReferenceData.standard()) : null;
+    final CashFlowArrowExporter exporter = new CashFlowArrowExporter(ProratedLoanTradePricer.DEFAULT);
+
+    if (bean.isFailure())
+      throw new BadRequestException(bean.getFailure().getMessage());
+
+    final List<LoanTrade> trades;
+
+    if (bean.getValue() instanceof LoanTradeList)
+      trades = ((LoanTradeList) bean.getValue()).getTrades();
+    else if (bean.getValue() instanceof LoanTrade)
+      trades = Arrays.asList((LoanTrade) bean.getValue());
+    else
+      throw new BadRequestException(
+          "Expected LoanTrade or LoanTradeList, found " + bean.getValue().getClass().getSimpleName());
+
+    if (table.equals("flows"))
+      submitStreamed(PricingExecutors.HEAVY, response, output -> timings.size("flows",
+          exporter.export(trades.stream().map(trade -> trade.prorate(null)), rates, projector, output, null)));
+    else if (table.equals("explains"))
+      submitStreamed(PricingExecutors.HEAVY, response, output -> timings.size("flows",
+          exporter.export(trades.stream().map(trade -> trade.prorate(null)), rates, projector,
+              ByteStreams.nullOutputStream(), output)));
+    else
+      throw new BadRequestException("Expected table flows or explains, found " + table);
+  }
+
+  /**
+   * Calculate cash flows of a loan trade or loan trade list, projecting future floating rates if given a
+   * projector.
+   * 
+   * @param bean loan trade or loan trade list
+   * @param rates rates provider
+   * @param projector forward rate projector, shared by all lines of a request, or null for contractual rates
+   * @param explain true to include explains
+   * @return cash flows
+   */
+  private Bean cashflow(Bean bean, RatesProvider rates, ForwardRateProjector projector, boolean explain) {
+    ProratedLoanTradePricer pricer = ProratedLoanTradePricer.DEFAULT;
+
+    if (bean instanceof LoanTradeList)
+      return projector == null ? pricer.cashFlows(((LoanTradeList) bean).prorate(null), rates, explain) :
+          pricer.cashFlows(((LoanTradeList) bean).prorate(null), projector, explain);
+    else if (bean instanceof LoanTrade)
+      return projector == null ? pricer.cashFlows(((LoanTrade) bean).prorate(null), rates, explain) :
+          pricer.cashFlows(((LoanTrade) bean).prorate(null), projector, explain);
+    else
+      throw new IllegalArgumentException(
+          "Expected LoanTrade or LoanTradeList, found " + bean.getClass().getSimpleName());
+  }
+
+  /**
+   * Stream a daily mark-to-market series of accrued interest, present value and P&amp;L as newline-delimited
+   * JSON, one row per day as it is calculated.
+   * 
+   * @param request mark-to-market request
+   * @param response suspended response, resumed with the newline-delimited rows
+   */
+  @POST
+  @Path("/calculateMarkToMarket")
+  @Consumes({MediaType.APPLICATION_JSON, BeanMarshaller.APPLICATION_COMPACT_JSON, BeanMarshaller.APPLICATION_BINARY})
+  @Produces(APPLICATION_NDJSON)
+  public void markToMarket(Result<Bean> request, @Suspended AsyncResponse response) {
+    submitStreamed(PricingExecutors.HEAVY, response,
+        new MarkToMarketSeries(markToMarketRequest(request), MarketDataContext.INSTANCE.current(), false));
+  }
+
+  /**
+   * Stream a daily mark-to-market series as chunked CSV with a header row.
+   * 
+   * @param request mark-to-market request
+   * @param response suspended response, resumed with the CSV rows
+   */
+  @POST
+  @Path("/calculateMarkToMarket")
+  @Consumes({MediaType.APPLICATION_JSON, BeanMarshaller.APPLICATION_COMPACT_JSON, BeanMarshaller.APPLICATION_BINARY})
+  @Produces(TEXT_CSV + QS)
+  public void markToMarketCsv(Result<Bean> request, @Suspended AsyncResponse response) {
+    submitStreamed(PricingExecutors.HEAVY, response,
+        new MarkToMarketSeries(markToMarketRequest(request), MarketDataContext.INSTANCE.current(), true));
+  }
+
+  /**
+   * @param request parsed request
+   * @return mark-to-market request
+   * @throws BadRequestException if not a valid mark-to-market request, or one spanning more than
+   *         {@code loansum.markToMarket.maxDays} days
+   */
+  private static MarkToMarketRequest markToMarketRequest(Result<Bean> request) {
+    if (request.isFailure())
+      throw new BadRequestException(request.getFailure().getMessage());
+    else if (!(request.getValue() instanceof MarkToMarketRequest))
+      throw new BadRequestException("Expected MarkToMarketRequest, found " +
+          request.getValue().getClass().getSimpleName());
+
+    final MarkToMarketRequest markToMarket = (MarkToMarketRequest) request.getValue();
+    final long days = ChronoUnit.DAYS.between(markToMarket.getStartDate(), markToMarket.getEndDate()) + 1;
+
+    if (days > MARK_TO_MARKET_MAX_DAYS)
+      throw new BadRequestException("Mark-to-market series of " + days + " days exceeds maximum of " +
+          MARK_TO_MARKET_MAX_DAYS);
+
+    return markToMarket;
   }
 
   @POST
   @Path("/calculateProceeds")
-  @Consumes(MediaType.APPLICATION_JSON)
-  @Produces(MediaType.APPLICATION_JSON)
-  public Bean proceeds(Result<Bean> trade) {
+  @Consumes({MediaType.APPLICATION_JSON, BeanMarshaller.APPLICATION_COMPACT_JSON, BeanMarshaller.APPLICATION_BINARY})
+  @Produces({MediaType.APPLICATION_JSON, BeanMarshaller.APPLICATION_COMPACT_JSON + QS,
+      BeanMarshaller.APPLICATION_BINARY + QS})
+  public void proceeds(Result<Bean> trade, @QueryParam("valuationDate") String valuationDate,
+      @Suspended AsyncResponse response) {
+    final RequestTimings timings = new RequestTimings("calculateProceeds", request);
+
     if (trade.isSuccess()) {
-      ProratedLoanTrade proratedTrade = ((LoanTrade) trade.getValue()).prorate(null);
-      ProratedLoanTradePricer pricer = ProratedLoanTradePricer.DEFAULT;
-      RatesProvider rates = ImmutableRatesProvider.builder(LocalDate.now()).build();
+      final LocalDate date = valuationDate(valuationDate);
+      final MarketDataContext.Version marketData = MarketDataContext.INSTANCE.current();
+
+      submitCached(PricingExecutors.LIGHT, response, timings, timings.getCalculation(), date, marketData,
+          trade.getValue(), () -> {
+        ProratedLoanTrade proratedTrade = timings.time("prorate", () -> ((LoanTrade) trade.getValue()).prorate(null));
+        ProratedLoanTradePricer pricer = ProratedLoanTradePricer.DEFAULT;
+        RatesProvider rates = marketData.ratesProvider(date);
+        AnnotatedCashFlows proceeds = timings.time("price", () -> pricer.proceeds(proratedTrade, rates, true));
+
+        sizes(timings, Arrays.asList(proratedTrade), proceeds);
 
-      return pricer.proceeds(proratedTrade, rates, true);
+        return proceeds;
+      });
     } else
-      return trade.getFailure();
+      response.resume(trade.getFailure());
   }
 
+  /**
+   * Calculate the commitment breakdown of a facility: in force on a date if {@code asOf} is given, over a window
+   * if either of {@code startDate} and {@code endDate} is given, otherwise over the life of the facility.
+   * Lookups are served from the cached commitment index of the facility.
+   * 
+   * @param bean facility
+   * @param asOf date of the breakdown in force
+   * @param startDate start of window
+   * @param endDate end of window
+   * @param response suspended response
+   */
   @POST
   @Path("/calculateCommitment")
-  @Consumes(MediaType.APPLICATION_JSON)
-  @Produces(MediaType.APPLICATION_JSON)
-  public Bean commitment(Result<Bean> bean) {
+  @Consumes({MediaType.APPLICATION_JSON, BeanMarshaller.APPLICATION_COMPACT_JSON, BeanMarshaller.APPLICATION_BINARY})
+  @Produces({MediaType.APPLICATION_JSON, BeanMarshaller.APPLICATION_COMPACT_JSON + QS,
+      BeanMarshaller.APPLICATION_BINARY + QS})
+  public void commitment(Result<Bean> bean, @QueryParam("asOf") String asOf,
+      @QueryParam("startDate") String startDate, @QueryParam("endDate") String endDate,
+      @Suspended AsyncResponse response) {
+    final RequestTimings timings = new RequestTimings("calculateCommitment", request);
+    final LocalDate asOfDate = date("as-of date", asOf);
+    final LocalDate start = date("start date", startDate);
+    final LocalDate end = date("end date", endDate);
+
+    if (asOfDate != null && (start != null || end != null))
+      throw new BadRequestException("asOf cannot be combined with startDate or endDate");
+    if (start != null && end != null && start.isAfter(end))
+      throw new BadRequestException("startDate " + start + " is after endDate " + end);
+
     if (bean.isSuccess()) {
-      Facility loan = (Facility) bean.getValue();
-      Commitment commitment = Helper.generateCommitment(loan.getFacilityType(), loan.getStartDate(),
-          loan.getOriginalCommitmentAmount().getAmount(),
-          loan.getContracts(), loan.getEvents().stream().collect(Collectors.toList()));
-      return commitment;
+      PricingExecutors.submit(PricingExecutors.LIGHT, response, () -> {
+        Facility loan = (Facility) bean.getValue();
+        CommitmentIndex index = timings.time("index", () -> CommitmentIndex.of(loan));
+        Commitment commitment = timings.time("commitment", () -> asOfDate != null ? index.asOf(asOfDate) :
+            start != null || end != null ? index.window(start, end) : index.all());
+
+        timings.size("records", commitment.getCommitment().size());
+
+        return timings.response(commitment);
+      });
     } else
-      return bean.getFailure();
+      response.resume(bean.getFailure());
+  }
+
+  /**
+   * Report result cache size and cumulative hit and miss statistics.
+   * 
+   * @return cache statistics as JSON
+   */
+  @GET
+  @Path("/admin/cache")
+  @Produces(MediaType.APPLICATION_JSON)
+  public String cacheStatistics() {
+    final CacheStats stats = ResultCache.INSTANCE.stats();
+
+    return "{\"size\":" + ResultCache.INSTANCE.size() +
+        ",\"hitCount\":" + stats.hitCount() +
+        ",\"missCount\":" + stats.missCount() +
+        ",\"hitRate\":" + stats.hitRate() +
+        ",\"evictionCount\":" + stats.evictionCount() + "}";
+  }
+
+  /**
+   * Discard all cached results and commitment indexes.
+   */
+  @DELETE
+  @Path("/admin/cache")
+  public void clearCache() {
+    log.info("Clearing result cache");
+    ResultCache.INSTANCE.clear();
+    CommitmentIndex.clear();
+  }
+
+  /**
+   * Reload market data from the curve files of directory {@code loansum.marketData}, discarding all shared
+   * rates providers. Results cached against earlier market data are no longer hit.
+   * 
+   * @return new market data version
+   */
+  @POST
+  @Path("/admin/marketData/reload")
+  @Produces(MediaType.APPLICATION_JSON)
+  public String reloadMarketData() {
+    final long version = MarketDataContext.INSTANCE.reload().getNumber();
+
+    log.info("Reloaded market data, version " + version);
+
+    return "{\"version\":" + version + "}";
+  }
+
+  /**
+   * Report histograms of stage latencies, in microseconds, and of request sizes.
+   * 
+   * @return histograms as JSON
+   */
+  @GET
+  @Path("/admin/metrics")
+  @Produces(MediaType.APPLICATION_JSON)
+  public String metrics() {
+    return ServiceMetrics.toJson();
+  }
+
+  /**
+   * Record the number of trades, contracts, accruals and resulting cash flows of a request.
+   * 
+   * @param timings request timings
+   * @param trades prorated trades
+   * @param cashFlows resulting cash flows
+   */
+  private static void sizes(RequestTimings timings, List<ProratedLoanTrade> trades, AnnotatedCashFlows cashFlows) {
+    timings.size("trades", trades.size());
+    timings.size("contracts", trades.stream().mapToLong(trade -> trade.getProduct().getContracts().size()).sum());
+    timings.size("accruals", trades.stream()
+        .flatMap(trade -> trade.getProduct().getContracts().stream())
+        .mapToLong(contract -> contract.getAccrualSchedule().size())
+        .sum());
+    timings.size("flows", cashFlows.getCashFlows().size());
+  }
+
+  /**
+   * Parse a projection mode parameter.
+   * 
+   * @param projection {@code contractual} or {@code forward}
+   * @return true to project forward rates, false for contractual rates
+   * @throws BadRequestException if not a valid projection mode
+   */
+  private static boolean forward(String projection) {
+    if (projection.equals(FORWARD))
+      return true;
+    else if (projection.equals(CONTRACTUAL))
+      return false;
+    else
+      throw new BadRequestException("Expected projection contractual or forward, found " + projection);
+  }
+
+  /**
+   * Parse a valuation date parameter.
+   * 
+   * @param valuationDate ISO date or null
+   * @return valuation date, today if null
+   * @throws BadRequestException if not a valid date
+   */
+  private static LocalDate valuationDate(String valuationDate) {
+    final LocalDate date = date("valuation date", valuationDate);
+
+    return date == null ? LocalDate.now() : date;
+  }
+
+  /**
+   * Parse an optional date parameter.
+   * 
+   * @param name description of parameter
+   * @param date ISO date or null
+   * @return date, null if not given
+   * @throws BadRequestException if not a valid date
+   */
+  private static LocalDate date(String name, String date) {
+    if (date == null || date.isEmpty())
+      return null;
+
+    try {
+      return LocalDate.parse(date);
+    } catch (DateTimeParseException exc) {
+      throw new BadRequestException("Invalid " + name + " " + date, exc);
+    }
+  }
+
+  /**
+   * Stream a response from the given executor, or shed it with 503 if the executor is saturated. The response
+   * is resumed on a thread of the executor, which then writes it, so the calculation streamed runs on the
+   * executor rather than on a container thread.
+   * 
+   * @param executor executor to stream from
+   * @param response suspended response
+   * @param output streamed calculation
+   */
+  private static void submitStreamed(ExecutorService executor, AsyncResponse response, StreamingOutput output) {
+    PricingExecutors.submit(executor, response, () -> output);
+  }
+
+  /**
+   * Calculate on the given executor, resuming the response with a cached result of an identical request if
+   * there is one, otherwise calculating and caching the result. The request is hashed for its cache key on the
+   * executor too, so a large request does not hold a container thread while it is digested.
+   * 
+   * @param executor executor to calculate on
+   * @param response suspended response
+   * @param timings request timings
+   * @param calculation name of calculation in the cache key, distinguishing modes of the same endpoint
+   * @param valuationDate valuation date
+   * @param marketData market data version
+   * @param request request bean
+   * @param calculator the calculation
+   */
+  private static void submitCached(ExecutorService executor, AsyncResponse response, RequestTimings timings,
+      String calculation, LocalDate valuationDate, MarketDataContext.Version marketData, Bean request,
+      Supplier<Bean> calculator) {
+    PricingExecutors.submit(executor, response, () -> {
+      final String key = ResultCache.key(calculation, valuationDate, marketData.getNumber(), request);
+      final Bean cached = ResultCache.INSTANCE.get(key);
+
+      if (cached != null)
+        return timings.response(cached);
+
+      final Bean result = calculator.get();
+
+      ResultCache.INSTANCE.put(key, result);
+      return timings.response(result);
+    });
   }
 
 }
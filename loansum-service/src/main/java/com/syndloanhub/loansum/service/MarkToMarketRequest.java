@@ -0,0 +1,474 @@
+/**
+ * Copyright (c) 2018 SyndLoanHub, LLC and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License from within this distribution and at:
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.syndloanhub.loansum.service;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.joda.beans.Bean;
+import org.joda.beans.ImmutableBean;
+import org.joda.beans.JodaBeanUtils;
+import org.joda.beans.MetaBean;
+import org.joda.beans.MetaProperty;
+import org.joda.beans.gen.BeanDefinition;
+import org.joda.beans.gen.ImmutableValidator;
+import org.joda.beans.gen.PropertyDefinition;
+import org.joda.beans.impl.direct.DirectFieldsBeanBuilder;
+import org.joda.beans.impl.direct.DirectMetaBean;
+import org.joda.beans.impl.direct.DirectMetaProperty;
+import org.joda.beans.impl.direct.DirectMetaPropertyMap;
+
+import com.opengamma.strata.collect.ArgChecker;
+import com.opengamma.strata.collect.timeseries.LocalDateDoubleTimeSeries;
+import com.syndloanhub.loansum.product.facility.LoanTradeList;
+
+/**
+ * Request for a daily mark-to-market series of a set of trades over a date range.
+ */
+@BeanDefinition
+public final class MarkToMarketRequest implements ImmutableBean {
+
+  /**
+   * Trades to mark, a single trade is given as a list of one.
+   */
+  @PropertyDefinition(validate = "notNull")
+  private final LoanTradeList trades;
+
+  /**
+   * First date of the series.
+   */
+  @PropertyDefinition(validate = "notNull")
+  private final LocalDate startDate;
+
+  /**
+   * Last date of the series, inclusive.
+   */
+  @PropertyDefinition(validate = "notNull")
+  private final LocalDate endDate;
+
+  /**
+   * Clean price as a fraction of par, carried forward to dates without a price.
+   */
+  @PropertyDefinition(validate = "notNull")
+  private final LocalDateDoubleTimeSeries cleanPrices;
+
+  @ImmutableValidator
+  private void validate() {
+    ArgChecker.inOrderOrEqual(startDate, endDate, "startDate", "endDate");
+    ArgChecker.isFalse(cleanPrices.isEmpty(), "clean prices must not be empty");
+    ArgChecker.isFalse(cleanPrices.getEarliestDate().isAfter(startDate),
+        "first clean price must be on or before start date");
+  }
+
+  //------------------------- AUTOGENERATED START -------------------------
+  /**
+   * The meta-bean for {@code MarkToMarketRequest}.
+   * @return the meta-bean, not null
+   */
+  public static MarkToMarketRequest.Meta meta() {
+    return MarkToMarketRequest.Meta.INSTANCE;
+  }
+
+  static {
+    MetaBean.register(MarkToMarketRequest.Meta.INSTANCE);
+  }
+
+  /**
+   * Returns a builder used to create an instance of the bean.
+   * @return the builder, not null
+   */
+  public static MarkToMarketRequest.Builder builder() {
+    return new MarkToMarketRequest.Builder();
+  }
+
+  private MarkToMarketRequest(
+      LoanTradeList trades,
+      LocalDate startDate,
+      LocalDate endDate,
+      LocalDateDoubleTimeSeries cleanPrices) {
+    JodaBeanUtils.notNull(trades, "trades");
+    JodaBeanUtils.notNull(startDate, "startDate");
+    JodaBeanUtils.notNull(endDate, "endDate");
+    JodaBeanUtils.notNull(cleanPrices, "cleanPrices");
+    this.trades = trades;
+    this.startDate = startDate;
+    this.endDate = endDate;
+    this.cleanPrices = cleanPrices;
+    validate();
+  }
+
+  @Override
+  public MarkToMarketRequest.Meta metaBean() {
+    return MarkToMarketRequest.Meta.INSTANCE;
+  }
+
+  //-----------------------------------------------------------------------
+  /**
+   * Gets trades to mark, a single trade is given as a list of one.
+   * @return the value of the property, not null
+   */
+  public LoanTradeList getTrades() {
+    return trades;
+  }
+
+  //-----------------------------------------------------------------------
+  /**
+   * Gets first date of the series.
+   * @return the value of the property, not null
+   */
+  public LocalDate getStartDate() {
+    return startDate;
+  }
+
+  //-----------------------------------------------------------------------
+  /**
+   * Gets last date of the series, inclusive.
+   * @return the value of the property, not null
+   */
+  public LocalDate getEndDate() {
+    return endDate;
+  }
+
+  //-----------------------------------------------------------------------
+  /**
+   * Gets clean price as a fraction of par, carried forward to dates without a price.
+   * @return the value of the property, not null
+   */
+  public LocalDateDoubleTimeSeries getCleanPrices() {
+    return cleanPrices;
+  }
+
+  //-----------------------------------------------------------------------
+  /**
+   * Returns a builder that allows this bean to be mutated.
+   * @return the mutable builder, not null
+   */
+  public Builder toBuilder() {
+    return new Builder(this);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj == this) {
+      return true;
+    }
+    if (obj != null && obj.getClass() == this.getClass()) {
+      MarkToMarketRequest other = (MarkToMarketRequest) obj;
+      return JodaBeanUtils.equal(trades, other.trades) &&
+          JodaBeanUtils.equal(startDate, other.startDate) &&
+          JodaBeanUtils.equal(endDate, other.endDate) &&
+          JodaBeanUtils.equal(cleanPrices, other.cleanPrices);
+    }
+    return false;
+  }
+
+  @Override
+  public int hashCode() {
+    int hash = getClass().hashCode();
+    hash = hash * 31 + JodaBeanUtils.hashCode(trades);
+    hash = hash * 31 + JodaBeanUtils.hashCode(startDate);
+    hash = hash * 31 + JodaBeanUtils.hashCode(endDate);
+    hash = hash * 31 + JodaBeanUtils.hashCode(cleanPrices);
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder buf = new StringBuilder(160);
+    buf.append("MarkToMarketRequest{");
+    buf.append("trades").append('=').append(trades).append(',').append(' ');
+    buf.append("startDate").append('=').append(startDate).append(',').append(' ');
+    buf.append("endDate").append('=').append(endDate).append(',').append(' ');
+    buf.append("cleanPrices").append('=').append(JodaBeanUtils.toString(cleanPrices));
+    buf.append('}');
+    return buf.toString();
+  }
+
+  //-----------------------------------------------------------------------
+  /**
+   * The meta-bean for {@code MarkToMarketRequest}.
+   */
+  public static final class Meta extends DirectMetaBean {
+    /**
+     * The singleton instance of the meta-bean.
+     */
+    static final Meta INSTANCE = new Meta();
+
+    /**
+     * The meta-property for the {@code trades} property.
+     */
+    private final MetaProperty<LoanTradeList> _trades = DirectMetaProperty.ofImmutable(
+        this, "trades", MarkToMarketRequest.class, LoanTradeList.class);
+    /**
+     * The meta-property for the {@code startDate} property.
+     */
+    private final MetaProperty<LocalDate> _startDate = DirectMetaProperty.ofImmutable(
+        this, "startDate", MarkToMarketRequest.class, LocalDate.class);
+    /**
+     * The meta-property for the {@code endDate} property.
+     */
+    private final MetaProperty<LocalDate> _endDate = DirectMetaProperty.ofImmutable(
+        this, "endDate", MarkToMarketRequest.class, LocalDate.class);
+    /**
+     * The meta-property for the {@code cleanPrices} property.
+     */
+    private final MetaProperty<LocalDateDoubleTimeSeries> _cleanPrices = DirectMetaProperty.ofImmutable(
+        this, "cleanPrices", MarkToMarketRequest.class, LocalDateDoubleTimeSeries.class);
+    /**
+     * The meta-properties.
+     */
+    private final Map<String, MetaProperty<?>> _metaPropertyMap$ = new DirectMetaPropertyMap(
+        this, null,
+        "trades",
+        "startDate",
+        "endDate",
+        "cleanPrices");
+
+    /**
+     * Restricted constructor.
+     */
+    private Meta() {
+    }
+
+    @Override
+    protected MetaProperty<?> metaPropertyGet(String propertyName) {
+      switch (propertyName.hashCode()) {
+        case -865715313:  // trades
+          return _trades;
+        case -2129778896:  // startDate
+          return _startDate;
+        case -1607727319:  // endDate
+          return _endDate;
+        case -928546829:  // cleanPrices
+          return _cleanPrices;
+      }
+      return super.metaPropertyGet(propertyName);
+    }
+
+    @Override
+    public MarkToMarketRequest.Builder builder() {
+      return new MarkToMarketRequest.Builder();
+    }
+
+    @Override
+    public Class<? extends MarkToMarketRequest> beanType() {
+      return MarkToMarketRequest.class;
+    }
+
+    @Override
+    public Map<String, MetaProperty<?>> metaPropertyMap() {
+      return _metaPropertyMap$;
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * The meta-property for the {@code trades} property.
+     * @return the meta-property, not null
+     */
+    public MetaProperty<LoanTradeList> trades() {
+      return _trades;
+    }
+
+    /**
+     * The meta-property for the {@code startDate} property.
+     * @return the meta-property, not null
+     */
+    public MetaProperty<LocalDate> startDate() {
+      return _startDate;
+    }
+
+    /**
+     * The meta-property for the {@code endDate} property.
+     * @return the meta-property, not null
+     */
+    public MetaProperty<LocalDate> endDate() {
+      return _endDate;
+    }
+
+    /**
+     * The meta-property for the {@code cleanPrices} property.
+     * @return the meta-property, not null
+     */
+    public MetaProperty<LocalDateDoubleTimeSeries> cleanPrices() {
+      return _cleanPrices;
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    protected Object propertyGet(Bean bean, String propertyName, boolean quiet) {
+      switch (propertyName.hashCode()) {
+        case -865715313:  // trades
+          return ((MarkToMarketRequest) bean).getTrades();
+        case -2129778896:  // startDate
+          return ((MarkToMarketRequest) bean).getStartDate();
+        case -1607727319:  // endDate
+          return ((MarkToMarketRequest) bean).getEndDate();
+        case -928546829:  // cleanPrices
+          return ((MarkToMarketRequest) bean).getCleanPrices();
+      }
+      return super.propertyGet(bean, propertyName, quiet);
+    }
+
+    @Override
+    protected void propertySet(Bean bean, String propertyName, Object newValue, boolean quiet) {
+      metaProperty(propertyName);
+      if (quiet) {
+        return;
+      }
+      throw new UnsupportedOperationException("Property cannot be written: " + propertyName);
+    }
+
+  }
+
+  //-----------------------------------------------------------------------
+  /**
+   * The bean-builder for {@code MarkToMarketRequest}.
+   */
+  public static final class Builder extends DirectFieldsBeanBuilder<MarkToMarketRequest> {
+
+    private LoanTradeList trades;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private LocalDateDoubleTimeSeries cleanPrices;
+
+    /**
+     * Restricted constructor.
+     */
+    private Builder() {
+    }
+
+    /**
+     * Restricted copy constructor.
+     * @param beanToCopy  the bean to copy from, not null
+     */
+    private Builder(MarkToMarketRequest beanToCopy) {
+      this.trades = beanToCopy.getTrades();
+      this.startDate = beanToCopy.getStartDate();
+      this.endDate = beanToCopy.getEndDate();
+      this.cleanPrices = beanToCopy.getCleanPrices();
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public Object get(String propertyName) {
+      switch (propertyName.hashCode()) {
+        case -865715313:  // trades
+          return trades;
+        case -2129778896:  // startDate
+          return startDate;
+        case -1607727319:  // endDate
+          return endDate;
+        case -928546829:  // cleanPrices
+          return cleanPrices;
+        default:
+          throw new NoSuchElementException("Unknown property: " + propertyName);
+      }
+    }
+
+    @Override
+    public Builder set(String propertyName, Object newValue) {
+      switch (propertyName.hashCode()) {
+        case -865715313:  // trades
+          this.trades = (LoanTradeList) newValue;
+          break;
+        case -2129778896:  // startDate
+          this.startDate = (LocalDate) newValue;
+          break;
+        case -1607727319:  // endDate
+          this.endDate = (LocalDate) newValue;
+          break;
+        case -928546829:  // cleanPrices
+          this.cleanPrices = (LocalDateDoubleTimeSeries) newValue;
+          break;
+        default:
+          throw new NoSuchElementException("Unknown property: " + propertyName);
+      }
+      return this;
+    }
+
+    @Override
+    public Builder set(MetaProperty<?> property, Object value) {
+      super.set(property, value);
+      return this;
+    }
+
+    @Override
+    public MarkToMarketRequest build() {
+      return new MarkToMarketRequest(
+          trades,
+          startDate,
+          endDate,
+          cleanPrices);
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Sets trades to mark, a single trade is given as a list of one.
+     * @param trades  the new value, not null
+     * @return this, for chaining, not null
+     */
+    public Builder trades(LoanTradeList trades) {
+      JodaBeanUtils.notNull(trades, "trades");
+      this.trades = trades;
+      return this;
+    }
+
+    /**
+     * Sets first date of the series.
+     * @param startDate  the new value, not null
+     * @return this, for chaining, not null
+     */
+    public Builder startDate(LocalDate startDate) {
+      JodaBeanUtils.notNull(startDate, "startDate");
+      this.startDate = startDate;
+      return this;
+    }
+
+    /**
+     * Sets last date of the series, inclusive.
+     * @param endDate  the new value, not null
+     * @return this, for chaining, not null
+     */
+    public Builder endDate(LocalDate endDate) {
+      JodaBeanUtils.notNull(endDate, "endDate");
+      this.endDate = endDate;
+      return this;
+    }
+
+    /**
+     * Sets clean price as a fraction of par, carried forward to dates without a price.
+     * @param cleanPrices  the new value, not null
+     * @return this, for chaining, not null
+     */
+    public Builder cleanPrices(LocalDateDoubleTimeSeries cleanPrices) {
+      JodaBeanUtils.notNull(cleanPrices, "cleanPrices");
+      this.cleanPrices = cleanPrices;
+      return this;
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public String toString() {
+      StringBuilder buf = new StringBuilder(160);
+      buf.append("MarkToMarketRequest.Builder{");
+      buf.append("trades").append('=').append(JodaBeanUtils.toString(trades)).append(',').append(' ');
+      buf.append("startDate").append('=').append(JodaBeanUtils.toString(startDate)).append(',').append(' ');
+      buf.append("endDate").append('=').append(JodaBeanUtils.toString(endDate)).append(',').append(' ');
+      buf.append("cleanPrices").append('=').append(JodaBeanUtils.toString(cleanPrices));
+      buf.append('}');
+      return buf.toString();
+    }
+
+  }
+
+  //-------------------------- AUTOGENERATED END --------------------------
+}
@@ -0,0 +1,113 @@
+/**
+ * Copyright (c) 2018 SyndLoanHub, LLC and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License from within this distribution and at:
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.syndloanhub.loansum.service;
+
+import static com.syndloanhub.loansum.product.facility.Helper.tsget;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.StreamingOutput;
+
+import com.opengamma.strata.pricer.rate.RatesProvider;
+import com.syndloanhub.loansum.pricer.facility.prorated.AccruedInterestCurve;
+import com.syndloanhub.loansum.pricer.facility.prorated.ProratedLoanTradePricer;
+import com.syndloanhub.loansum.product.facility.AnnotatedCashFlow;
+import com.syndloanhub.loansum.product.facility.prorated.ProratedLoanTrade;
+import com.syndloanhub.loansum.product.facility.prorated.ProratedLoanTradeList;
+
+/**
+ * Streams a daily mark-to-market series, one row per calendar day of the requested range, as each day is
+ * calculated.
+ * <p>
+ * Each row holds accrued interest, present value at the day's clean price, cash flows paid that day, daily
+ * P&amp;L, the change in present value plus cash, and cumulative P&amp;L. Amounts of sold positions are
+ * negative. Trades are prorated and their cash flows and accrued interest curves built once up front, so
+ * each day costs one present value per trade. Each day's rates provider is built for the series alone rather
+ * than shared, see {@link MarketDataContext.Version#unsharedRatesProvider(LocalDate)}.
+ */
+final class MarkToMarketSeries implements StreamingOutput {
+
+  private static final String CSV_HEADER = "date,accruedInterest,presentValue,cash,pnl,cumulativePnl";
+
+  private final MarkToMarketRequest request;
+  private final MarketDataContext.Version marketData;
+  private final boolean csv;
+
+  /**
+   * Create a mark-to-market series.
+   * 
+   * @param request the request
+   * @param marketData market data version providing each day's rates
+   * @param csv true for CSV rows with a header, false for newline-delimited JSON
+   */
+  MarkToMarketSeries(MarkToMarketRequest request, MarketDataContext.Version marketData, boolean csv) {
+    this.request = request;
+    this.marketData = marketData;
+    this.csv = csv;
+  }
+
+  @Override
+  public void write(OutputStream output) throws IOException, WebApplicationException {
+    final ProratedLoanTradePricer pricer = ProratedLoanTradePricer.DEFAULT;
+    final ProratedLoanTradeList trades = request.getTrades().prorate(null);
+    final List<AccruedInterestCurve> curves = trades.getTrades().stream()
+        .map(AccruedInterestCurve::new)
+        .collect(Collectors.toList());
+    final Map<LocalDate, Double> cash = new HashMap<LocalDate, Double>();
+    final RatesProvider endRates = marketData.unsharedRatesProvider(request.getEndDate());
+
+    for (AnnotatedCashFlow cashFlow : pricer.cashFlows(trades, endRates, false).getCashFlows())
+      cash.merge(cashFlow.getCashFlow().getPaymentDate(), cashFlow.getCashFlow().getForecastValue().getAmount(),
+          Double::sum);
+
+    final Writer writer = new OutputStreamWriter(output, StandardCharsets.UTF_8);
+    double lastPresentValue = Double.NaN, cumulativePnl = 0;
+
+    if (csv)
+      writer.write(CSV_HEADER + "\n");
+
+    for (LocalDate date = request.getStartDate(); !date.isAfter(request.getEndDate()); date = date.plusDays(1)) {
+      final RatesProvider rates = marketData.unsharedRatesProvider(date);
+      final double cleanPrice = tsget(request.getCleanPrices(), date);
+      double accruedInterest = 0, presentValue = 0;
+
+      for (int i = 0; i < curves.size(); i++) {
+        final ProratedLoanTrade trade = trades.getTrades().get(i);
+        final double sign = trade.getBuySell().isBuy() ? 1 : -1;
+
+        accruedInterest += sign * curves.get(i).accruedInterest(date).getAmount();
+        presentValue += pricer.presentValueFromCleanPrice(trade, rates, cleanPrice, curves.get(i)).getAmount();
+      }
+
+      final double dayCash = cash.getOrDefault(date, 0d);
+      final double pnl = (Double.isNaN(lastPresentValue) ? 0 : presentValue - lastPresentValue) + dayCash;
+
+      cumulativePnl += pnl;
+      lastPresentValue = presentValue;
+
+      writer.write(csv ?
+          date + "," + accruedInterest + "," + presentValue + "," + dayCash + "," + pnl + "," + cumulativePnl + "\n" :
+          "{\"date\":\"" + date + "\",\"accruedInterest\":" + accruedInterest + ",\"presentValue\":" + presentValue +
+              ",\"cash\":" + dayCash + ",\"pnl\":" + pnl + ",\"cumulativePnl\":" + cumulativePnl + "}\n");
+      writer.flush();
+    }
+  }
+}
@@ -0,0 +1,200 @@
+/**
+ * Copyright (c) 2018 SyndLoanHub, LLC and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License from within this distribution and at:
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.syndloanhub.loansum.service;
+
+import java.io.File;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.Multimaps;
+import com.opengamma.strata.collect.ArgChecker;
+import com.opengamma.strata.collect.io.ResourceLocator;
+import com.opengamma.strata.loader.csv.RatesCurvesCsvLoader;
+import com.opengamma.strata.market.curve.RatesCurveGroup;
+import com.opengamma.strata.pricer.rate.ImmutableRatesProvider;
+import com.opengamma.strata.pricer.rate.ImmutableRatesProviderBuilder;
+import com.opengamma.strata.pricer.rate.RatesProvider;
+
+/**
+ * Rates providers shared by all service requests, one per valuation date of the current market data version.
+ * <p>
+ * A provider is built the first time its valuation date is requested and reused until new market data is
+ * loaded, at most {@code loansum.marketData.providers} of them per version, default 64, the least recently
+ * used being rebuilt on demand. Loading swaps in a new version atomically: requests already running keep the
+ * version they started with, later requests build and share providers from the new data.
+ * <p>
+ * Market data is read from the Strata curve CSV files of directory {@code loansum.marketData}: curve groups
+ * {@code groups.csv}, curve settings {@code settings.csv} and curve values in every other CSV file. Without it,
+ * or for a valuation date before the first market data date, providers have no curves.
+ */
+final class MarketDataContext {
+  private static final Logger log = LoggerFactory.getLogger(MarketDataContext.class);
+
+  private static final int PROVIDERS = Integer.getInteger("loansum.marketData.providers", 64);
+
+  private static final String GROUPS = "groups.csv";
+  private static final String SETTINGS = "settings.csv";
+
+  /**
+   * Context shared by all service requests, over the market data of directory {@code loansum.marketData}.
+   */
+  static final MarketDataContext INSTANCE = new MarketDataContext(System.getProperty("loansum.marketData"));
+
+  /**
+   * Immutable market data version and the providers built from it so far.
+   */
+  static final class Version {
+    private final long number;
+    private final Function<LocalDate, RatesProvider> factory;
+    private final LoadingCache<LocalDate, RatesProvider> providers;
+
+    private Version(long number, Function<LocalDate, RatesProvider> factory) {
+      this.number = number;
+      this.factory = factory;
+      this.providers = CacheBuilder.newBuilder().maximumSize(PROVIDERS).build(CacheLoader.from(factory::apply));
+    }
+
+    /**
+     * @return version number, increasing with each load
+     */
+    long getNumber() {
+      return number;
+    }
+
+    /**
+     * Return the rates provider of a valuation date, building it on first use.
+     * 
+     * @param valuationDate the valuation date
+     * @return rates provider
+     */
+    RatesProvider ratesProvider(LocalDate valuationDate) {
+      return providers.getUnchecked(valuationDate);
+    }
+
+    /**
+     * Return the shared rates provider of a valuation date if already built, otherwise build one without
+     * sharing it, so a request spanning many valuation dates does not evict the providers of others.
+     * 
+     * @param valuationDate the valuation date
+     * @return rates provider
+     */
+    RatesProvider unsharedRatesProvider(LocalDate valuationDate) {
+      final RatesProvider shared = providers.getIfPresent(valuationDate);
+
+      return shared != null ? shared : factory.apply(valuationDate);
+    }
+  }
+
+  private final String directory;
+  private final AtomicReference<Version> current;
+
+  /**
+   * Create a context over initial market data.
+   * 
+   * @param factory builds the rates provider of a valuation date
+   */
+  MarketDataContext(Function<LocalDate, RatesProvider> factory) {
+    directory = null;
+    current = new AtomicReference<Version>(new Version(0, ArgChecker.notNull(factory, "factory")));
+  }
+
+  /**
+   * Create a context over the market data of a directory of Strata curve CSV files.
+   * 
+   * @param directory market data directory, null for no curves
+   */
+  MarketDataContext(String directory) {
+    this.directory = directory;
+    current = new AtomicReference<Version>(new Version(0, curves(directory)));
+  }
+
+  /**
+   * @return current market data version
+   */
+  Version current() {
+    return current.get();
+  }
+
+  /**
+   * Load new market data, replacing the current version.
+   * 
+   * @param factory builds the rates provider of a valuation date from the new data
+   * @return new market data version
+   */
+  Version load(Function<LocalDate, RatesProvider> factory) {
+    ArgChecker.notNull(factory, "factory");
+
+    return current.updateAndGet(version -> new Version(version.getNumber() + 1, factory));
+  }
+
+  /**
+   * Reload market data, discarding all built providers. Market data files are read again, so changes to
+   * them since the last load are picked up.
+   * 
+   * @return new market data version
+   */
+  Version reload() {
+    if (directory == null)
+      return current.updateAndGet(version -> new Version(version.getNumber() + 1, version.factory));
+
+    return load(curves(directory));
+  }
+
+  /**
+   * Read the curves of all market data dates from a directory of Strata curve CSV files, returning a factory
+   * of rates providers with the curves of the latest market data date on or before their valuation date.
+   * 
+   * @param directory market data directory, null for no curves
+   * @return rates provider factory
+   */
+  static Function<LocalDate, RatesProvider> curves(String directory) {
+    final TreeMap<LocalDate, List<RatesCurveGroup>> groups = new TreeMap<LocalDate, List<RatesCurveGroup>>();
+
+    if (directory != null) {
+      final File[] files = new File(directory).listFiles((dir, name) -> name.endsWith(".csv"));
+
+      ArgChecker.isTrue(files != null, "Market data directory {} cannot be read", directory);
+
+      final List<ResourceLocator> values = new ArrayList<ResourceLocator>();
+
+      for (File file : files)
+        if (!file.getName().equals(GROUPS) && !file.getName().equals(SETTINGS))
+          values.add(ResourceLocator.ofFile(file));
+
+      groups.putAll(Multimaps.asMap(RatesCurvesCsvLoader.loadAllDates(
+          ResourceLocator.ofFile(new File(directory, GROUPS)),
+          ResourceLocator.ofFile(new File(directory, SETTINGS)), values)));
+      log.info("Read curves of " + groups.size() + " market data dates from " + directory);
+    }
+
+    return valuationDate -> {
+      final ImmutableRatesProviderBuilder builder = ImmutableRatesProvider.builder(valuationDate);
+      final Map.Entry<LocalDate, List<RatesCurveGroup>> entry = groups.floorEntry(valuationDate);
+
+      if (entry != null)
+        for (RatesCurveGroup group : entry.getValue())
+          builder.discountCurves(group.getDiscountCurves()).indexCurves(group.getForwardCurves());
+
+      return builder.build();
+    };
+  }
+}
@@ -0,0 +1,264 @@
+/**
+ * Copyright (c) 2018 SyndLoanHub, LLC and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License from within this distribution and at:
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.syndloanhub.loansum.service;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.joda.beans.Bean;
+import org.joda.beans.ser.JodaBeanSer;
+
+import com.google.common.collect.Iterables;
+import com.opengamma.strata.collect.ArgChecker;
+import com.syndloanhub.loansum.product.facility.Facility;
+import com.syndloanhub.loansum.product.facility.prorated.ProratedLoanTrade;
+import com.syndloanhub.loansum.product.facility.prorated.ProratedLoanTradeList;
+
+/**
+ * Versioned binary snapshot of prorated trades and facilities, written at shutdown or checkpoint and
+ * loaded through memory-mapped I/O on restart.
+ * <p>
+ * Each trade and facility is a record in compact Joda binary form, which carries the prorated state and
+ * generated commitment schedules, so loading neither reparses JSON nor reprorates. Loading maps the file and
+ * reads only its index; a record is decoded the first time it is accessed and kept thereafter.
+ * <p>
+ * Layout, big-endian: magic {@code LSUM}, format version, records, then an index of the start offset of
+ * every record followed by the end of the last, then the number of trades, the number of facilities and the
+ * offset of the index. Trades precede facilities. Snapshots are limited to 2GB, checked as records are written
+ * so an oversized snapshot never replaces the last good one.
+ */
+public final class PortfolioSnapshot {
+
+  /**
+   * Current format version.
+   */
+  static final int VERSION = 1;
+
+  private static final int MAGIC = 0x4c53554d;
+  private static final int HEADER = 8;
+  private static final int FOOTER = 16;
+
+  private final ByteBuffer buffer;
+  private final int trades;
+  private final int facilities;
+  private final long[] offsets;
+  private final AtomicReferenceArray<Bean> records;
+
+  private PortfolioSnapshot(ByteBuffer buffer, int trades, int facilities, long[] offsets) {
+    this.buffer = buffer;
+    this.trades = trades;
+    this.facilities = facilities;
+    this.offsets = offsets;
+    this.records = new AtomicReferenceArray<Bean>(trades + facilities);
+  }
+
+  /**
+   * Write a snapshot, replacing any existing file only once the new one is complete.
+   * 
+   * @param path snapshot file
+   * @param trades prorated trades
+   * @param facilities facilities
+   * @throws IOException if the snapshot cannot be written
+   * @throws IllegalArgumentException if the snapshot would exceed 2GB, in which case any existing file is kept
+   */
+  public static void write(Path path, ProratedLoanTradeList trades, List<Facility> facilities) throws IOException {
+    ArgChecker.notNull(trades, "trades");
+    ArgChecker.notNull(facilities, "facilities");
+
+    final Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+    final int count = trades.getTrades().size() + facilities.size();
+    final long[] offsets = new long[count + 1];
+
+    try {
+      try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+          StandardOpenOption.WRITE);
+          DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)))) {
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+
+        long position = HEADER;
+        int i = 0;
+
+        for (Bean record : Iterables.<Bean>concat(trades.getTrades(), facilities)) {
+          final byte[] bytes = JodaBeanSer.COMPACT.binWriter().write(record);
+
+          offsets[i++] = position;
+          position += bytes.length;
+          ArgChecker.isTrue(position + 8L * offsets.length + FOOTER <= Integer.MAX_VALUE,
+              "Snapshot {} would exceed 2GB", path);
+          output.write(bytes);
+        }
+
+        offsets[count] = position;
+
+        for (long offset : offsets)
+          output.writeLong(offset);
+
+        output.writeInt(trades.getTrades().size());
+        output.writeInt(facilities.size());
+        output.writeLong(position);
+
+        // Force the file to disk before it replaces the old one, so a crash cannot leave an incomplete snapshot.
+        output.flush();
+        channel.force(true);
+      }
+
+      Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException | RuntimeException exc) {
+      Files.deleteIfExists(temp);
+      throw exc;
+    }
+  }
+
+  /**
+   * Map a snapshot, reading only its index.
+   * 
+   * @param path snapshot file
+   * @return snapshot
+   * @throws IOException if the snapshot cannot be read
+   * @throws IllegalArgumentException if the file is not a snapshot of the current format version
+   */
+  public static PortfolioSnapshot open(Path path) throws IOException {
+    final MappedByteBuffer buffer;
+
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      ArgChecker.isTrue(channel.size() >= HEADER + FOOTER && channel.size() <= Integer.MAX_VALUE,
+          "{} is not a snapshot", path);
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+
+    ArgChecker.isTrue(buffer.getInt(0) == MAGIC, "{} is not a snapshot", path);
+    ArgChecker.isTrue(buffer.getInt(4) == VERSION, "{} is snapshot format version {}, expected {}", path,
+        buffer.getInt(4), VERSION);
+
+    final int footer = buffer.limit() - FOOTER;
+    final int trades = buffer.getInt(footer);
+    final int facilities = buffer.getInt(footer + 4);
+    final long index = buffer.getLong(footer + 8);
+    final long[] offsets = new long[trades + facilities + 1];
+
+    ArgChecker.isTrue(trades >= 0 && facilities >= 0 && index + 8L * offsets.length == footer,
+        "{} has a corrupt index", path);
+
+    for (int i = 0; i < offsets.length; i++)
+      offsets[i] = buffer.getLong((int) index + 8 * i);
+
+    return new PortfolioSnapshot(buffer, trades, facilities, offsets);
+  }
+
+  /**
+   * @return number of trades
+   */
+  public int tradeCount() {
+    return trades;
+  }
+
+  /**
+   * @return number of facilities
+   */
+  public int facilityCount() {
+    return facilities;
+  }
+
+  /**
+   * @param i index of trade
+   * @return trade, decoded on first access
+   */
+  public ProratedLoanTrade trade(int i) {
+    ArgChecker.inRange(i, 0, trades, "i");
+    return (ProratedLoanTrade) record(i);
+  }
+
+  /**
+   * @param i index of facility
+   * @return facility, decoded on first access
+   */
+  public Facility facility(int i) {
+    ArgChecker.inRange(i, 0, facilities, "i");
+    return (Facility) record(trades + i);
+  }
+
+  /**
+   * @return trades, each decoded on first access
+   */
+  public List<ProratedLoanTrade> trades() {
+    return new AbstractList<ProratedLoanTrade>() {
+      @Override
+      public ProratedLoanTrade get(int i) {
+        return trade(i);
+      }
+
+      @Override
+      public int size() {
+        return trades;
+      }
+    };
+  }
+
+  /**
+   * @return facilities, each decoded on first access
+   */
+  public List<Facility> facilities() {
+    return new AbstractList<Facility>() {
+      @Override
+      public Facility get(int i) {
+        return facility(i);
+      }
+
+      @Override
+      public int size() {
+        return facilities;
+      }
+    };
+  }
+
+  /**
+   * @return all trades, decoding any not yet accessed
+   */
+  public ProratedLoanTradeList toTradeList() {
+    return ProratedLoanTradeList.builder().trades(trades()).build();
+  }
+
+  /**
+   * Decode a record on first access. Concurrent first accesses may each decode, one result is kept.
+   * 
+   * @param i index of record
+   * @return the record
+   */
+  private Bean record(int i) {
+    final Bean record = records.get(i);
+
+    if (record != null)
+      return record;
+
+    final ByteBuffer slice = buffer.duplicate();
+    final byte[] bytes = new byte[(int) (offsets[i + 1] - offsets[i])];
+
+    slice.position((int) offsets[i]);
+    slice.get(bytes);
+
+    records.compareAndSet(i, null, JodaBeanSer.COMPACT.binReader().read(bytes));
+
+    return records.get(i);
+  }
+}
@@ -0,0 +1,126 @@
+/**
+ * Copyright (c) 2018 SyndLoanHub, LLC and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License from within this distribution and at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.syndloanhub.loansum.service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executors on which service requests are calculated, off the servlet container threads.
+ * <p>
+ * Heavy work, such as cash flows of trade lists, and light work, such as proceeds of a single trade,
+ * run on separate pools so a large portfolio request cannot starve cheap ones. Each pool has a bounded
+ * queue, when it is full further requests are shed with 503 Service Unavailable rather than queued
+ * without limit. Pool and queue sizes are read from system properties:
+ * <ul>
+ * <li>{@code loansum.heavy.threads}, default available processors</li>
+ * <li>{@code loansum.heavy.queue}, default 16</li>
+ * <li>{@code loansum.light.threads}, default twice available processors</li>
+ * <li>{@code loansum.light.queue}, default 256</li>
+ * <li>{@code loansum.bulk.threads}, default available processors</li>
+ * <li>{@code loansum.bulk.queue}, default 256</li>
+ * </ul>
+ */
+final class PricingExecutors {
+  private static final Logger log = LoggerFactory.getLogger(PricingExecutors.class);
+
+  private static final int PROCESSORS = Runtime.getRuntime().availableProcessors();
+
+  /**
+   * Seconds a shed client is asked to wait before retrying.
+   */
+  static final int RETRY_AFTER = 1;
+
+  /**
+   * Pool for long-running requests.
+   */
+  static final ExecutorService HEAVY = boundedPool("loansum-heavy",
+      Integer.getInteger("loansum.heavy.threads", PROCESSORS), Integer.getInteger("loansum.heavy.queue", 16));
+
+  /**
+   * Pool for short requests.
+   */
+  static final ExecutorService LIGHT = boundedPool("loansum-light",
+      Integer.getInteger("loansum.light.threads", 2 * PROCESSORS), Integer.getInteger("loansum.light.queue", 256));
+
+  /**
+   * Pool for the lines of bulk requests, shared by all bulk requests each of which bounds its own in-flight lines.
+   */
+  static final ExecutorService BULK = boundedPool("loansum-bulk",
+      Integer.getInteger("loansum.bulk.threads", PROCESSORS), Integer.getInteger("loansum.bulk.queue", 256));
+
+  private PricingExecutors() {
+  }
+
+  /**
+   * Run a calculation on the given executor and resume the response with its result, or with 503 if the
+   * executor is saturated. A calculation which throws, including an {@link Error} such as running out of
+   * memory, resumes the response with what it threw, so the client is never left waiting.
+   *
+   * @param executor executor to run on
+   * @param response suspended response
+   * @param calculation the calculation
+   */
+  static void submit(ExecutorService executor, AsyncResponse response, Supplier<?> calculation) {
+    try {
+      executor.execute(() -> {
+        try {
+          response.resume(calculation.get());
+        } catch (Throwable exc) {
+          response.resume(exc);
+        }
+      });
+    } catch (RejectedExecutionException exc) {
+      log.warn("Shedding request, executor saturated");
+      response.resume(Response.status(Status.SERVICE_UNAVAILABLE).header("Retry-After", RETRY_AFTER).build());
+    }
+  }
+
+  /**
+   * Create a fixed-size pool with a bounded queue which rejects work once full.
+   *
+   * @param name thread name prefix
+   * @param threads number of threads
+   * @param queue queue capacity
+   * @return executor
+   */
+  private static ExecutorService boundedPool(String name, int threads, int queue) {
+    return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(queue),
+        daemonThreads(name), new ThreadPoolExecutor.AbortPolicy());
+  }
+
+  /**
+   * @param name thread name prefix
+   * @return factory of named daemon threads
+   */
+  private static ThreadFactory daemonThreads(String name) {
+    final AtomicInteger count = new AtomicInteger();
+
+    return runnable -> {
+      Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+}
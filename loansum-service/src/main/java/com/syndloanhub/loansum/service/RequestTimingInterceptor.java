@@ -0,0 +1,59 @@
+/**
+ * Copyright (c) 2018 SyndLoanHub, LLC and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License from within this distribution and at:
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.syndloanhub.loansum.service;
+
+import java.io.IOException;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.ReaderInterceptor;
+import javax.ws.rs.ext.ReaderInterceptorContext;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+import org.joda.beans.Bean;
+
+/**
+ * Times parsing of request beans and serialisation of response beans.
+ * <p>
+ * Timings are handed to and from {@link RequestTimings} as properties of the request, so they belong to the
+ * request whichever thread reads or writes it. Parse time is stored for the resource method to record, and
+ * serialisation time is recorded under the calculation the resource method named, or under
+ * {@code serialise} alone if it named none.
+ */
+@Provider
+public class RequestTimingInterceptor implements ReaderInterceptor, WriterInterceptor {
+
+  @Override
+  public Object aroundReadFrom(ReaderInterceptorContext context) throws IOException, WebApplicationException {
+    final long start = System.nanoTime();
+    final Object entity = context.proceed();
+
+    if (Bean.class.isAssignableFrom(context.getType()))
+      context.setProperty(RequestTimings.PARSE_NANOS, System.nanoTime() - start);
+
+    return entity;
+  }
+
+  @Override
+  public void aroundWriteTo(WriterInterceptorContext context) throws IOException, WebApplicationException {
+    final long start = System.nanoTime();
+
+    context.proceed();
+
+    if (context.getEntity() instanceof Bean) {
+      final Object calculation = context.getProperty(RequestTimings.CALCULATION);
+
+      ServiceMetrics.record(calculation == null ? "serialise" : calculation + ".serialise",
+          (System.nanoTime() - start) / 1000);
+    }
+  }
+}
@@ -0,0 +1,122 @@
+/**
+ * Copyright (c) 2018 SyndLoanHub, LLC and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License from within this distribution and at:
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.syndloanhub.loansum.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import javax.ws.rs.core.Response;
+
+import org.jboss.resteasy.spi.HttpRequest;
+
+/**
+ * Stage latencies and input sizes of a single request.
+ * <p>
+ * Every stage and size is also recorded in {@link ServiceMetrics} under {@code <calculation>.<stage>}.
+ * Parsing happens before the resource method is called and is timed by {@link RequestTimingInterceptor},
+ * which hands its timing over as a property of the request. When the {@code loansum.serverTiming} system
+ * property is true the stage timings are returned in a {@code Server-Timing} response header. Serialisation
+ * follows the headers, so the interceptor records it in the histograms only, under the calculation named here.
+ */
+final class RequestTimings {
+
+  private static final boolean SERVER_TIMING = Boolean.getBoolean("loansum.serverTiming");
+
+  /**
+   * Request property holding the parse time in nanoseconds.
+   */
+  static final String PARSE_NANOS = "loansum.parseNanos";
+
+  /**
+   * Request property holding the name of the calculation.
+   */
+  static final String CALCULATION = "loansum.calculation";
+
+  private final String calculation;
+  private final Map<String, Long> stages = new LinkedHashMap<String, Long>();
+
+  /**
+   * Start timing a request, taking over its parse time if any and naming it for serialisation timing.
+   * 
+   * @param calculation name of calculation
+   * @param request the request
+   */
+  RequestTimings(String calculation, HttpRequest request) {
+    this.calculation = calculation;
+
+    final Object parse = request.getAttribute(PARSE_NANOS);
+
+    if (parse != null)
+      record("parse", (Long) parse);
+
+    request.setAttribute(CALCULATION, calculation);
+  }
+
+  /**
+   * @return name of calculation
+   */
+  String getCalculation() {
+    return calculation;
+  }
+
+  /**
+   * Run and time a stage.
+   * 
+   * @param <T> result type
+   * @param stage stage name
+   * @param calculation the stage
+   * @return result of stage
+   */
+  <T> T time(String stage, Supplier<T> calculation) {
+    final long start = System.nanoTime();
+    final T result = calculation.get();
+
+    record(stage, System.nanoTime() - start);
+
+    return result;
+  }
+
+  /**
+   * Record the size of an input or output.
+   * 
+   * @param name size name
+   * @param size number of items
+   */
+  void size(String name, long size) {
+    ServiceMetrics.record(calculation + "." + name, size);
+  }
+
+  /**
+   * Build the response of a result, with a {@code Server-Timing} header if enabled.
+   * 
+   * @param result the result
+   * @return response
+   */
+  Response response(Object result) {
+    final Response.ResponseBuilder builder = Response.ok(result);
+
+    if (SERVER_TIMING && !stages.isEmpty()) {
+      final StringBuilder header = new StringBuilder();
+
+      stages.forEach((stage, nanos) -> header.append(header.length() == 0 ? "" : ", ")
+          .append(stage).append(";dur=").append(nanos / 1e6));
+      builder.header("Server-Timing", header.toString());
+    }
+
+    return builder.build();
+  }
+
+  private void record(String stage, long nanos) {
+    stages.merge(stage, nanos, Long::sum);
+    ServiceMetrics.record(calculation + "." + stage, nanos / 1000);
+  }
+}
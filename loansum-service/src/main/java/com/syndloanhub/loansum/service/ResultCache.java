@@ -0,0 +1,122 @@
+/**
+ * Copyright (c) 2018 SyndLoanHub, LLC and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License from within this distribution and at:
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.syndloanhub.loansum.service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import org.joda.beans.Bean;
+import org.joda.beans.ser.JodaBeanSer;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.io.BaseEncoding;
+
+/**
+ * Bounded cache of calculation results, keyed by the content of the request rather than its identity.
+ * <p>
+ * A key is the calculation name, the valuation date, the market data version and the SHA-256 digest of the
+ * request bean in compact binary form, so resubmitting an identical payload hits the cache however it was
+ * formatted on the wire. Entries are evicted beyond {@code loansum.cache.size} entries, default 1000, and
+ * {@code loansum.cache.ttl} seconds after being written, default 300.
+ */
+final class ResultCache {
+
+  /**
+   * Cache shared by all service requests.
+   */
+  static final ResultCache INSTANCE = new ResultCache(Long.getLong("loansum.cache.size", 1000),
+      Long.getLong("loansum.cache.ttl", 300));
+
+  private final Cache<String, Bean> cache;
+
+  /**
+   * Create a result cache.
+   * 
+   * @param size maximum number of entries
+   * @param ttl seconds after which an entry expires
+   */
+  ResultCache(long size, long ttl) {
+    cache = CacheBuilder.newBuilder()
+        .maximumSize(size)
+        .expireAfterWrite(ttl, TimeUnit.SECONDS)
+        .recordStats()
+        .build();
+  }
+
+  /**
+   * Return the cache key of a request.
+   * 
+   * @param calculation name of calculation
+   * @param valuationDate valuation date
+   * @param marketDataVersion market data version
+   * @param request request bean
+   * @return cache key
+   */
+  static String key(String calculation, LocalDate valuationDate, long marketDataVersion, Bean request) {
+    return calculation + "/" + valuationDate + "/" + marketDataVersion + "/" + digest(request);
+  }
+
+  /**
+   * Return the SHA-256 digest of a bean in compact binary form.
+   * 
+   * @param bean the bean
+   * @return digest as lower case hex
+   */
+  static String digest(Bean bean) {
+    try {
+      return BaseEncoding.base16().lowerCase()
+          .encode(MessageDigest.getInstance("SHA-256").digest(JodaBeanSer.COMPACT.binWriter().write(bean)));
+    } catch (NoSuchAlgorithmException exc) {
+      throw new IllegalStateException(exc);
+    }
+  }
+
+  /**
+   * @param key cache key
+   * @return cached result or null
+   */
+  Bean get(String key) {
+    return cache.getIfPresent(key);
+  }
+
+  /**
+   * @param key cache key
+   * @param result result to cache
+   */
+  void put(String key, Bean result) {
+    cache.put(key, result);
+  }
+
+  /**
+   * Discard all entries, statistics are kept.
+   */
+  void clear() {
+    cache.invalidateAll();
+  }
+
+  /**
+   * @return current number of entries
+   */
+  long size() {
+    return cache.size();
+  }
+
+  /**
+   * @return cumulative hit, miss and eviction statistics
+   */
+  CacheStats stats() {
+    return cache.stats();
+  }
+}
@@ -0,0 +1,99 @@
+/**
+ * Copyright (c) 2018 SyndLoanHub, LLC and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License from within this distribution and at:
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.syndloanhub.loansum.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograms of service stage latencies and request sizes, shared by all requests.
+ * <p>
+ * Each histogram has power-of-two buckets, so recording is lock-free and constant time and the bucket
+ * of a value is accurate to within a factor of two. Latencies are recorded in microseconds, sizes in
+ * items.
+ */
+final class ServiceMetrics {
+
+  private static final int BUCKETS = 40;
+
+  private static final Map<String, Histogram> histograms = new ConcurrentSkipListMap<String, Histogram>();
+
+  private ServiceMetrics() {
+  }
+
+  /**
+   * Histogram of non-negative values.
+   */
+  private static final class Histogram {
+    private final LongAdder[] counts = new LongAdder[BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    private Histogram() {
+      for (int i = 0; i < BUCKETS; i++)
+        counts[i] = new LongAdder();
+    }
+
+    private void record(long value) {
+      final long positive = Math.max(value, 0);
+
+      counts[Math.min(64 - Long.numberOfLeadingZeros(positive), BUCKETS - 1)].increment();
+      count.increment();
+      sum.add(positive);
+      max.accumulate(positive);
+    }
+
+    /**
+     * @return JSON of count, sum, max and the upper bound and count of each non-empty bucket
+     */
+    private String toJson() {
+      final StringBuilder buckets = new StringBuilder();
+
+      for (int i = 0; i < BUCKETS; i++) {
+        final long bucketCount = counts[i].sum();
+
+        if (bucketCount > 0)
+          buckets.append(buckets.length() == 0 ? "" : ",").append("\"").append(1L << i).append("\":")
+              .append(bucketCount);
+      }
+
+      return "{\"count\":" + count.sum() + ",\"sum\":" + sum.sum() + ",\"max\":" + max.get() + ",\"buckets\":{" +
+          buckets + "}}";
+    }
+  }
+
+  /**
+   * Record a value in a named histogram, creating the histogram on first use.
+   * 
+   * @param name histogram name
+   * @param value value to record
+   */
+  static void record(String name, long value) {
+    histograms.computeIfAbsent(name, key -> new Histogram()).record(value);
+  }
+
+  /**
+   * Return all histograms as JSON, keyed by name. Each bucket is keyed by its exclusive upper bound.
+   * 
+   * @return histograms as JSON
+   */
+  static String toJson() {
+    final StringBuilder json = new StringBuilder("{");
+
+    histograms.forEach((name, histogram) -> json.append(json.length() == 1 ? "" : ",")
+        .append("\"").append(name).append("\":").append(histogram.toJson()));
+
+    return json.append("}").toString();
+  }
+}
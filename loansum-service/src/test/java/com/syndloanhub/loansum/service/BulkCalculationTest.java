@@ -0,0 +1,236 @@
+/**
+ * Copyright (c) 2018 SyndLoanHub, LLC and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License from within this distribution and at:
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.syndloanhub.loansum.service;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.ws.rs.ServiceUnavailableException;
+
+import org.joda.beans.Bean;
+import org.joda.beans.ser.JodaBeanSer;
+import org.testng.annotations.Test;
+
+import com.opengamma.strata.basics.currency.Currency;
+import com.opengamma.strata.basics.currency.CurrencyAmount;
+import com.syndloanhub.loansum.product.facility.Borrowing;
+
+/**
+ * Test {@link BulkCalculation} on a pool of one thread and a queue of one.
+ */
+@Test
+public class BulkCalculationTest {
+
+  public void test_lines() throws IOException {
+    final Pool pool = new Pool();
+
+    try {
+      final List<String> output = write(pool, 4, "\n" + lines(3), bean -> bean);
+
+      // Blank lines are skipped but counted.
+      assertEquals(output.stream().sorted().collect(Collectors.toList()),
+          Arrays.asList(result(2, amount(1)), result(3, amount(2)), result(4, amount(3))));
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  public void test_retryWhileInFlight() throws IOException {
+    final Pool pool = new Pool();
+
+    try {
+      // The first line runs and the second is queued until the third is rejected, which then waits for a line
+      // to complete and is retried.
+      final List<String> output = write(pool, 4, lines(3), bean -> {
+        await(pool.rejection);
+        return bean;
+      });
+
+      assertTrue(pool.rejected.get() > 0);
+      assertEquals(output.size(), 3);
+      for (int i = 1; i <= 3; i++)
+        assertTrue(output.contains(result(i, amount(i))), output.toString());
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  public void test_shedBeforeWritten() throws IOException {
+    final Pool pool = new Pool();
+    final CountDownLatch release = new CountDownLatch(1);
+
+    try {
+      // Saturate the pool, one task running and one queued.
+      pool.execute(() -> await(release));
+      pool.execute(() -> await(release));
+
+      final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+      try {
+        new BulkCalculation(input(lines(2)), pool, 4, bean -> bean).write(output);
+        fail("Expected ServiceUnavailableException");
+      } catch (ServiceUnavailableException exc) {
+        assertEquals(exc.getResponse().getHeaderString("Retry-After"), String.valueOf(PricingExecutors.RETRY_AFTER));
+      }
+
+      assertEquals(output.size(), 0);
+    } finally {
+      release.countDown();
+      pool.shutdownNow();
+    }
+  }
+
+  public void test_shedAfterWritten() throws IOException {
+    final Pool pool = new Pool();
+
+    try {
+      // Once the first line is written the pool sheds everything, with nothing in flight the second line fails.
+      final List<String> output = write(pool, 1, lines(2), bean -> {
+        pool.shed.set(true);
+        return bean;
+      });
+
+      assertEquals(output.size(), 2);
+      assertEquals(output.get(0), result(1, amount(1)));
+      assertTrue(output.get(1).startsWith("{\"line\":2,\"failure\":"), output.get(1));
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  public void test_lineFailures() throws IOException {
+    final Pool pool = new Pool();
+
+    try {
+      // A line which fails to parse, throws an exception or throws an error fails alone.
+      final List<String> output = write(pool, 4, lines(3) + "{not json}\n" + lines(1), bean -> {
+        final double amount = ((Borrowing) bean).getAmount().getAmount();
+
+        if (amount == 2)
+          throw new IllegalArgumentException("line 2");
+        else if (amount == 3)
+          throw new AssertionError("line 3");
+
+        return bean;
+      });
+      final List<String> sorted = output.stream().sorted().collect(Collectors.toList());
+
+      assertEquals(sorted.size(), 5);
+      assertEquals(sorted.get(0), result(1, amount(1)));
+      assertTrue(sorted.get(1).startsWith("{\"line\":2,\"failure\":"), sorted.get(1));
+      assertTrue(sorted.get(1).contains("line 2"), sorted.get(1));
+      assertTrue(sorted.get(2).startsWith("{\"line\":3,\"failure\":"), sorted.get(2));
+      assertTrue(sorted.get(2).contains("line 3"), sorted.get(2));
+      assertTrue(sorted.get(3).startsWith("{\"line\":4,\"failure\":"), sorted.get(3));
+      assertEquals(sorted.get(4), result(5, amount(1)));
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * A pool of one thread and a queue of one, which counts rejections and can be made to shed everything.
+   */
+  private static final class Pool extends ThreadPoolExecutor {
+    private final AtomicInteger rejected = new AtomicInteger();
+    private final AtomicBoolean shed = new AtomicBoolean();
+    private final CountDownLatch rejection = new CountDownLatch(1);
+
+    private Pool() {
+      super(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(1));
+    }
+
+    @Override
+    public void execute(Runnable command) {
+      try {
+        if (shed.get())
+          throw new RejectedExecutionException("Shedding");
+
+        super.execute(command);
+      } catch (RejectedExecutionException exc) {
+        rejected.incrementAndGet();
+        rejection.countDown();
+        throw exc;
+      }
+    }
+  }
+
+  /**
+   * @param pool executor
+   * @param maxInFlight maximum lines in flight
+   * @param input newline-delimited input
+   * @param calculation calculation of each line
+   * @return output lines in order written
+   * @throws IOException on failure
+   */
+  private static List<String> write(Pool pool, int maxInFlight, String input, Function<Bean, Bean> calculation)
+      throws IOException {
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    new BulkCalculation(input(input), pool, maxInFlight, calculation).write(output);
+
+    return Arrays.asList(new String(output.toByteArray(), StandardCharsets.UTF_8).split("\n"));
+  }
+
+  /**
+   * @param count number of lines
+   * @return lines of borrowings of amounts 1 to count
+   */
+  private static String lines(int count) {
+    final StringBuilder lines = new StringBuilder();
+
+    for (int i = 1; i <= count; i++)
+      lines.append(JodaBeanSer.COMPACT.jsonWriter().write(amount(i))).append('\n');
+
+    return lines.toString();
+  }
+
+  private static ByteArrayInputStream input(String input) {
+    return new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static Borrowing amount(double amount) {
+    return Borrowing.builder()
+        .effectiveDate(LocalDate.of(2017, 3, 31))
+        .amount(CurrencyAmount.of(Currency.USD, amount))
+        .build();
+  }
+
+  private static String result(int line, Bean bean) {
+    return "{\"line\":" + line + ",\"result\":" + JodaBeanSer.COMPACT.jsonWriter().write(bean) + "}";
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException exc) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,265 @@
+/**
+ * Copyright (c) 2018 SyndLoanHub, LLC and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License from within this distribution and at:
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.syndloanhub.loansum.service;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.apache.arrow.vector.types.DateUnit;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.testng.annotations.Test;
+
+import com.opengamma.strata.basics.ReferenceData;
+import com.opengamma.strata.basics.StandardId;
+import com.opengamma.strata.basics.date.DayCounts;
+import com.opengamma.strata.basics.index.IborIndices;
+import com.opengamma.strata.market.curve.ConstantCurve;
+import com.opengamma.strata.market.curve.Curves;
+import com.opengamma.strata.pricer.rate.ImmutableRatesProvider;
+import com.opengamma.strata.pricer.rate.RatesProvider;
+import com.syndloanhub.loansum.pricer.facility.prorated.ForwardRateProjector;
+import com.syndloanhub.loansum.pricer.facility.prorated.LoanTrades;
+import com.syndloanhub.loansum.pricer.facility.prorated.ProratedLoanTradePricer;
+import com.syndloanhub.loansum.product.facility.LoanTrade;
+import com.syndloanhub.loansum.product.facility.prorated.ProratedLoanTrade;
+
+/**
+ * Test {@link CashFlowArrowExporter} by reading its streams back through {@link ArrowStreamReader}.
+ */
+@Test
+public class CashFlowArrowExporterTest {
+
+  private static final ProratedLoanTradePricer PRICER = ProratedLoanTradePricer.DEFAULT;
+  private static final RatesProvider PROV = ImmutableRatesProvider.builder(LocalDate.of(2017, 7, 14)).build();
+
+  public void test_rowCount() throws IOException {
+    final List<ProratedLoanTrade> trades = trades(3);
+    final ByteArrayOutputStream flows = new ByteArrayOutputStream();
+    final long count = new CashFlowArrowExporter(PRICER).export(trades.stream(), PROV, null, flows, null);
+
+    assertEquals(count, trades.stream().mapToLong(trade -> PRICER.cashFlows(trade, PROV, false).getCashFlows().size())
+        .sum());
+    assertEquals(batchSizes(flows).stream().mapToLong(Integer::longValue).sum(), count);
+  }
+
+  public void test_columnTypes() throws IOException {
+    final ByteArrayOutputStream flows = new ByteArrayOutputStream();
+    final ByteArrayOutputStream explains = new ByteArrayOutputStream();
+
+    new CashFlowArrowExporter(PRICER).export(trades(1).stream(), PROV, null, flows, explains);
+
+    final List<Field> flowFields = fields(flows);
+
+    assertEquals(flowFields.stream().map(Field::getName).collect(Collectors.toList()),
+        Arrays.asList("flow", "tradeId", "paymentDate", "amount", "currency", "type", "source",
+            "payingCounterparty", "receivingCounterparty", "uncertain"));
+    assertEquals(flowFields.get(0).getType(), new ArrowType.Int(64, true));
+    assertEquals(flowFields.get(1).getType(), ArrowType.Utf8.INSTANCE);
+    assertEquals(flowFields.get(2).getType(), new ArrowType.Date(DateUnit.DAY));
+    assertEquals(flowFields.get(3).getType(), new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE));
+    assertEquals(flowFields.get(9).getType(), ArrowType.Bool.INSTANCE);
+    assertFalse(flowFields.get(0).isNullable());
+    assertTrue(flowFields.get(1).isNullable());
+
+    final List<Field> explainFields = fields(explains);
+
+    assertEquals(explainFields.stream().map(Field::getName).collect(Collectors.toList()),
+        Arrays.asList("flow", "path", "key", "value", "number"));
+    assertEquals(explainFields.get(0).getType(), new ArrowType.Int(64, true));
+    assertEquals(explainFields.get(3).getType(), ArrowType.Utf8.INSTANCE);
+    assertEquals(explainFields.get(4).getType(), new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE));
+  }
+
+  public void test_batchBoundaries() throws IOException {
+    final int perTrade = PRICER.cashFlows(trades(1).get(0), PROV, false).getCashFlows().size();
+    // Enough trades for two full batches and a partial one.
+    final List<ProratedLoanTrade> trades = trades((2 * CashFlowArrowExporter.BATCH_SIZE) / perTrade + 1);
+    final ByteArrayOutputStream flows = new ByteArrayOutputStream();
+    final long count = new CashFlowArrowExporter(PRICER).export(trades.stream(), PROV, null, flows, null);
+    final List<Integer> batches = batchSizes(flows);
+
+    assertTrue(count > 2 * CashFlowArrowExporter.BATCH_SIZE);
+    assertEquals(batches.size(), (count + CashFlowArrowExporter.BATCH_SIZE - 1) / CashFlowArrowExporter.BATCH_SIZE);
+
+    for (int i = 0; i < batches.size() - 1; i++)
+      assertEquals(batches.get(i).intValue(), CashFlowArrowExporter.BATCH_SIZE);
+
+    assertEquals(batches.get(batches.size() - 1).longValue(),
+        count - (batches.size() - 1) * (long) CashFlowArrowExporter.BATCH_SIZE);
+  }
+
+  public void test_explainsJoinFlows() throws IOException {
+    final List<ProratedLoanTrade> trades = trades(2);
+    final ByteArrayOutputStream flows = new ByteArrayOutputStream();
+    final ByteArrayOutputStream explains = new ByteArrayOutputStream();
+    final long count = new CashFlowArrowExporter(PRICER).export(trades.stream(), PROV, null, flows, explains);
+    final List<Long> flowIds = longs(flows, "flow");
+    final List<Long> explainFlowIds = longs(explains, "flow");
+    final Set<Long> explained = new HashSet<Long>(explainFlowIds);
+
+    // Flows are numbered in order, and every explain row joins to one of them.
+    assertEquals(flowIds, LongStream.range(0, count).boxed().collect(Collectors.toList()));
+    assertFalse(explainFlowIds.isEmpty());
+    assertTrue(flowIds.containsAll(explained));
+
+    for (int i = 1; i < explainFlowIds.size(); i++)
+      assertTrue(explainFlowIds.get(i) >= explainFlowIds.get(i - 1));
+
+    // The flows of each trade carry its id, and both trades have explained flows.
+    final List<String> tradeIds = strings(flows, "tradeId");
+    final Set<String> explainedTrades = new HashSet<String>();
+
+    for (Long flow : explained)
+      explainedTrades.add(tradeIds.get(flow.intValue()));
+
+    assertEquals(explainedTrades, new HashSet<String>(Arrays.asList("trade~0", "trade~1")));
+  }
+
+  public void test_amountsMatchCashFlows() throws IOException {
+    final List<ProratedLoanTrade> trades = trades(2);
+    final RatesProvider provider = ImmutableRatesProvider.builder(LocalDate.of(2017, 5, 1))
+        .iborIndexCurve(IborIndices.USD_LIBOR_3M,
+            ConstantCurve.of(Curves.forwardRates("USD-LIBOR-3M", DayCounts.ACT_360), 1.5 / 100))
+        .build();
+    final ForwardRateProjector projector = new ForwardRateProjector(provider, ReferenceData.standard());
+    final ByteArrayOutputStream contractual = new ByteArrayOutputStream();
+    final ByteArrayOutputStream forward = new ByteArrayOutputStream();
+
+    new CashFlowArrowExporter(PRICER).export(trades.stream(), provider, null, contractual, null);
+    new CashFlowArrowExporter(PRICER).export(trades.stream(), provider, projector, forward, null);
+
+    // Exported amounts are those of the cash flows of each trade priced the same way.
+    final List<Double> contractualAmounts = trades.stream()
+        .flatMap(trade -> PRICER.cashFlows(trade, provider, false).getCashFlows().stream())
+        .map(cashFlow -> cashFlow.getCashFlow().getForecastValue().getAmount())
+        .collect(Collectors.toList());
+    final List<Double> forwardAmounts = trades.stream()
+        .flatMap(trade -> PRICER.cashFlows(trade, projector, false).getCashFlows().stream())
+        .map(cashFlow -> cashFlow.getCashFlow().getForecastValue().getAmount())
+        .collect(Collectors.toList());
+
+    assertEquals(doubles(contractual, "amount"), contractualAmounts);
+    assertEquals(doubles(forward, "amount"), forwardAmounts);
+    assertNotEquals(forwardAmounts, contractualAmounts);
+  }
+
+  /**
+   * @param count number of trades
+   * @return prorated copies of the term loan trade with ids {@code trade~0} onwards
+   */
+  private static List<ProratedLoanTrade> trades(int count) {
+    final LoanTrade trade = LoanTrades.termLoanTrade();
+
+    return IntStream.range(0, count)
+        .mapToObj(i -> trade.toBuilder()
+            .info(trade.getInfo().toBuilder().id(StandardId.of("trade", Integer.toString(i))).build())
+            .build()
+            .prorate(null))
+        .collect(Collectors.toList());
+  }
+
+  private static List<Field> fields(ByteArrayOutputStream stream) throws IOException {
+    try (BufferAllocator allocator = new RootAllocator(Long.MAX_VALUE);
+        ArrowStreamReader reader = new ArrowStreamReader(new ByteArrayInputStream(stream.toByteArray()), allocator)) {
+      return reader.getVectorSchemaRoot().getSchema().getFields();
+    }
+  }
+
+  private static List<Integer> batchSizes(ByteArrayOutputStream stream) throws IOException {
+    final List<Integer> sizes = new ArrayList<Integer>();
+
+    try (BufferAllocator allocator = new RootAllocator(Long.MAX_VALUE);
+        ArrowStreamReader reader = new ArrowStreamReader(new ByteArrayInputStream(stream.toByteArray()), allocator)) {
+      while (reader.loadNextBatch())
+        sizes.add(reader.getVectorSchemaRoot().getRowCount());
+    }
+
+    return sizes;
+  }
+
+  private static List<Long> longs(ByteArrayOutputStream stream, String column) throws IOException {
+    final List<Long> values = new ArrayList<Long>();
+
+    try (BufferAllocator allocator = new RootAllocator(Long.MAX_VALUE);
+        ArrowStreamReader reader = new ArrowStreamReader(new ByteArrayInputStream(stream.toByteArray()), allocator)) {
+      final VectorSchemaRoot root = reader.getVectorSchemaRoot();
+
+      while (reader.loadNextBatch()) {
+        final BigIntVector vector = (BigIntVector) root.getVector(column);
+
+        for (int i = 0; i < root.getRowCount(); i++)
+          values.add(vector.get(i));
+      }
+    }
+
+    return values;
+  }
+
+  private static List<Double> doubles(ByteArrayOutputStream stream, String column) throws IOException {
+    final List<Double> values = new ArrayList<Double>();
+
+    try (BufferAllocator allocator = new RootAllocator(Long.MAX_VALUE);
+        ArrowStreamReader reader = new ArrowStreamReader(new ByteArrayInputStream(stream.toByteArray()), allocator)) {
+      final VectorSchemaRoot root = reader.getVectorSchemaRoot();
+
+      while (reader.loadNextBatch()) {
+        final Float8Vector vector = (Float8Vector) root.getVector(column);
+
+        for (int i = 0; i < root.getRowCount(); i++)
+          values.add(vector.get(i));
+      }
+    }
+
+    return values;
+  }
+
+  private static List<String> strings(ByteArrayOutputStream stream, String column) throws IOException {
+    final List<String> values = new ArrayList<String>();
+
+    try (BufferAllocator allocator = new RootAllocator(Long.MAX_VALUE);
+        ArrowStreamReader reader = new ArrowStreamReader(new ByteArrayInputStream(stream.toByteArray()), allocator)) {
+      final VectorSchemaRoot root = reader.getVectorSchemaRoot();
+
+      while (reader.loadNextBatch()) {
+        final VarCharVector vector = (VarCharVector) root.getVector(column);
+
+        for (int i = 0; i < root.getRowCount(); i++)
+          values.add(vector.isNull(i) ? null : vector.getObject(i).toString());
+      }
+    }
+
+    return values;
+  }
+}
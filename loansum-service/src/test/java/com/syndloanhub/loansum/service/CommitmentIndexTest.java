@@ -0,0 +1,107 @@
+/**
+ * Copyright (c) 2018 SyndLoanHub, LLC and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License from within this distribution and at:
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.syndloanhub.loansum.service;
+
+import static org.testng.Assert.assertEquals;
+
+import java.time.LocalDate;
+
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.syndloanhub.loansum.product.facility.Commitment;
+import com.syndloanhub.loansum.product.facility.CommitmentRecord;
+
+/**
+ * Test {@link CommitmentIndex} lookups by date and over windows.
+ */
+@Test
+public class CommitmentIndexTest {
+
+  private static final CommitmentRecord MAR = record(LocalDate.of(2017, 3, 31), 100);
+  private static final CommitmentRecord JUN = record(LocalDate.of(2017, 6, 30), 80);
+  private static final CommitmentRecord SEP = record(LocalDate.of(2017, 9, 30), 60);
+  private static final CommitmentIndex INDEX = new CommitmentIndex(commitment(MAR, JUN, SEP));
+
+  public void test_asOf() {
+    assertEquals(INDEX.asOf(LocalDate.of(2017, 3, 31)), commitment(MAR));
+    assertEquals(INDEX.asOf(LocalDate.of(2017, 8, 15)), commitment(JUN));
+    assertEquals(INDEX.asOf(LocalDate.of(2018, 1, 1)), commitment(SEP));
+  }
+
+  public void test_asOfBeforeFirst() {
+    final LocalDate asOf = LocalDate.of(2017, 1, 1);
+
+    assertEquals(INDEX.asOf(asOf), commitment(zero(asOf)));
+  }
+
+  public void test_window() {
+    assertEquals(INDEX.window(null, null), INDEX.all());
+    assertEquals(INDEX.window(LocalDate.of(2017, 3, 31), LocalDate.of(2017, 6, 30)), commitment(MAR, JUN));
+    assertEquals(INDEX.window(null, LocalDate.of(2017, 7, 1)), commitment(MAR, JUN));
+  }
+
+  public void test_windowStartBetween() {
+    // The record in force at the start leads the window.
+    assertEquals(INDEX.window(LocalDate.of(2017, 5, 15), null), commitment(MAR, JUN, SEP));
+    assertEquals(INDEX.window(LocalDate.of(2017, 7, 1), LocalDate.of(2017, 9, 30)), commitment(JUN, SEP));
+    assertEquals(INDEX.window(LocalDate.of(2017, 7, 1), LocalDate.of(2017, 8, 1)), commitment(JUN));
+  }
+
+  public void test_windowStartBeforeFirst() {
+    assertEquals(INDEX.window(LocalDate.of(2017, 1, 1), LocalDate.of(2017, 6, 30)), commitment(MAR, JUN));
+  }
+
+  public void test_windowEndBeforeFirst() {
+    final LocalDate endDate = LocalDate.of(2017, 2, 1);
+
+    assertEquals(INDEX.window(null, endDate), commitment(zero(endDate)));
+    assertEquals(INDEX.window(LocalDate.of(2017, 1, 1), endDate), commitment(zero(endDate)));
+  }
+
+  public void test_windowEmpty() {
+    final CommitmentIndex index = new CommitmentIndex(ImmutableList.<CommitmentRecord>of());
+    final LocalDate startDate = LocalDate.of(2017, 1, 1);
+    final LocalDate endDate = LocalDate.of(2017, 2, 1);
+
+    // With no end the window over no records is zero as of its start.
+    assertEquals(index.window(startDate, null), commitment(zero(startDate)));
+    assertEquals(index.window(startDate, endDate), commitment(zero(endDate)));
+    assertEquals(index.window(null, endDate), commitment(zero(endDate)));
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void test_windowEmptyUnbounded() {
+    new CommitmentIndex(ImmutableList.<CommitmentRecord>of()).window(null, null);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void test_unordered() {
+    new CommitmentIndex(ImmutableList.of(JUN, MAR));
+  }
+
+  private static CommitmentRecord record(LocalDate effectiveDate, double total) {
+    return CommitmentRecord.builder()
+        .effectiveDate(effectiveDate)
+        .funded(total / 2)
+        .unfunded(total / 2)
+        .total(total)
+        .build();
+  }
+
+  private static CommitmentRecord zero(LocalDate effectiveDate) {
+    return CommitmentRecord.builder().effectiveDate(effectiveDate).build();
+  }
+
+  private static Commitment commitment(CommitmentRecord... records) {
+    return Commitment.builder().commitment(ImmutableList.copyOf(records)).build();
+  }
+}
@@ -0,0 +1,157 @@
+/**
+ * Copyright (c) 2018 SyndLoanHub, LLC and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License from within this distribution and at:
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.syndloanhub.loansum.service;
+
+import static org.testng.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.strata.collect.timeseries.LocalDateDoubleTimeSeries;
+import com.syndloanhub.loansum.pricer.facility.prorated.LoanTrades;
+import com.syndloanhub.loansum.product.facility.Facility;
+import com.syndloanhub.loansum.product.facility.FacilityDelta;
+
+/**
+ * Test {@link FacilityStore}.
+ */
+@Test
+public class FacilityStoreTest {
+
+  private static final Facility LOAN = LoanTrades.termLoanTrade().getProduct();
+
+  /**
+   * The term loan with only its first two contracts, each later contract arriving as a notice.
+   */
+  private static final Facility BASE = LOAN.toBuilder()
+      .contracts(LOAN.getContracts().subList(0, 2))
+      .totalCommitmentSchedule(LocalDateDoubleTimeSeries.empty())
+      .build();
+
+  private static final FacilityDelta DELTA_3 = delta(2);
+  private static final FacilityDelta DELTA_4 = delta(3);
+  private static final FacilityDelta DELTA_5 = delta(4);
+
+  private static final LocalDate DATE_3 = LocalDate.of(2017, 4, 20);
+  private static final LocalDate DATE_4 = LocalDate.of(2017, 4, 26);
+  private static final LocalDate DATE_5 = LocalDate.of(2017, 7, 26);
+
+  public void test_appendReplay() throws IOException {
+    final FacilityStore store = new FacilityStore(directory(), 2);
+
+    store.create(BASE);
+
+    assertEquals(store.append(BASE.getId(), DATE_3, DELTA_3), 1);
+    assertEquals(store.append(BASE.getId(), DATE_4, DELTA_4), 2);
+    assertEquals(store.append(BASE.getId(), DATE_5, DELTA_5), 3);
+
+    assertEquals(store.facility(BASE.getId()), BASE.apply(DELTA_3).apply(DELTA_4).apply(DELTA_5));
+    assertEquals(store.facility(BASE.getId(), DATE_3.minusDays(1)), BASE);
+    assertEquals(store.facility(BASE.getId(), DATE_3), BASE.apply(DELTA_3));
+    assertEquals(store.facility(BASE.getId(), DATE_5.minusDays(1)), BASE.apply(DELTA_3).apply(DELTA_4));
+    assertEquals(store.facility(BASE.getId(), DATE_5), store.facility(BASE.getId()));
+  }
+
+  public void test_restartFromSnapshot() throws IOException {
+    final Path directory = directory();
+    final FacilityStore store = new FacilityStore(directory, 2);
+
+    store.create(BASE);
+    store.append(BASE.getId(), DATE_3, DELTA_3);
+    store.append(BASE.getId(), DATE_4, DELTA_4);
+    store.append(BASE.getId(), DATE_5, DELTA_5);
+
+    // The restarted store loads the snapshot after the second notice and replays the third from the log.
+    final FacilityStore restarted = new FacilityStore(directory, 2);
+
+    assertEquals(restarted.facility(BASE.getId()), store.facility(BASE.getId()));
+    assertEquals(restarted.facility(BASE.getId(), DATE_4), BASE.apply(DELTA_3).apply(DELTA_4));
+    assertEquals(restarted.facility(BASE.getId(), DATE_3.minusDays(1)), BASE);
+    assertEquals(restarted.append(BASE.getId(), DATE_5, DELTA_5), 4);
+  }
+
+  public void test_tornTailRecovery() throws IOException {
+    final Path directory = directory();
+    final FacilityStore store = new FacilityStore(directory, 10);
+
+    store.create(BASE);
+    store.append(BASE.getId(), DATE_3, DELTA_3);
+    store.append(BASE.getId(), DATE_4, DELTA_4);
+
+    final Path log = logFile(directory);
+    final long size = Files.size(log);
+
+    // A crash part way through a record leaves its header claiming more bytes than follow.
+    Files.write(log, new byte[] {0, 0, 0x43, 0, 0, 0, 0x10, 0, 1, 2}, StandardOpenOption.APPEND);
+
+    final FacilityStore restarted = new FacilityStore(directory, 10);
+
+    assertEquals(restarted.facility(BASE.getId()), BASE.apply(DELTA_3).apply(DELTA_4));
+    assertEquals(Files.size(log), size);
+    assertEquals(restarted.append(BASE.getId(), DATE_5, DELTA_5), 3);
+    assertEquals(new FacilityStore(directory, 10).facility(BASE.getId()),
+        BASE.apply(DELTA_3).apply(DELTA_4).apply(DELTA_5));
+  }
+
+  public void test_outOfOrderEffectiveDates() throws IOException {
+    final FacilityStore store = new FacilityStore(directory(), 1);
+
+    // The last contract is noticed first, effective after the others.
+    store.create(BASE);
+    store.append(BASE.getId(), DATE_5, DELTA_5);
+    store.append(BASE.getId(), DATE_3, DELTA_3);
+    store.append(BASE.getId(), DATE_4, DELTA_4);
+
+    assertEquals(store.facility(BASE.getId()), BASE.apply(DELTA_5).apply(DELTA_3).apply(DELTA_4));
+    assertEquals(store.facility(BASE.getId(), DATE_3), BASE.apply(DELTA_3));
+    assertEquals(store.facility(BASE.getId(), DATE_4), BASE.apply(DELTA_3).apply(DELTA_4));
+    assertEquals(store.facility(BASE.getId(), DATE_5), store.facility(BASE.getId()));
+    assertEquals(store.facility(BASE.getId(), DATE_3.minusDays(1)), BASE);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void test_createExisting() throws IOException {
+    final FacilityStore store = new FacilityStore(directory(), 2);
+
+    store.create(BASE);
+    store.create(BASE);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void test_unknownFacility() throws IOException {
+    new FacilityStore(directory(), 2).facility(BASE.getId());
+  }
+
+  /**
+   * @param contract index of a contract of the term loan
+   * @return notice adding the contract
+   */
+  private static FacilityDelta delta(int contract) {
+    return FacilityDelta.builder().contracts(Arrays.asList(LOAN.getContracts().get(contract))).build();
+  }
+
+  private static Path directory() throws IOException {
+    return Files.createTempDirectory("loansum");
+  }
+
+  private static Path logFile(Path directory) throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.filter(file -> file.getFileName().toString().endsWith(".log")).findFirst().get();
+    }
+  }
+}
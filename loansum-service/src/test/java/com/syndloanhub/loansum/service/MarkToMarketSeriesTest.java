@@ -0,0 +1,117 @@
+/**
+ * Copyright (c) 2018 SyndLoanHub, LLC and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License from within this distribution and at:
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.syndloanhub.loansum.service;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.strata.collect.timeseries.LocalDateDoubleTimeSeries;
+import com.opengamma.strata.pricer.rate.ImmutableRatesProvider;
+import com.syndloanhub.loansum.pricer.facility.prorated.LoanTrades;
+import com.syndloanhub.loansum.product.facility.LoanTradeList;
+
+/**
+ * Test {@link MarkToMarketSeries} against the daily mark-to-market of {@code MTM1.csv}.
+ */
+@Test
+public class MarkToMarketSeriesTest {
+
+  private static final LocalDate START_DATE = LocalDate.of(2017, 6, 1);
+  private static final LocalDate END_DATE = LocalDate.of(2017, 8, 1);
+
+  public void test_csv() throws IOException {
+    final List<List<String>> expected = expected();
+    final List<String> rows = write(true);
+
+    assertEquals(rows.get(0), "date,accruedInterest,presentValue,cash,pnl,cumulativePnl");
+    assertEquals(rows.size(), expected.size() + 1);
+
+    for (int i = 0; i < expected.size(); i++) {
+      final List<String> row = Arrays.asList(rows.get(i + 1).split(","));
+
+      assertEquals(row.get(0), expected.get(i).get(0));
+      assertEquals(Double.parseDouble(row.get(1)), Double.parseDouble(expected.get(i).get(1)), 1E-2);
+      assertEquals(Double.parseDouble(row.get(2)), Double.parseDouble(expected.get(i).get(2)), 1E-2);
+    }
+
+    final List<String> last = Arrays.asList(rows.get(rows.size() - 1).split(","));
+
+    assertEquals(Double.parseDouble(last.get(5)), 22380.136057760905, 1E-2);
+  }
+
+  public void test_ndjson() throws IOException {
+    final List<List<String>> expected = expected();
+    final List<String> csv = write(true);
+    final List<String> rows = write(false);
+
+    assertEquals(rows.size(), expected.size());
+
+    for (int i = 0; i < expected.size(); i++) {
+      final List<String> row = Arrays.asList(csv.get(i + 1).split(","));
+
+      assertEquals(rows.get(i), "{\"date\":\"" + row.get(0) + "\",\"accruedInterest\":" + row.get(1) +
+          ",\"presentValue\":" + row.get(2) + ",\"cash\":" + row.get(3) + ",\"pnl\":" + row.get(4) +
+          ",\"cumulativePnl\":" + row.get(5) + "}");
+    }
+  }
+
+  public void test_firstDayHasNoPnlWithoutCash() throws IOException {
+    final List<String> first = Arrays.asList(write(true).get(1).split(","));
+
+    assertEquals(first.get(0), START_DATE.toString());
+    assertEquals(Double.parseDouble(first.get(3)), 0d);
+    assertEquals(Double.parseDouble(first.get(4)), 0d);
+    assertTrue(Double.parseDouble(first.get(2)) > 0);
+  }
+
+  /**
+   * @param csv true for CSV, false for newline-delimited JSON
+   * @return rows written by the series from {@link #START_DATE} to {@link #END_DATE} at a clean price of
+   *         100.75
+   */
+  private static List<String> write(boolean csv) throws IOException {
+    final MarkToMarketRequest request = MarkToMarketRequest.builder()
+        .trades(LoanTradeList.builder().trades(Arrays.asList(LoanTrades.termLoanTrade())).build())
+        .startDate(START_DATE)
+        .endDate(END_DATE)
+        .cleanPrices(LocalDateDoubleTimeSeries.of(START_DATE, 100.75 / 100))
+        .build();
+    final MarketDataContext context =
+        new MarketDataContext(valuationDate -> ImmutableRatesProvider.builder(valuationDate).build());
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    new MarkToMarketSeries(request, context.current(), csv).write(output);
+
+    return Arrays.asList(new String(output.toByteArray(), StandardCharsets.UTF_8).split("\n"));
+  }
+
+  /**
+   * @return date, accrued interest and present value of each day of {@code MTM1.csv}
+   */
+  private static List<List<String>> expected() throws IOException {
+    try (BufferedReader reader = new BufferedReader(
+        new InputStreamReader(LoanTrades.class.getResourceAsStream(LoanTrades.MTM1), StandardCharsets.UTF_8))) {
+      return reader.lines().skip(1).map(line -> Arrays.asList(line.split(","))).collect(Collectors.toList());
+    }
+  }
+}
@@ -0,0 +1,138 @@
+/**
+ * Copyright (c) 2018 SyndLoanHub, LLC and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License from within this distribution and at:
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.syndloanhub.loansum.service;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.strata.product.common.BuySell;
+import com.syndloanhub.loansum.pricer.facility.prorated.LoanTrades;
+import com.syndloanhub.loansum.product.facility.Facility;
+import com.syndloanhub.loansum.product.facility.LoanTrade;
+import com.syndloanhub.loansum.product.facility.prorated.ProratedLoanTradeList;
+
+/**
+ * Test {@link PortfolioSnapshot}.
+ */
+@Test
+public class PortfolioSnapshotTest {
+
+  public void test_roundTrip() throws IOException {
+    final Path path = snapshot();
+    final PortfolioSnapshot snapshot = PortfolioSnapshot.open(path);
+
+    assertEquals(snapshot.tradeCount(), 2);
+    assertEquals(snapshot.facilityCount(), 1);
+    assertEquals(snapshot.toTradeList(), trades());
+    assertEquals(snapshot.facilities(), facilities());
+    assertFalse(Files.exists(path.resolveSibling(path.getFileName() + ".tmp")));
+  }
+
+  public void test_replace() throws IOException {
+    final Path path = snapshot();
+
+    PortfolioSnapshot.write(path, ProratedLoanTradeList.builder().trades(trades().getTrades().subList(0, 1)).build(),
+        facilities());
+
+    assertEquals(PortfolioSnapshot.open(path).tradeCount(), 1);
+  }
+
+  public void test_lazyDecode() throws IOException {
+    final Path path = snapshot();
+
+    // Records are decoded on access, so a corrupt record is not noticed until it is accessed.
+    corruptFirstRecord(path);
+
+    final PortfolioSnapshot snapshot = PortfolioSnapshot.open(path);
+
+    assertEquals(snapshot.trade(1), trades().getTrades().get(1));
+    assertSame(snapshot.trade(1), snapshot.trade(1));
+    assertEquals(snapshot.facility(0), facilities().get(0));
+  }
+
+  @Test(expectedExceptions = RuntimeException.class)
+  public void test_lazyDecodeCorruptRecord() throws IOException {
+    final Path path = snapshot();
+
+    corruptFirstRecord(path);
+
+    PortfolioSnapshot.open(path).trade(0);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void test_wrongVersion() throws IOException {
+    final Path path = snapshot();
+
+    try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+      file.seek(4);
+      file.writeInt(PortfolioSnapshot.VERSION + 1);
+    }
+
+    PortfolioSnapshot.open(path);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void test_notSnapshot() throws IOException {
+    final Path path = Files.createTempFile("loansum", ".snapshot");
+
+    Files.write(path, "{\"@bean\": \"LoanTradeList\", \"trades\": []}".getBytes("UTF-8"));
+    path.toFile().deleteOnExit();
+
+    PortfolioSnapshot.open(path);
+  }
+
+  /**
+   * @return file holding a snapshot of {@link #trades()} and {@link #facilities()}
+   */
+  private static Path snapshot() throws IOException {
+    final Path path = Files.createTempDirectory("loansum").resolve("portfolio.snapshot");
+
+    PortfolioSnapshot.write(path, trades(), facilities());
+    // Deleted in reverse order of registration, so the file before its directory.
+    path.getParent().toFile().deleteOnExit();
+    path.toFile().deleteOnExit();
+
+    return path;
+  }
+
+  /**
+   * Overwrite the start of the first record, which follows the magic number and format version.
+   * 
+   * @param path snapshot file
+   */
+  private static void corruptFirstRecord(Path path) throws IOException {
+    try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+      file.seek(8);
+      file.write(new byte[] {-1, -1, -1, -1, -1, -1, -1, -1});
+    }
+  }
+
+  private static ProratedLoanTradeList trades() {
+    final LoanTrade trade = LoanTrades.termLoanTrade();
+
+    return ProratedLoanTradeList.builder().trades(Arrays.asList(trade.prorate(null),
+        trade.toBuilder().buySell(BuySell.SELL).amount(1000000).build().prorate(null))).build();
+  }
+
+  private static List<Facility> facilities() {
+    return Arrays.asList(LoanTrades.termLoanTrade().getProduct());
+  }
+}
@@ -0,0 +1,206 @@
+/**
+ * Copyright (c) 2018 SyndLoanHub, LLC and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License from within this distribution and at:
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.syndloanhub.loansum.service;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.TimeoutHandler;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+
+import org.testng.annotations.Test;
+
+/**
+ * Test {@link PricingExecutors} on a pool of one thread and a queue of one.
+ */
+@Test
+public class PricingExecutorsTest {
+
+  public void test_submit() throws Exception {
+    final ExecutorService pool = pool();
+    final RecordingResponse response = new RecordingResponse();
+
+    try {
+      PricingExecutors.submit(pool, response, () -> "result");
+
+      assertEquals(response.resumed.get(10, TimeUnit.SECONDS), "result");
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  public void test_submitException() throws Exception {
+    final ExecutorService pool = pool();
+    final RecordingResponse response = new RecordingResponse();
+    final IllegalStateException exc = new IllegalStateException("failed");
+
+    try {
+      PricingExecutors.submit(pool, response, () -> {
+        throw exc;
+      });
+
+      assertSame(response.resumed.get(10, TimeUnit.SECONDS), exc);
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  public void test_submitError() throws Exception {
+    final ExecutorService pool = pool();
+    final RecordingResponse response = new RecordingResponse();
+    final OutOfMemoryError error = new OutOfMemoryError("test");
+
+    try {
+      // An error still resumes the response, the client is never left waiting.
+      PricingExecutors.submit(pool, response, () -> {
+        throw error;
+      });
+
+      assertSame(response.resumed.get(10, TimeUnit.SECONDS), error);
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  public void test_shed() throws Exception {
+    final ExecutorService pool = pool();
+    final CountDownLatch release = new CountDownLatch(1);
+    final RecordingResponse running = new RecordingResponse();
+    final RecordingResponse queued = new RecordingResponse();
+    final RecordingResponse shed = new RecordingResponse();
+
+    try {
+      // One request runs and one is queued, a third is shed at once with 503 and Retry-After.
+      PricingExecutors.submit(pool, running, () -> {
+        await(release);
+        return "running";
+      });
+      PricingExecutors.submit(pool, queued, () -> "queued");
+      PricingExecutors.submit(pool, shed, () -> "shed");
+
+      assertTrue(shed.resumed.isDone());
+      final Response response = (Response) shed.resumed.get();
+      assertEquals(response.getStatus(), Status.SERVICE_UNAVAILABLE.getStatusCode());
+      assertEquals(response.getHeaderString("Retry-After"), String.valueOf(PricingExecutors.RETRY_AFTER));
+
+      release.countDown();
+      assertEquals(running.resumed.get(10, TimeUnit.SECONDS), "running");
+      assertEquals(queued.resumed.get(10, TimeUnit.SECONDS), "queued");
+    } finally {
+      release.countDown();
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * @return pool of one thread and a queue of one
+   */
+  private static ExecutorService pool() {
+    return new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(1));
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException exc) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Suspended response which records what it is resumed with.
+   */
+  private static final class RecordingResponse implements AsyncResponse {
+    private final CompletableFuture<Object> resumed = new CompletableFuture<Object>();
+
+    @Override
+    public boolean resume(Object response) {
+      return resumed.complete(response);
+    }
+
+    @Override
+    public boolean resume(Throwable response) {
+      return resumed.complete(response);
+    }
+
+    @Override
+    public boolean cancel() {
+      return resumed.cancel(false);
+    }
+
+    @Override
+    public boolean cancel(int retryAfter) {
+      return cancel();
+    }
+
+    @Override
+    public boolean cancel(Date retryAfter) {
+      return cancel();
+    }
+
+    @Override
+    public boolean isSuspended() {
+      return !resumed.isDone();
+    }
+
+    @Override
+    public boolean isCancelled() {
+      return resumed.isCancelled();
+    }
+
+    @Override
+    public boolean isDone() {
+      return resumed.isDone();
+    }
+
+    @Override
+    public boolean setTimeout(long time, TimeUnit unit) {
+      return true;
+    }
+
+    @Override
+    public void setTimeoutHandler(TimeoutHandler handler) {
+    }
+
+    @Override
+    public Collection<Class<?>> register(Class<?> callback) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Map<Class<?>, Collection<Class<?>>> register(Class<?> callback, Class<?>... callbacks) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Collection<Class<?>> register(Object callback) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Map<Class<?>, Collection<Class<?>>> register(Object callback, Object... callbacks) {
+      throw new UnsupportedOperationException();
+    }
+  }
+}